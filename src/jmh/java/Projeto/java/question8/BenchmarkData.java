@@ -0,0 +1,92 @@
+package Projeto.java.question8;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Geração de massas de dados determinísticas para os benchmarks.
+ */
+final class BenchmarkData {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Plantas com códigos 1..size e descrições aleatórias de 4 a 10 caracteres.
+     */
+    static List<Plant> plants(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Plant> plants = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            plants.add(new Plant(String.valueOf(i), description(random)));
+        }
+        return plants;
+    }
+
+    static PlantRepository repository(String store, int size) {
+        PlantRepository repository;
+        switch (store) {
+            case "offheap":
+                repository = new OffHeapPlantRepository(size);
+                break;
+            case "jdbc":
+                repository = jdbcRepository();
+                break;
+            default:
+                repository = new InMemoryPlantRepository();
+        }
+        repository.insertAllIfAbsent(plants(size));
+        return repository;
+    }
+
+    /**
+     * Repositório JDBC em um H2 em memória novo, com pool de conexões.
+     */
+    static JdbcPlantRepository jdbcRepository() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:plantas-" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        JdbcPlantRepository repository = new JdbcPlantRepository(dataSource);
+        repository.createSchemaIfAbsent();
+        return repository;
+    }
+
+    static String description(SplittableRandom random) {
+        char[] chars = new char[4 + random.nextInt(7)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Apaga um diretório temporário com todo o seu conteúdo.
+     */
+    static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buscas por código com acesso Zipfiano (poucas plantas muito acessadas) contra o
+ * repositório com e sem o {@link CachingPlantRepository}. A taxa de acerto do cache
+ * é impressa ao final de cada execução. O parâmetro {@code storeCost} simula um
+ * repositório mais lento que a memória (banco, rede) consumindo CPU em cada busca.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CachingPlantRepositoryBenchmark {
+
+    private static final int SAMPLES = 1 << 20;
+
+    @Param({"1000000"})
+    int size;
+
+    /**
+     * Tamanho do cache; zero mede o repositório sem cache.
+     */
+    @Param({"0", "10000", "100000"})
+    int cacheSize;
+
+    /**
+     * Expoente da distribuição de Zipf; quanto maior, mais concentrado o acesso.
+     */
+    @Param({"0.99"})
+    double skew;
+
+    /**
+     * Unidades de {@link Blackhole#consumeCPU(long)} gastas em cada busca no repositório.
+     */
+    @Param({"0", "2000"})
+    long storeCost;
+
+    private PlantRepository repository;
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long cost = storeCost;
+        repository = new InMemoryPlantRepository() {
+            @Override
+            public Optional<Plant> findByCode(String code) {
+                Blackhole.consumeCPU(cost);
+                return super.findByCode(code);
+            }
+        };
+        repository.insertAllIfAbsent(BenchmarkData.plants(size));
+        if (cacheSize > 0) {
+            repository = new CachingPlantRepository(repository, cacheSize, Duration.ZERO);
+        }
+        codes = zipfCodes(size, skew, SAMPLES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (repository instanceof CachingPlantRepository) {
+            System.out.printf("%ncache %d: taxa de acerto %.2f%%, despejos %d%n", cacheSize,
+                    ((CachingPlantRepository) repository).stats().hitRate() * 100,
+                    ((CachingPlantRepository) repository).stats().evictionCount());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = new SplittableRandom().nextInt(SAMPLES);
+    }
+
+    @Benchmark
+    public Optional<Plant> findByCode(Cursor cursor) {
+        cursor.next = (cursor.next + 1) & (SAMPLES - 1);
+        return repository.findByCode(codes[cursor.next]);
+    }
+
+    /**
+     * Sorteia códigos de 1 a {@code size} com probabilidade proporcional a {@code 1/rank^skew},
+     * embaralhando os ranks para que as plantas mais acessadas não sejam as de código menor.
+     */
+    private static String[] zipfCodes(int size, double skew, int samples) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            total += 1 / Math.pow(rank, skew);
+            cumulative[rank - 1] = total;
+        }
+        SplittableRandom random = new SplittableRandom(7);
+        int[] codeByRank = new int[size];
+        for (int i = 0; i < size; i++) {
+            int j = random.nextInt(i + 1);
+            codeByRank[i] = codeByRank[j];
+            codeByRank[j] = i + 1;
+        }
+        String[] codes = new String[samples];
+        for (int i = 0; i < samples; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            int rank = index >= 0 ? index : -index - 1;
+            codes[i] = String.valueOf(codeByRank[Math.min(rank, size - 1)]);
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,53 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compara a busca por descrição via índice de trigramas com a varredura linear
+ * usada antes do índice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DescriptionSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    @Param({"ab", "abc", "k3x9"})
+    String query;
+
+    private InMemoryPlantRepository indexed;
+    private final Map<String, Plant> plantsByCode = new ConcurrentHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        indexed = new InMemoryPlantRepository();
+        for (Plant plant : BenchmarkData.plants(size)) {
+            indexed.save(plant);
+            plantsByCode.put(plant.getCodigo(), plant);
+        }
+    }
+
+    @Benchmark
+    public List<Plant> trigramIndex() {
+        return indexed.findByDescriptionContaining(query);
+    }
+
+    @Benchmark
+    public List<Plant> linearScan() {
+        return plantsByCode.values().stream()
+                .filter(plant -> plant.getDescricao() != null &&
+                        plant.getDescricao().toLowerCase().contains(query.toLowerCase()))
+                .collect(Collectors.toList());
+    }
+}
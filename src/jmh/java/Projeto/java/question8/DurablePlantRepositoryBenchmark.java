@@ -0,0 +1,96 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vazão de escrita do repositório durável com e sem fsync e tempo de recuperação
+ * a partir do log. Com {@code -t} maior que 1 as escritas concorrentes compartilham
+ * o mesmo fsync (group commit).
+ */
+public class DurablePlantRepositoryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+
+        @Param({"true", "false"})
+        boolean fsync;
+
+        Path directory;
+        DurablePlantRepository repository;
+        final AtomicLong nextCode = new AtomicLong(1);
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("plant-wal-bench");
+            repository = new DurablePlantRepository(new InMemoryPlantRepository(), directory, fsync, Duration.ofHours(1));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            repository.close();
+            BenchmarkData.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+
+        @Param({"100000"})
+        int records;
+
+        /**
+         * Quando verdadeiro, a recuperação parte de um snapshot e não do log completo.
+         */
+        @Param({"false", "true"})
+        boolean snapshot;
+
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("plant-recovery-bench");
+            try (DurablePlantRepository repository = new DurablePlantRepository(
+                    new InMemoryPlantRepository(), directory, false, Duration.ofHours(1))) {
+                repository.insertAllIfAbsent(BenchmarkData.plants(records));
+                if (snapshot) {
+                    repository.snapshot();
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            BenchmarkData.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public Plant save(WriteState state) {
+        return state.repository.save(new Plant(String.valueOf(state.nextCode.getAndIncrement()), "wal"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public long recover(RecoveryState state) {
+        try (DurablePlantRepository repository = new DurablePlantRepository(
+                new InMemoryPlantRepository(), state.directory, false, Duration.ofHours(1))) {
+            return repository.modificationCount();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência da busca de descrições com erros de digitação
+ * ({@link PlantRepository#findByDescriptionSimilar}) por repositório e tolerância. As consultas
+ * são descrições existentes com um caractere trocado. {@code linearScan} calcula a distância
+ * até todas as descrições de uma lista e serve de referência, independente do repositório.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FuzzyDescriptionSearchBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"memory", "offheap", "jdbc"})
+    String store;
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    @Param({"1", "2"})
+    int maxDistance;
+
+    private PlantRepository repository;
+    private List<Plant> plants;
+    private final String[] queries = new String[QUERIES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchmarkData.repository(store, size);
+        plants = BenchmarkData.plants(size);
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < QUERIES; i++) {
+            char[] chars = plants.get(random.nextInt(size)).getDescricao().toCharArray();
+            chars[random.nextInt(chars.length)] = (char) ('a' + random.nextInt(26));
+            queries[i] = new String(chars);
+        }
+    }
+
+    @Benchmark
+    public List<Plant> findByDescriptionSimilar() {
+        return repository.findByDescriptionSimilar(nextQuery(), maxDistance);
+    }
+
+    @Benchmark
+    public List<Plant> linearScan() {
+        return EditDistance.rank(plants.stream(), nextQuery(), maxDistance);
+    }
+
+    private String nextQuery() {
+        return queries[ThreadLocalRandom.current().nextInt(QUERIES)];
+    }
+}
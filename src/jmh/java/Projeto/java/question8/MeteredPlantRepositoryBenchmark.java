@@ -0,0 +1,48 @@
+package Projeto.java.question8;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da instrumentação no caminho quente: o mesmo repositório com e sem o
+ * {@link MeteredPlantRepository}, registrando em um registro Prometheus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeteredPlantRepositoryBenchmark {
+
+    @Param({"false", "true"})
+    boolean metered;
+
+    @Param({"100000"})
+    int size;
+
+    private PlantRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchmarkData.repository("memory", size);
+        if (metered) {
+            repository = new MeteredPlantRepository(repository, new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        }
+    }
+
+    @Benchmark
+    public Optional<Plant> findByCode() {
+        return repository.findByCode(String.valueOf(1 + ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public Plant save() {
+        return repository.save(new Plant(String.valueOf(1 + ThreadLocalRandom.current().nextInt(size)), "m"));
+    }
+}
@@ -0,0 +1,152 @@
+package Projeto.java.question8;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Teste de carga do controle de admissão contra um serviço que atende {@value #CAPACITY}
+ * requisições ao mesmo tempo, cada uma em {@code serviceMicros}; as excedentes esperam na fila
+ * do serviço, como threads do Tomcat esperando conexões do banco. Com {@code -t} acima da
+ * capacidade (o padrão, 64 threads, é 8 vezes a capacidade), sem admissão todas as requisições
+ * esperam na fila; com ela, as excedentes são recusadas e o cliente recusado espera
+ * {@code backoffMicros} antes de tentar de novo.
+ *
+ * <p>As contagens de admitidas e recusadas saem como contadores auxiliares; os percentis da
+ * latência das admitidas são impressos ao fim de cada iteração.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(64)
+@Fork(1)
+public class PlantAdmissionLoadBenchmark {
+
+    private static final int CAPACITY = 8;
+
+    @Param({"false", "true"})
+    boolean admission;
+
+    @Param({"1000"})
+    long serviceMicros;
+
+    @Param({"1000"})
+    long backoffMicros;
+
+    private final Semaphore service = new Semaphore(CAPACITY, true);
+    private final List<Recorder> recorders = new ArrayList<>();
+    private PlantAdmissionControl admissionControl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Começa no limite mínimo, como um servidor que acabou de subir: a primeira janela mede a latência sem fila
+        admissionControl = new PlantAdmissionControl(0, 0, Duration.ofMinutes(1), 1000, 4, 4, 200,
+                new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Iteration)
+    public void printAdmittedLatency() {
+        long[] all;
+        synchronized (recorders) {
+            int total = 0;
+            for (Recorder recorder : recorders) {
+                total += recorder.count;
+            }
+            all = new long[total];
+            int offset = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies, 0, all, offset, recorder.count);
+                offset += recorder.count;
+                recorder.count = 0;
+            }
+        }
+        if (all.length == 0) {
+            return;
+        }
+        Arrays.sort(all);
+        System.out.printf("%nadmitidas: %d, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, limite de leitura %d%n",
+                all.length, millis(all, 0.50), millis(all, 0.99), millis(all, 0.999),
+                admissionControl.limit(PlantAdmissionControl.EndpointClass.READ));
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1e6;
+    }
+
+    /**
+     * Latências das requisições admitidas de uma thread cliente, e as contagens da iteração.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Recorder {
+
+        public long admitted;
+        public long rejected;
+
+        long[] latencies = new long[1 << 16];
+        int count;
+
+        @Setup(Level.Trial)
+        public void register(PlantAdmissionLoadBenchmark benchmark) {
+            synchronized (benchmark.recorders) {
+                benchmark.recorders.add(this);
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            admitted = 0;
+            rejected = 0;
+        }
+
+        void record(long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            admitted++;
+        }
+    }
+
+    @Benchmark
+    public void request(Recorder recorder) throws InterruptedException {
+        long start = System.nanoTime();
+        if (!admission) {
+            callService();
+            recorder.record(System.nanoTime() - start);
+            return;
+        }
+
+        PlantAdmissionControl.Admission ticket = admissionControl.admit("cliente",
+                PlantAdmissionControl.EndpointClass.READ);
+        if (!ticket.isAdmitted()) {
+            recorder.rejected++;
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(backoffMicros));
+            return;
+        }
+        try {
+            callService();
+        } finally {
+            ticket.complete();
+        }
+        recorder.record(System.nanoTime() - start);
+    }
+
+    private void callService() throws InterruptedException {
+        service.acquire();
+        try {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(serviceMicros));
+        } finally {
+            service.release();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latência adicionada pela {@link PlantAuditTrail} a {@code createPlant} e {@code updatePlant}.
+ * O modo de amostragem reporta os percentis (p0.99, p0.999) de cada operação; a gravação
+ * em disco fica na thread de fundo, então o custo medido é o de montar e enfileirar o evento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantAuditBenchmark {
+
+    @Param({"false", "true"})
+    boolean audited;
+
+    @Param({"10000"})
+    int size;
+
+    private PlantService plantService;
+    private PlantAuditTrail auditTrail;
+    private Path directory;
+    private final AtomicInteger nextCode = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (audited) {
+            directory = Files.createTempDirectory("plant-audit-bench");
+            auditTrail = new PlantAuditTrail(directory, 65536, 512, 64L << 20);
+        }
+        plantService = new PlantService(BenchmarkData.repository("memory", size), new SimpleUserService(), null, auditTrail);
+        nextCode.set(size + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (auditTrail != null) {
+            auditTrail.close();
+            System.out.printf("%nEventos gravados: %d, descartados: %d%n", auditTrail.writtenCount(), auditTrail.droppedCount());
+            BenchmarkData.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public Plant createPlant() {
+        return plantService.createPlant(new Plant(String.valueOf(nextCode.getAndIncrement()), "novo"));
+    }
+
+    @Benchmark
+    public Plant updatePlant() {
+        String code = String.valueOf(1 + ThreadLocalRandom.current().nextInt(size));
+        return plantService.updatePlant(code, new Plant(code, "u"));
+    }
+}
@@ -0,0 +1,82 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exclusão de todas as plantas via {@link PlantService#deletePlants(List)} e
+ * {@link PlantService#deletePlantsByCodeRange(String, String)} comparada com chamadas
+ * individuais a {@link PlantService#deletePlant(String)}. O repositório {@code durable}
+ * é o em memória com log de escrita antecipada e fsync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PlantBulkDeleteBenchmark {
+
+    @Param({"100000"})
+    int rows;
+
+    @Param({"memory", "offheap", "jdbc", "durable"})
+    String store;
+
+    private List<String> codes;
+    private PlantService plantService;
+    private DurablePlantRepository durableRepository;
+    private Path directory;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        codes = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            codes.add(String.valueOf(i));
+        }
+        PlantRepository repository;
+        if ("durable".equals(store)) {
+            directory = Files.createTempDirectory("plant-delete-bench");
+            durableRepository = new DurablePlantRepository(new InMemoryPlantRepository(), directory, true, Duration.ofHours(1));
+            durableRepository.insertAllIfAbsent(BenchmarkData.plants(rows));
+            repository = durableRepository;
+        } else {
+            repository = BenchmarkData.repository(store, rows);
+        }
+        plantService = new PlantService(repository, new SimpleUserService(), new PlantChangeLog(4096), null);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        if (durableRepository != null) {
+            durableRepository.close();
+            BenchmarkData.deleteRecursively(directory);
+            durableRepository = null;
+        }
+    }
+
+    @Benchmark
+    public PlantBatchResult bulkDelete() {
+        return plantService.deletePlants(codes);
+    }
+
+    @Benchmark
+    public PlantBatchResult rangeDelete() {
+        return plantService.deletePlantsByCodeRange("1", String.valueOf(rows));
+    }
+
+    @Benchmark
+    public int perItemDelete() {
+        for (String code : codes) {
+            plantService.deletePlant(code);
+        }
+        return codes.size();
+    }
+}
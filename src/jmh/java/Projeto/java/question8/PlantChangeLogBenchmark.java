@@ -0,0 +1,132 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do fluxo de alterações: a latência adicionada à atualização no {@link PlantService}
+ * ao publicar no {@link PlantChangeLog} e a vazão de entrega para muitos assinantes, cada
+ * um lendo o buffer com o próprio cursor como faz o {@link PlantChangeController}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantChangeLogBenchmark {
+
+    private static final int CAPACITY = 4096;
+    private static final int MAX_EVENTS_PER_POLL = 256;
+
+    @State(Scope.Benchmark)
+    public static class WritePath {
+        @Param({"false", "true"})
+        boolean publish;
+
+        PlantService plantService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            PlantRepository repository = BenchmarkData.repository("memory", 10000);
+            plantService = new PlantService(repository, new SimpleUserService(),
+                    publish ? new PlantChangeLog(CAPACITY) : null, null);
+        }
+    }
+
+    /**
+     * Um publicador e {@code subscribers} cursores que leem cada evento publicado.
+     */
+    @State(Scope.Benchmark)
+    public static class FanOut {
+        @Param({"1", "16", "256"})
+        int subscribers;
+
+        PlantChangeLog changeLog;
+        long[] cursors;
+        Plant plant;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            changeLog = new PlantChangeLog(CAPACITY);
+            cursors = new long[subscribers];
+            Arrays.fill(cursors, 1);
+            plant = new Plant("1", "p");
+        }
+    }
+
+    /**
+     * Leitores simultâneos ao publicador, cada thread com o próprio cursor.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        long next;
+
+        @Setup(Level.Iteration)
+        public void setUp(Shared shared) {
+            next = shared.changeLog.lastSequence() + 1;
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Shared {
+        PlantChangeLog changeLog;
+        Plant plant;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            changeLog = new PlantChangeLog(CAPACITY);
+            plant = new Plant("1", "p");
+        }
+    }
+
+    @Benchmark
+    public Plant updatePlant(WritePath state) {
+        String code = String.valueOf(1 + ThreadLocalRandom.current().nextInt(10000));
+        return state.plantService.updatePlant(code, new Plant(code, "u"));
+    }
+
+    /**
+     * Uma publicação entregue a todos os cursores; eventos entregues por segundo são
+     * a vazão da operação multiplicada por {@code subscribers}.
+     */
+    @Benchmark
+    public long fanOut(FanOut state) {
+        state.changeLog.publish(PlantChangeEvent.Type.UPDATED, state.plant);
+        long delivered = 0;
+        long[] cursors = state.cursors;
+        for (int i = 0; i < cursors.length; i++) {
+            List<PlantChangeEvent> events = state.changeLog.read(cursors[i], MAX_EVENTS_PER_POLL);
+            if (!events.isEmpty()) {
+                cursors[i] = events.get(events.size() - 1).getSequence() + 1;
+                delivered += events.size();
+            }
+        }
+        return delivered;
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public PlantChangeEvent publish(Shared shared) {
+        return shared.changeLog.publish(PlantChangeEvent.Type.UPDATED, shared.plant);
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(3)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int read(Shared shared, Cursor cursor) {
+        List<PlantChangeEvent> events = shared.changeLog.read(cursor.next, MAX_EVENTS_PER_POLL);
+        if (!events.isEmpty()) {
+            cursor.next = events.get(events.size() - 1).getSequence() + 1;
+        }
+        return events.size();
+    }
+}
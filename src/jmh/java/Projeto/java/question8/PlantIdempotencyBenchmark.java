@@ -0,0 +1,76 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de uma repetição de {@code POST /api/plantas} após timeout: sem chave de
+ * idempotência ({@code retry}), a repetição passa pelo serviço e termina em
+ * {@link DuplicateCodeException} (409); com ela ({@code replay}), é uma consulta ao
+ * {@link PlantIdempotencyStore}. {@code firstWrite} mede a criação com chave nova, para
+ * o custo do registro da chave. Rode com {@code -prof gc} para ver a alocação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantIdempotencyBenchmark {
+
+    private static final String SCOPE = "POST /api/plantas Bearer cliente";
+
+    @Param({"100000"})
+    int size;
+
+    private PlantService plantService;
+    private PlantIdempotencyStore idempotencyStore;
+    private PlantDTO retried;
+    private List<String> fingerprint;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plantService = new PlantService(BenchmarkData.repository("memory", size), new SimpleUserService());
+        idempotencyStore = new PlantIdempotencyStore(1_000_000, Duration.ofHours(24));
+        retried = new PlantDTO(String.valueOf(size + 1), "Repetida");
+        fingerprint = Arrays.asList(retried.getCodigo(), retried.getDescricao());
+        idempotencyStore.execute(SCOPE, "chave-repetida", fingerprint, this::create);
+        next = size + 2;
+    }
+
+    @Benchmark
+    public ResponseEntity<?> retry() {
+        try {
+            return create();
+        } catch (DuplicateCodeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<PlantDTO> replay() {
+        return idempotencyStore.execute(SCOPE, "chave-repetida", fingerprint, this::create);
+    }
+
+    @Benchmark
+    public ResponseEntity<PlantDTO> firstWrite() {
+        String code = Long.toString(next++);
+        PlantDTO plant = new PlantDTO(code, "Nova");
+        return idempotencyStore.execute(SCOPE, "chave-" + code, Arrays.asList(code, "Nova"), () -> {
+            Plant created = plantService.createPlant(plant.toEntity());
+            return ResponseEntity.status(HttpStatus.CREATED).body(PlantDTO.fromEntity(created));
+        });
+    }
+
+    private ResponseEntity<PlantDTO> create() {
+        Plant plant = plantService.createPlant(retried.toEntity());
+        return ResponseEntity.status(HttpStatus.CREATED).body(PlantDTO.fromEntity(plant));
+    }
+}
@@ -0,0 +1,49 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importação de um lote grande via {@link PlantService#createPlants(List)} comparada
+ * com chamadas individuais a {@link PlantService#createPlant(Plant)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PlantImportBenchmark {
+
+    @Param({"100000"})
+    int rows;
+
+    @Param({"memory", "offheap"})
+    String store;
+
+    private List<Plant> plants;
+    private PlantService plantService;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        plants = BenchmarkData.plants(rows);
+        plantService = new PlantService(BenchmarkData.repository(store, 0), new SimpleUserService());
+    }
+
+    @Benchmark
+    public PlantBatchResult batchImport() {
+        return plantService.createPlants(plants);
+    }
+
+    @Benchmark
+    public List<Plant> perItemImport() {
+        List<Plant> created = new ArrayList<>(plants.size());
+        for (Plant plant : plants) {
+            created.add(plantService.createPlant(plant));
+        }
+        return created;
+    }
+}
@@ -0,0 +1,111 @@
+package Projeto.java.question8;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Respostas JSON montadas pelo Jackson a cada requisição ({@code path=jackson}, o caminho
+ * anterior do controlador) e a partir dos fragmentos do {@link PlantJsonCache}
+ * ({@code path=cache}, com o cache já aquecido): uma planta por código, uma lista de
+ * {@code listSize} plantas e a exportação NDJSON de todas. Rode com {@code -prof gc} para
+ * comparar a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantJsonCacheBenchmark {
+
+    @Param({"jackson", "cache"})
+    String path;
+
+    @Param({"10000"})
+    int size;
+
+    @Param({"100"})
+    int listSize;
+
+    private List<Plant> plants;
+    private List<Plant> list;
+    private ObjectMapper mapper;
+    private ObjectWriter plantWriter;
+    private ObjectWriter listWriter;
+    private ObjectWriter exportWriter;
+    private PlantJsonCache jsonCache;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 30);
+        plants = BenchmarkData.plants(size);
+        plants.forEach(plant -> {
+            plant.setCriadoPor("usuario_sistema");
+            plant.setDataCriacao(now);
+            plant.setUltimaModificacaoPor("usuario_sistema");
+            plant.setDataUltimaModificacao(now);
+            plant.setVersao(1L);
+        });
+        list = plants.subList(0, listSize);
+
+        plantWriter = mapper.writerFor(PlantDTO.class);
+        JavaType listType = mapper.getTypeFactory().constructCollectionType(List.class, PlantDTO.class);
+        listWriter = mapper.writerFor(listType);
+        exportWriter = mapper.writerFor(PlantExportDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        jsonCache = new PlantJsonCache(mapper, size);
+        for (Plant plant : plants) {
+            jsonCache.json(plant);
+            jsonCache.exportJson(plant);
+        }
+    }
+
+    @Benchmark
+    public byte[] single() throws IOException {
+        Plant plant = plants.get(next++ % size);
+        return "cache".equals(path)
+                ? jsonCache.json(plant)
+                : plantWriter.writeValueAsBytes(PlantDTO.fromEntity(plant));
+    }
+
+    @Benchmark
+    public byte[] list() throws IOException {
+        return "cache".equals(path)
+                ? jsonCache.jsonArray(list)
+                : listWriter.writeValueAsBytes(list.stream().map(PlantDTO::fromEntity).collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void export() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        if ("cache".equals(path)) {
+            for (Plant plant : plants) {
+                out.write(jsonCache.exportJson(plant));
+                out.write('\n');
+            }
+            return;
+        }
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (Plant plant : plants) {
+                exportWriter.writeValue(generator, PlantExportDTO.fromEntity(plant));
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
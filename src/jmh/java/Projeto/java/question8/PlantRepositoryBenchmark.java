@@ -0,0 +1,65 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações básicas dos repositórios de plantas por tamanho da massa de dados.
+ * O número de threads é definido na linha de comando ({@code -t}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantRepositoryBenchmark {
+
+    @Param({"memory", "offheap", "jdbc"})
+    String store;
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    private PlantRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchmarkData.repository(store, size);
+    }
+
+    @Benchmark
+    public Plant save() {
+        String code = randomCode();
+        return repository.save(new Plant(code, "s" + code.length()));
+    }
+
+    @Benchmark
+    public Optional<Plant> findByCode() {
+        return repository.findByCode(randomCode());
+    }
+
+    @Benchmark
+    public List<Plant> findByDescriptionContaining() {
+        return repository.findByDescriptionContaining("k3x");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<Plant> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<Plant> findAllAfter() {
+        return repository.findAllAfter(randomCode(), 100);
+    }
+
+    private String randomCode() {
+        return String.valueOf(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+}
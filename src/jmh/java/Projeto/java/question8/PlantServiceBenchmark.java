@@ -0,0 +1,67 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caminho do serviço de plantas, incluindo validação e conversão de DTOs.
+ * Para medir a disputa entre threads, rode com {@code -t 1}, {@code -t 8}, {@code -t 64}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantServiceBenchmark {
+
+    @Param({"memory", "offheap", "jdbc"})
+    String store;
+
+    @Param({"10000", "100000"})
+    int size;
+
+    /**
+     * Quantidade de códigos disputados por {@link #updatePlant()}; valores baixos
+     * concentram as threads nas mesmas plantas.
+     */
+    @Param({"16", "10000"})
+    int hotCodes;
+
+    private PlantService plantService;
+    private AtomicLong nextCode;
+    private Plant samplePlant;
+    private PlantDTO sampleDto;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        plantService = new PlantService(BenchmarkData.repository(store, size), new SimpleUserService());
+        nextCode = new AtomicLong(size + 1L);
+        samplePlant = plantService.findPlantByCode("1").orElseThrow();
+        sampleDto = PlantDTO.fromEntity(samplePlant);
+    }
+
+    @Benchmark
+    public Plant createPlant() {
+        return plantService.createPlant(new Plant(String.valueOf(nextCode.getAndIncrement()), "nova"));
+    }
+
+    @Benchmark
+    public Plant updatePlant() {
+        String code = String.valueOf(1 + ThreadLocalRandom.current().nextInt(Math.min(hotCodes, size)));
+        return plantService.updatePlant(code, new Plant(code, "alterada"));
+    }
+
+    @Benchmark
+    public PlantDTO fromEntity() {
+        return PlantDTO.fromEntity(samplePlant);
+    }
+
+    @Benchmark
+    public Plant toEntity() {
+        return sampleDto.toEntity();
+    }
+}
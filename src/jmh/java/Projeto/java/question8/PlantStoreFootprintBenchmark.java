@@ -0,0 +1,58 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o heap retido e o custo de GC dos repositórios em memória e fora do heap.
+ * O heap retido é impresso ao carregar a massa; rode com {@code -prof gc} para ver
+ * a taxa de alocação e o tempo de coleta sob carga de leitura e escrita.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class PlantStoreFootprintBenchmark {
+
+    @Param({"memory", "offheap"})
+    String store;
+
+    @Param({"1000000"})
+    int size;
+
+    private PlantRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        repository = BenchmarkData.repository(store, size);
+        long retained = usedHeap() - before;
+        String offHeap = repository instanceof OffHeapPlantRepository
+                ? String.format(", fora do heap: %d MB", ((OffHeapPlantRepository) repository).offHeapBytes() >> 20)
+                : "";
+        System.out.printf("%n%s com %d plantas: heap retido %d MB%s%n", store, size, retained >> 20, offHeap);
+    }
+
+    @Benchmark
+    public Optional<Plant> churn() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String code = String.valueOf(1 + random.nextInt(size));
+        if (random.nextInt(10) == 0) {
+            repository.save(new Plant(code, "c" + random.nextInt(1000)));
+        }
+        return repository.findByCode(code);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,45 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência das sugestões por prefixo de código ({@link PlantRepository#findByCodePrefix})
+ * por tamanho do catálogo. Os prefixos têm de 1 a 4 dígitos, como os digitados por um
+ * operador, e cada consulta pede as 10 primeiras sugestões.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantSuggestBenchmark {
+
+    @Param({"memory", "offheap", "jdbc"})
+    String store;
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    @Param({"10"})
+    int limit;
+
+    private PlantRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchmarkData.repository(store, size);
+    }
+
+    @Benchmark
+    public List<Plant> findByCodePrefix() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int digits = 1 + random.nextInt(4);
+        int prefix = random.nextInt((int) Math.pow(10, digits - 1), (int) Math.pow(10, digits));
+        return repository.findByCodePrefix(String.valueOf(prefix), limit);
+    }
+}
@@ -0,0 +1,80 @@
+package Projeto.java.question8;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Tamanho e custo de CPU de uma lista de plantas em JSON e em Smile, com os mapeadores
+ * configurados como nos conversores HTTP. {@code record} escolhe o {@link PlantDTO} das
+ * consultas ou o {@link PlantExportDTO} da exportação, com auditoria e versão. O tamanho
+ * de cada formato é impresso ao preparar a massa; rode com {@code -prof gc} para ver a alocação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantWireFormatBenchmark {
+
+    @Param({"json", "smile"})
+    String format;
+
+    @Param({"plant", "export"})
+    String record;
+
+    @Param({"1000"})
+    int size;
+
+    private List<?> payload;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper mapper = "smile".equals(format)
+                ? Jackson2ObjectMapperBuilder.json().factory(PlantController.newSmileFactory()).build()
+                : Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 30);
+        List<Plant> plants = BenchmarkData.plants(size);
+        plants.forEach(plant -> {
+            plant.setCriadoPor("usuario_sistema");
+            plant.setDataCriacao(now);
+            plant.setUltimaModificacaoPor("usuario_sistema");
+            plant.setDataUltimaModificacao(now);
+            plant.setVersao(1L);
+        });
+        Class<?> type = "export".equals(record) ? PlantExportDTO.class : PlantDTO.class;
+        payload = "export".equals(record)
+                ? plants.stream().map(PlantExportDTO::fromEntity).collect(Collectors.toList())
+                : plants.stream().map(PlantDTO::fromEntity).collect(Collectors.toList());
+
+        JavaType listType = mapper.getTypeFactory().constructCollectionType(List.class, type);
+        writer = mapper.writerFor(listType);
+        reader = mapper.readerFor(listType);
+        encoded = writer.writeValueAsBytes(payload);
+        System.out.printf("%n%s/%s com %d plantas: %d bytes (%.1f por planta)%n",
+                format, record, size, encoded.length, (double) encoded.length / size);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public List<?> decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
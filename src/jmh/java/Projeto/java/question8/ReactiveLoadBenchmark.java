@@ -0,0 +1,128 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Rajadas de {@code requests} buscas simultâneas contra um armazenamento que leva
+ * {@code latencyMillis} para responder. O caminho síncrono usa um pool de 200 threads,
+ * como o Tomcat padrão, cada uma bloqueada durante a busca; o reativo aguarda a mesma
+ * latência sem bloquear threads, como faria um driver assíncrono.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactiveLoadBenchmark {
+
+    private static final int REQUEST_THREADS = 200;
+
+    @Param({"200", "2000", "10000"})
+    int requests;
+
+    @Param({"10"})
+    long latencyMillis;
+
+    private ExecutorService requestThreads;
+    private PlantService blockingService;
+    private ReactivePlantService reactiveService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long latency = latencyMillis;
+        InMemoryPlantRepository store = new InMemoryPlantRepository() {
+            @Override
+            public Optional<Plant> findByCode(String code) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findByCode(code);
+            }
+        };
+        store.insertAllIfAbsent(BenchmarkData.plants(1000));
+        blockingService = new PlantService(store, new SimpleUserService());
+
+        ReactivePlantRepository adapter = new BlockingPlantRepositoryAdapter(new InMemoryPlantRepository() {
+            {
+                insertAllIfAbsent(BenchmarkData.plants(1000));
+            }
+        }, Schedulers.immediate());
+        ReactivePlantRepository slowAsyncStore = new ReactivePlantRepository() {
+            @Override
+            public Mono<Boolean> insertIfAbsent(Plant plant) {
+                return adapter.insertIfAbsent(plant);
+            }
+
+            @Override
+            public Mono<Boolean> replaceIfVersion(Plant plant, long expectedVersion) {
+                return adapter.replaceIfVersion(plant, expectedVersion);
+            }
+
+            @Override
+            public Mono<Plant> findByCode(String code) {
+                return Mono.delay(Duration.ofMillis(latency)).then(adapter.findByCode(code));
+            }
+
+            @Override
+            public Flux<Plant> findByDescriptionContaining(String description) {
+                return adapter.findByDescriptionContaining(description);
+            }
+
+            @Override
+            public Flux<Plant> findAll() {
+                return adapter.findAll();
+            }
+
+            @Override
+            public Mono<Void> delete(Plant plant) {
+                return adapter.delete(plant);
+            }
+
+            @Override
+            public Flux<Plant> deleteAll(List<String> codes) {
+                return adapter.deleteAll(codes);
+            }
+        };
+        reactiveService = new ReactivePlantService(slowAsyncStore, new SimpleUserService());
+        requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requestThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public int blocking() throws Exception {
+        List<Future<Optional<Plant>>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            String code = String.valueOf(1 + i % 1000);
+            responses.add(requestThreads.submit(() -> blockingService.findPlantByCode(code)));
+        }
+        int found = 0;
+        for (Future<Optional<Plant>> response : responses) {
+            found += response.get().isPresent() ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long reactive() {
+        return Flux.range(0, requests)
+                .flatMap(i -> reactiveService.findPlantByCode(String.valueOf(1 + i % 1000)), requests)
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,62 @@
+package Projeto.java.question8;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carga mista contra o {@link ShardedPlantRepository} conforme cresce o número de shards
+ * em memória: 70% buscas por código, 20% atualizações, 5% inserções de códigos novos,
+ * 4% páginas de 50 plantas e 1% buscas por descrição, estas duas reunidas de todos os
+ * shards. Varie as threads com {@code -t} para ver a disputa entre escritas diminuir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@Threads(4)
+public class ShardedPlantRepositoryBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    int shards;
+
+    @Param({"100000"})
+    int size;
+
+    private ShardedPlantRepository repository;
+    private final AtomicInteger nextCode = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<PlantRepository> stores = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            stores.add(new InMemoryPlantRepository());
+        }
+        repository = new ShardedPlantRepository(stores, Runnable::run, 1024);
+        repository.insertAllIfAbsent(BenchmarkData.plants(size));
+        nextCode.set(size + 1);
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int operation = random.nextInt(100);
+        String code = String.valueOf(1 + random.nextInt(size));
+        if (operation < 70) {
+            return repository.findByCode(code);
+        } else if (operation < 90) {
+            return repository.save(new Plant(code, "m" + operation));
+        } else if (operation < 95) {
+            return repository.insertIfAbsent(new Plant(String.valueOf(nextCode.getAndIncrement()), "novo"));
+        } else if (operation < 99) {
+            return repository.findAllAfter(code, 50);
+        }
+        return repository.findByDescriptionContaining("abc");
+    }
+}
@@ -0,0 +1,116 @@
+package Projeto.java.question8;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de requisições simultâneas ajustado pela latência observada (algoritmo de gradiente).
+ * A cada janela de {@code windowSize} respostas, a latência média da janela é comparada com
+ * uma latência de referência: enquanto ela fica dentro da tolerância o limite cresce devagar,
+ * na raiz quadrada do limite atual, e, quando a latência sobe porque as requisições começaram
+ * a esperar por recursos, o limite encolhe na mesma proporção. As requisições acima do limite
+ * são recusadas na hora em vez de entrar na fila.
+ *
+ * <p>A referência acompanha a latência das janelas em que a demanda fica abaixo da metade do
+ * limite, quando não há fila; nas janelas com demanda no limite ela só pode descer, para que
+ * uma sobrecarga prolongada não passe a ser tomada como normal.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BASELINE_WEIGHT = 0.1;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private long windowLatencySum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private double baselineLatency;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int windowSize) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limites inválidos: mínimo " + minLimit + ", inicial " + initialLimit +
+                    ", máximo " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSize = windowSize;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Reserva uma vaga se houver menos requisições em andamento que o limite.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera a vaga e usa a latência da requisição no ajuste do limite.
+     */
+    void release(long latencyNanos) {
+        int before = inFlight.getAndDecrement();
+        sample(latencyNanos, before);
+    }
+
+    /**
+     * Libera a vaga sem usar a latência, para requisições que não representam o serviço
+     * (falhas, respostas assíncronas).
+     */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    synchronized void sample(long latencyNanos, int inFlightAtCompletion) {
+        windowLatencySum += latencyNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtCompletion);
+        if (++windowSamples < windowSize) {
+            return;
+        }
+
+        double current = limit;
+        double shortTermLatency = Math.max(1, (double) windowLatencySum / windowSamples);
+        boolean saturated = windowMaxInFlight >= current / 2;
+        if (baselineLatency == 0) {
+            baselineLatency = shortTermLatency;
+        } else if (!saturated) {
+            baselineLatency += (shortTermLatency - baselineLatency) * BASELINE_WEIGHT;
+        } else {
+            // Com demanda no limite, latência maior é fila: a referência só pode descer
+            baselineLatency = Math.min(baselineLatency, shortTermLatency);
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * baselineLatency / shortTermLatency));
+        double target = current * gradient + Math.sqrt(current);
+        // Sem demanda perto do limite, a latência não diz nada sobre um limite maior
+        if (!saturated) {
+            target = Math.min(target, current);
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+
+        windowLatencySum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+    }
+}
@@ -0,0 +1,60 @@
+package Projeto.java.question8;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+
+/**
+ * Expõe um {@link PlantRepository} bloqueante pelo contrato reativo, executando cada
+ * chamada no {@link Scheduler} informado para que ela não ocupe a thread do assinante.
+ * A listagem percorre {@link PlantRepository#streamAll()} sob demanda, sem copiar o
+ * repositório.
+ */
+public class BlockingPlantRepositoryAdapter implements ReactivePlantRepository {
+
+    private final PlantRepository delegate;
+    private final Scheduler scheduler;
+
+    public BlockingPlantRepositoryAdapter(PlantRepository delegate, Scheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<Boolean> insertIfAbsent(Plant plant) {
+        return Mono.fromCallable(() -> delegate.insertIfAbsent(plant)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Boolean> replaceIfVersion(Plant plant, long expectedVersion) {
+        return Mono.fromCallable(() -> delegate.replaceIfVersion(plant, expectedVersion)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Plant> findByCode(String code) {
+        return Mono.fromCallable(() -> delegate.findByCode(code).orElse(null)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Plant> findByDescriptionContaining(String description) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.findByDescriptionContaining(description)))
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Plant> findAll() {
+        return Flux.defer(() -> Flux.fromStream(delegate.streamAll())).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Void> delete(Plant plant) {
+        return Mono.<Void>fromRunnable(() -> delegate.delete(plant)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Plant> deleteAll(List<String> codes) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.deleteAll(codes))).subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,193 @@
+package Projeto.java.question8;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repositório de plantas com cache de leitura: decora outro repositório guardando
+ * o resultado de {@code findByCode} em um cache Caffeine limitado, cuja política
+ * de despejo (W-TinyLFU) considera a frequência de acesso e não só a recência.
+ *
+ * <p>Ausências também são guardadas, para que consultas repetidas por códigos
+ * inexistentes não cheguem ao repositório. Toda escrita invalida os códigos afetados
+ * depois de confirmada no repositório decorado; como a invalidação aguarda uma carga
+ * em andamento da mesma chave, um valor lido antes da escrita não fica no cache.
+ */
+public class CachingPlantRepository implements PlantRepository, Closeable {
+
+    private final PlantRepository delegate;
+    private final Cache<String, Optional<Plant>> plantsByCode;
+
+    /**
+     * @param maximumSize quantidade máxima de códigos mantidos no cache
+     * @param ttl tempo de vida de cada entrada; zero ou nulo para não expirar
+     */
+    public CachingPlantRepository(PlantRepository delegate, long maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats();
+        if (ttl != null && !ttl.isZero()) {
+            builder.expireAfterWrite(ttl);
+        }
+        this.plantsByCode = builder.build();
+    }
+
+    @Override
+    public Plant save(Plant plant) {
+        try {
+            return delegate.save(plant);
+        } finally {
+            invalidate(plant);
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(Plant plant) {
+        try {
+            return delegate.insertIfAbsent(plant);
+        } finally {
+            invalidate(plant);
+        }
+    }
+
+    @Override
+    public List<Plant> insertAllIfAbsent(List<Plant> plants) {
+        try {
+            return delegate.insertAllIfAbsent(plants);
+        } finally {
+            plants.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public boolean replaceIfVersion(Plant plant, long expectedVersion) {
+        try {
+            return delegate.replaceIfVersion(plant, expectedVersion);
+        } finally {
+            invalidate(plant);
+        }
+    }
+
+    @Override
+    public void delete(Plant plant) {
+        try {
+            delegate.delete(plant);
+        } finally {
+            invalidate(plant);
+        }
+    }
+
+    @Override
+    public List<Plant> deleteAll(List<String> codes) {
+        try {
+            return delegate.deleteAll(codes);
+        } finally {
+            for (String code : codes) {
+                if (code != null) {
+                    plantsByCode.invalidate(code);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        Optional<Plant> cached = code == null ? null : plantsByCode.getIfPresent(code);
+        return cached != null ? cached.isPresent() : delegate.existsByCode(code);
+    }
+
+    @Override
+    public Optional<Plant> findByCode(String code) {
+        if (code == null) {
+            return delegate.findByCode(null);
+        }
+        return plantsByCode.get(code, delegate::findByCode);
+    }
+
+    @Override
+    public List<Plant> findByDescriptionContaining(String description) {
+        return delegate.findByDescriptionContaining(description);
+    }
+
+    @Override
+    public List<Plant> findByDescriptionSimilar(String description, int maxDistance) {
+        return delegate.findByDescriptionSimilar(description, maxDistance);
+    }
+
+    @Override
+    public List<Plant> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Plant> findAllAfter(String afterCode, int limit) {
+        return delegate.findAllAfter(afterCode, limit);
+    }
+
+    @Override
+    public List<Plant> findByCodeRange(String fromCode, String toCode, int limit) {
+        return delegate.findByCodeRange(fromCode, toCode, limit);
+    }
+
+    @Override
+    public List<Plant> findByCodePrefix(String prefix, int limit) {
+        return delegate.findByCodePrefix(prefix, limit);
+    }
+
+    @Override
+    public Stream<Plant> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Plant> streamModifiedSince(LocalDateTime since) {
+        return delegate.streamModifiedSince(since);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long modificationCount() {
+        return delegate.modificationCount();
+    }
+
+    /**
+     * Estatísticas de acertos, faltas e despejos do cache.
+     */
+    public CacheStats stats() {
+        return plantsByCode.stats();
+    }
+
+    /**
+     * Fecha o repositório decorado, se ele exigir fechamento.
+     */
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    Cache<String, Optional<Plant>> cache() {
+        return plantsByCode;
+    }
+
+    private void invalidate(Plant plant) {
+        if (plant != null && plant.getCodigo() != null) {
+            plantsByCode.invalidate(plant.getCodigo());
+        }
+    }
+}
@@ -0,0 +1,526 @@
+package Projeto.java.question8;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Repositório de plantas persistente: decora outro repositório gravando cada
+ * {@code save}/{@code delete} em um {@link WriteAheadLog} antes de confirmar a operação.
+ *
+ * <p>Periodicamente um snapshot compactado do estado é gravado e os segmentos de log
+ * anteriores a ele são descartados, de modo que a recuperação carrega o snapshot mais
+ * recente e reaplica apenas o final do log. Como cada registro traz o estado completo
+ * da planta, o snapshot pode ser feito sem bloquear as escritas.
+ *
+ * <p>Se o log falhar, as alterações cujos registros não chegaram ao disco são desfeitas
+ * na memória antes de a exceção chegar ao chamador, e as escritas seguintes são recusadas
+ * antes de alterar o repositório decorado: a memória nunca mostra o que a recuperação
+ * não traria de volta.
+ */
+public class DurablePlantRepository implements PlantRepository, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DurablePlantRepository.class);
+
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".dat";
+
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+
+    private final PlantRepository delegate;
+    private final Path directory;
+    private final WriteAheadLog wal;
+    private final Object writeLock = new Object();
+    private final Object snapshotLock = new Object();
+    private final AtomicLong writesSinceSnapshot = new AtomicLong();
+    private final Deque<Undo> unsynced = new ArrayDeque<>();
+    private final ScheduledExecutorService snapshotScheduler;
+
+    public DurablePlantRepository(PlantRepository delegate, Path directory, boolean fsync, Duration snapshotInterval) {
+        this(delegate, directory, snapshotInterval, generation -> new WriteAheadLog(directory, generation, fsync));
+    }
+
+    DurablePlantRepository(PlantRepository delegate, Path directory, Duration snapshotInterval,
+                           LongFunction<WriteAheadLog> logFactory) {
+        this.delegate = delegate;
+        this.directory = directory;
+
+        long lastGeneration = recover();
+        this.wal = logFactory.apply(lastGeneration + 1);
+
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plant-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = snapshotInterval.toMillis();
+        snapshotScheduler.scheduleWithFixedDelay(this::snapshotIfDirty, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Plant save(Plant plant) {
+        Plant saved;
+        long lsn;
+        // Aplicar e registrar juntos mantém a ordem do log igual à ordem das alterações
+        synchronized (writeLock) {
+            wal.checkWritable();
+            Optional<Plant> previous = delegate.findByCode(plant.getCodigo());
+            saved = delegate.save(plant);
+            lsn = append(encodeSave(saved), () -> restore(saved.getCodigo(), previous));
+        }
+        sync(lsn);
+        writesSinceSnapshot.incrementAndGet();
+        return saved;
+    }
+
+    @Override
+    public boolean insertIfAbsent(Plant plant) {
+        long lsn;
+        synchronized (writeLock) {
+            wal.checkWritable();
+            if (!delegate.insertIfAbsent(plant)) {
+                return false;
+            }
+            lsn = append(encodeSave(plant), () -> delegate.delete(plant));
+        }
+        sync(lsn);
+        writesSinceSnapshot.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public List<Plant> insertAllIfAbsent(List<Plant> plants) {
+        List<Plant> inserted;
+        long lsn = 0;
+        synchronized (writeLock) {
+            wal.checkWritable();
+            inserted = delegate.insertAllIfAbsent(plants);
+            for (Plant plant : inserted) {
+                lsn = append(encodeSave(plant), () -> delegate.delete(plant));
+            }
+        }
+        // Um único fsync cobre todo o lote
+        sync(lsn);
+        writesSinceSnapshot.addAndGet(inserted.size());
+        return inserted;
+    }
+
+    @Override
+    public boolean replaceIfVersion(Plant plant, long expectedVersion) {
+        long lsn;
+        synchronized (writeLock) {
+            wal.checkWritable();
+            Optional<Plant> previous = delegate.findByCode(plant.getCodigo());
+            if (!delegate.replaceIfVersion(plant, expectedVersion)) {
+                return false;
+            }
+            lsn = append(encodeSave(plant), () -> restore(plant.getCodigo(), previous));
+        }
+        sync(lsn);
+        writesSinceSnapshot.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public void delete(Plant plant) {
+        if (plant == null || plant.getCodigo() == null) {
+            return;
+        }
+        long lsn;
+        synchronized (writeLock) {
+            wal.checkWritable();
+            Optional<Plant> previous = delegate.findByCode(plant.getCodigo());
+            delegate.delete(plant);
+            lsn = append(encodeDelete(plant.getCodigo()), () -> restore(plant.getCodigo(), previous));
+        }
+        sync(lsn);
+        writesSinceSnapshot.incrementAndGet();
+    }
+
+    @Override
+    public List<Plant> deleteAll(List<String> codes) {
+        List<Plant> removed;
+        long lsn = 0;
+        synchronized (writeLock) {
+            wal.checkWritable();
+            removed = delegate.deleteAll(codes);
+            for (Plant plant : removed) {
+                lsn = append(encodeDelete(plant.getCodigo()), () -> delegate.save(plant));
+            }
+        }
+        // Um único fsync cobre todo o lote
+        sync(lsn);
+        writesSinceSnapshot.addAndGet(removed.size());
+        return removed;
+    }
+
+    // Deve ser chamado com writeLock, depois de aplicar a alteração que undo desfaz
+    private long append(byte[] record, Runnable undo) {
+        // Desfazer o que já está em disco nunca é necessário: descarta as entradas sincronizadas
+        long durable = wal.durableLsn();
+        while (!unsynced.isEmpty() && unsynced.peekFirst().lsn <= durable) {
+            unsynced.pollFirst();
+        }
+        long lsn;
+        try {
+            lsn = wal.append(record);
+        } catch (RuntimeException e) {
+            undo.run();
+            rollbackUnsynced();
+            throw e;
+        }
+        unsynced.addLast(new Undo(lsn, undo));
+        return lsn;
+    }
+
+    private void sync(long lsn) {
+        try {
+            wal.sync(lsn);
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                rollbackUnsynced();
+            }
+            throw e;
+        }
+    }
+
+    // O log falhou: desfaz, da mais recente para a mais antiga, as alterações que não chegaram ao disco
+    private void rollbackUnsynced() {
+        long durable = wal.durableLsn();
+        while (!unsynced.isEmpty()) {
+            Undo undo = unsynced.pollLast();
+            if (undo.lsn > durable) {
+                undo.action.run();
+            }
+        }
+    }
+
+    private void restore(String code, Optional<Plant> previous) {
+        if (previous.isPresent()) {
+            delegate.save(previous.get());
+        } else {
+            delegate.delete(new Plant(code, null));
+        }
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        return delegate.existsByCode(code);
+    }
+
+    @Override
+    public Optional<Plant> findByCode(String code) {
+        return delegate.findByCode(code);
+    }
+
+    @Override
+    public List<Plant> findByDescriptionContaining(String description) {
+        return delegate.findByDescriptionContaining(description);
+    }
+
+    @Override
+    public List<Plant> findByDescriptionSimilar(String description, int maxDistance) {
+        return delegate.findByDescriptionSimilar(description, maxDistance);
+    }
+
+    @Override
+    public List<Plant> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Plant> findAllAfter(String afterCode, int limit) {
+        return delegate.findAllAfter(afterCode, limit);
+    }
+
+    @Override
+    public List<Plant> findByCodeRange(String fromCode, String toCode, int limit) {
+        return delegate.findByCodeRange(fromCode, toCode, limit);
+    }
+
+    @Override
+    public List<Plant> findByCodePrefix(String prefix, int limit) {
+        return delegate.findByCodePrefix(prefix, limit);
+    }
+
+    @Override
+    public Stream<Plant> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Plant> streamModifiedSince(LocalDateTime since) {
+        return delegate.streamModifiedSince(since);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long modificationCount() {
+        return delegate.modificationCount();
+    }
+
+    /**
+     * Grava um snapshot do estado atual e descarta os segmentos de log que ele cobre.
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            long writesBefore = writesSinceSnapshot.get();
+            long generation = wal.rotate();
+            Path snapshot = snapshotPath(generation);
+            Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Stream<Plant> plants = delegate.streamAll()) {
+                Iterator<Plant> iterator = plants.iterator();
+                while (iterator.hasNext()) {
+                    WriteAheadLog.writeRecord(channel, encodeSave(iterator.next()));
+                }
+                channel.force(true);
+            } catch (IOException e) {
+                throw new PlantStorageException("Falha ao gravar o snapshot de plantas", e);
+            }
+
+            // Com o log em falha, o estado lido pode ter alterações que estão sendo desfeitas
+            wal.checkWritable();
+            try {
+                Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+                // A renomeação precisa estar em disco antes de apagar os segmentos que o snapshot substitui
+                syncDirectory();
+                deleteFilesBefore(generation);
+            } catch (IOException e) {
+                throw new PlantStorageException("Falha ao publicar o snapshot de plantas", e);
+            }
+            writesSinceSnapshot.addAndGet(-writesBefore);
+        }
+    }
+
+    @Override
+    public void close() {
+        snapshotScheduler.shutdownNow();
+        wal.close();
+    }
+
+    private void snapshotIfDirty() {
+        try {
+            if (writesSinceSnapshot.get() > 0) {
+                snapshot();
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao gerar snapshot do repositório de plantas", e);
+        }
+    }
+
+    // ---- Recuperação ----
+
+    private long recover() {
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+
+            long snapshotGeneration = latestGeneration(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            long[] snapshotRecords = new long[1];
+            if (snapshotGeneration > 0) {
+                WriteAheadLog.readRecords(snapshotPath(snapshotGeneration), payload -> {
+                    apply(payload);
+                    snapshotRecords[0]++;
+                });
+            }
+
+            long lastGeneration = snapshotGeneration;
+            long[] logRecords = new long[1];
+            for (long generation : generations(WriteAheadLog.SEGMENT_PREFIX, WriteAheadLog.SEGMENT_SUFFIX)) {
+                if (generation < snapshotGeneration) {
+                    continue;
+                }
+                Path segment = WriteAheadLog.segmentPath(directory, generation);
+                long validLength = WriteAheadLog.readRecords(segment, payload -> {
+                    apply(payload);
+                    logRecords[0]++;
+                });
+                truncateTornTail(segment, validLength);
+                lastGeneration = Math.max(lastGeneration, generation);
+            }
+
+            log.info("Repositório de plantas recuperado em {} ms: {} registros do snapshot, {} do log",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), snapshotRecords[0], logRecords[0]);
+            return lastGeneration;
+        } catch (IOException e) {
+            throw new PlantStorageException("Falha ao recuperar o repositório de plantas", e);
+        }
+    }
+
+    private void apply(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte type = in.readByte();
+            if (type == SAVE) {
+                delegate.save(decodePlant(in));
+            } else if (type == DELETE) {
+                delegate.delete(new Plant(in.readUTF(), null));
+            } else {
+                throw new PlantStorageException("Tipo de registro desconhecido no log de plantas: " + type);
+            }
+        } catch (IOException e) {
+            throw new PlantStorageException("Registro inválido no log de plantas", e);
+        }
+    }
+
+    private void truncateTornTail(Path segment, long validLength) throws IOException {
+        if (Files.size(segment) > validLength) {
+            log.warn("Descartando final incompleto do log {} a partir do byte {}", segment.getFileName(), validLength);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Sistemas como o Windows não abrem diretórios; lá a renomeação já é durável
+            log.debug("Diretório {} não pode ser sincronizado", directory, e);
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private void deleteFilesBefore(long generation) throws IOException {
+        for (long old : generations(WriteAheadLog.SEGMENT_PREFIX, WriteAheadLog.SEGMENT_SUFFIX)) {
+            if (old < generation) {
+                Files.deleteIfExists(WriteAheadLog.segmentPath(directory, old));
+            }
+        }
+        for (long old : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (old < generation) {
+                Files.deleteIfExists(snapshotPath(old));
+            }
+        }
+    }
+
+    private long latestGeneration(String prefix, String suffix) throws IOException {
+        List<Long> generations = generations(prefix, suffix);
+        return generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                generations.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private Path snapshotPath(long generation) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, generation, SNAPSHOT_SUFFIX));
+    }
+
+    // ---- Codificação dos registros ----
+
+    private static byte[] encodeSave(Plant plant) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(SAVE);
+            out.writeLong(plant.getId());
+            out.writeUTF(plant.getCodigo());
+            writeNullableString(out, plant.getDescricao());
+            writeNullableString(out, plant.getCriadoPor());
+            writeDateTime(out, plant.getDataCriacao());
+            writeNullableString(out, plant.getUltimaModificacaoPor());
+            writeDateTime(out, plant.getDataUltimaModificacao());
+            out.writeLong(plant.getVersao());
+        } catch (IOException e) {
+            throw new PlantStorageException("Falha ao codificar registro de planta", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeDelete(String code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(DELETE);
+            out.writeUTF(code);
+        } catch (IOException e) {
+            throw new PlantStorageException("Falha ao codificar registro de planta", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Plant decodePlant(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        Plant plant = new Plant(in.readUTF(), readNullableString(in));
+        plant.setId(id);
+        plant.setCriadoPor(readNullableString(in));
+        plant.setDataCriacao(readDateTime(in));
+        plant.setUltimaModificacaoPor(readNullableString(in));
+        plant.setDataUltimaModificacao(readDateTime(in));
+        plant.setVersao(in.readLong());
+        return plant;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toLocalDate().toEpochDay());
+            out.writeLong(value.toLocalTime().toNanoOfDay());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochDay = in.readLong();
+        long nanoOfDay = in.readLong();
+        return LocalDateTime.of(LocalDate.ofEpochDay(epochDay), LocalTime.ofNanoOfDay(nanoOfDay));
+    }
+
+    private static final class Undo {
+
+        final long lsn;
+        final Runnable action;
+
+        Undo(long lsn, Runnable action) {
+            this.lsn = lsn;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package Projeto.java.question8;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Distância de edição (Levenshtein) de uma consulta fixa até outros textos, sem distinção de
+ * maiúsculas/minúsculas. Consultas de até 64 caracteres, caso das descrições de plantas,
+ * usam o algoritmo bit-paralelo de Myers: cada caractere do texto custa poucas operações
+ * sobre um único {@code long}, sem montar a matriz de programação dinâmica.
+ */
+final class EditDistance {
+
+    private static final int WORD_SIZE = Long.SIZE;
+    private static final int ASCII = 128;
+
+    private final char[] query;
+    private final long[] asciiMasks;
+    private final char[] otherChars;
+    private final long[] otherMasks;
+    private final int otherCount;
+
+    EditDistance(String query) {
+        this.query = normalize(query).toCharArray();
+        if (this.query.length > WORD_SIZE) {
+            asciiMasks = null;
+            otherChars = null;
+            otherMasks = null;
+            otherCount = 0;
+            return;
+        }
+
+        // Máscara de posições de cada caractere da consulta
+        asciiMasks = new long[ASCII];
+        otherChars = new char[this.query.length];
+        otherMasks = new long[this.query.length];
+        int others = 0;
+        for (int i = 0; i < this.query.length; i++) {
+            char c = this.query[i];
+            if (c < ASCII) {
+                asciiMasks[c] |= 1L << i;
+                continue;
+            }
+            int index = indexOf(otherChars, others, c);
+            if (index < 0) {
+                index = others++;
+                otherChars[index] = c;
+            }
+            otherMasks[index] |= 1L << i;
+        }
+        otherCount = others;
+    }
+
+    /**
+     * Retorna as plantas cuja descrição está a no máximo {@code maxDistance} edições da
+     * consulta, das mais próximas para as mais distantes e, no empate, na ordem dos códigos.
+     */
+    static List<Plant> rank(Stream<Plant> plants, String query, int maxDistance) {
+        EditDistance distance = new EditDistance(query);
+        List<Match<Plant>> matches = new ArrayList<>();
+        plants.forEach(plant -> {
+            String description = plant.getDescricao();
+            if (description == null || Math.abs(description.length() - distance.queryLength()) > maxDistance) {
+                return;
+            }
+            int d = distance.to(description);
+            if (d <= maxDistance) {
+                matches.add(new Match<>(plant, plant.getCodigo(), d));
+            }
+        });
+        return Match.ranked(matches);
+    }
+
+    int queryLength() {
+        return query.length;
+    }
+
+    /**
+     * Distância de edição da consulta até o texto.
+     */
+    int to(CharSequence text) {
+        if (asciiMasks == null) {
+            return dynamicProgramming(text);
+        }
+        int m = query.length;
+        if (m == 0) {
+            return text.length();
+        }
+
+        long vp = m == WORD_SIZE ? -1L : (1L << m) - 1;
+        long vn = 0;
+        long last = 1L << (m - 1);
+        int score = m;
+        for (int j = 0; j < text.length(); j++) {
+            long eq = mask(Character.toLowerCase(text.charAt(j)));
+            long xv = eq | vn;
+            long xh = (((eq & vp) + vp) ^ vp) | eq;
+            long hp = vn | ~(xh | vp);
+            long hn = vp & xh;
+            if ((hp & last) != 0) {
+                score++;
+            } else if ((hn & last) != 0) {
+                score--;
+            }
+            hp = (hp << 1) | 1;
+            hn <<= 1;
+            vp = hn | ~(xv | hp);
+            vn = hp & xv;
+        }
+        return score;
+    }
+
+    private long mask(char c) {
+        if (c < ASCII) {
+            return asciiMasks[c];
+        }
+        int index = indexOf(otherChars, otherCount, c);
+        return index < 0 ? 0 : otherMasks[index];
+    }
+
+    // Consultas maiores que uma palavra: duas linhas da matriz clássica
+    private int dynamicProgramming(CharSequence text) {
+        int[] previous = new int[query.length + 1];
+        int[] current = new int[query.length + 1];
+        for (int i = 0; i <= query.length; i++) {
+            previous[i] = i;
+        }
+        for (int j = 1; j <= text.length(); j++) {
+            char c = Character.toLowerCase(text.charAt(j - 1));
+            current[0] = j;
+            for (int i = 1; i <= query.length; i++) {
+                int substitution = previous[i - 1] + (query[i - 1] == c ? 0 : 1);
+                current[i] = Math.min(substitution, Math.min(previous[i], current[i - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[query.length];
+    }
+
+    private static int indexOf(char[] chars, int count, char c) {
+        for (int i = 0; i < count; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Item encontrado a uma certa distância da consulta, ordenado pela distância e pelo código.
+     */
+    static final class Match<T> {
+
+        private static final Comparator<Match<?>> ORDER = Comparator.<Match<?>>comparingInt(match -> match.distance)
+                .thenComparing(match -> match.code, PlantCodes.NUMERIC_ORDER);
+
+        final T item;
+        final String code;
+        final int distance;
+
+        Match(T item, String code, int distance) {
+            this.item = item;
+            this.code = code;
+            this.distance = distance;
+        }
+
+        static <T> List<T> ranked(List<Match<T>> matches) {
+            matches.sort(ORDER);
+            List<T> result = new ArrayList<>(matches.size());
+            for (Match<T> match : matches) {
+                result.add(match.item);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package Projeto.java.question8;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice das descrições das plantas para buscas tolerantes a erros de digitação.
+ * Cada descrição distinta ocupa uma posição de arranjos paralelos com seu tamanho e uma
+ * assinatura de 64 bits dos caracteres que contém. Como as descrições são curtas, a
+ * assinatura é seletiva: cada edição tira no máximo um caractere de um lado e põe no máximo
+ * um do outro, então as posições cujo tamanho ou assinatura difere da consulta em mais de
+ * {@code k} são descartadas sem calcular a distância, que só é calculada para as restantes.
+ */
+public class FuzzyDescriptionIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int FREE = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slotsByDescription = new HashMap<>();
+    private final Map<String, String> indexedDescriptions = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final List<Set<String>> codes = new ArrayList<>();
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private long[] signatures = new long[INITIAL_CAPACITY];
+    private int slotCount;
+
+    /**
+     * Indexa (ou reindexa) a descrição associada ao código.
+     */
+    public void index(String code, String description) {
+        String normalized = description == null ? null : EditDistance.normalize(description);
+
+        lock.writeLock().lock();
+        try {
+            String previous = normalized == null
+                    ? indexedDescriptions.remove(code)
+                    : indexedDescriptions.put(code, normalized);
+
+            if (Objects.equals(previous, normalized)) {
+                return;
+            }
+            if (previous != null) {
+                removeCode(code, previous);
+            }
+            if (normalized != null) {
+                addCode(code, normalized);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove o código do índice.
+     */
+    public void remove(String code) {
+        lock.writeLock().lock();
+        try {
+            String previous = indexedDescriptions.remove(code);
+            if (previous != null) {
+                removeCode(code, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna os códigos cujas descrições estão a no máximo {@code maxDistance} edições do
+     * texto informado, das mais próximas para as mais distantes e, no empate, na ordem dos códigos.
+     */
+    public List<String> search(String query, int maxDistance) {
+        if (query == null || query.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        EditDistance distance = new EditDistance(query);
+        String normalized = EditDistance.normalize(query);
+        int queryLength = normalized.length();
+        long querySignature = signature(normalized);
+        List<EditDistance.Match<String>> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                int length = lengths[slot];
+                if (length == FREE || Math.abs(length - queryLength) > maxDistance) {
+                    continue;
+                }
+                long signature = signatures[slot];
+                if (Long.bitCount(querySignature & ~signature) > maxDistance
+                        || Long.bitCount(signature & ~querySignature) > maxDistance) {
+                    continue;
+                }
+                int d = distance.to(descriptions[slot]);
+                if (d <= maxDistance) {
+                    for (String code : codes.get(slot)) {
+                        matches.add(new EditDistance.Match<>(code, code, d));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return EditDistance.Match.ranked(matches);
+    }
+
+    private void addCode(String code, String description) {
+        Integer slot = slotsByDescription.get(description);
+        if (slot == null) {
+            slot = allocate(description);
+            slotsByDescription.put(description, slot);
+        }
+        codes.get(slot).add(code);
+    }
+
+    private void removeCode(String code, String description) {
+        Integer slot = slotsByDescription.get(description);
+        if (slot == null) {
+            return;
+        }
+        Set<String> slotCodes = codes.get(slot);
+        if (slotCodes.remove(code) && slotCodes.isEmpty()) {
+            slotsByDescription.remove(description);
+            descriptions[slot] = null;
+            lengths[slot] = FREE;
+            signatures[slot] = 0;
+            freeSlots.push(slot);
+        }
+    }
+
+    private int allocate(String description) {
+        Integer free = freeSlots.poll();
+        int slot;
+        if (free != null) {
+            slot = free;
+        } else {
+            if (slotCount == descriptions.length) {
+                int capacity = descriptions.length * 2;
+                descriptions = Arrays.copyOf(descriptions, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                signatures = Arrays.copyOf(signatures, capacity);
+            }
+            slot = slotCount++;
+            codes.add(new HashSet<>());
+        }
+        descriptions[slot] = description;
+        lengths[slot] = description.length();
+        signatures[slot] = signature(description);
+        return slot;
+    }
+
+    // Um bit por caractere presente; caracteres que colidem no mesmo bit só tornam o filtro menos seletivo
+    private static long signature(String normalized) {
+        long signature = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            signature |= 1L << ((normalized.charAt(i) * 0x9E3779B1) >>> 26);
+        }
+        return signature;
+    }
+}
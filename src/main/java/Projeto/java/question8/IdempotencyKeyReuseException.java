@@ -0,0 +1,11 @@
+package Projeto.java.question8;
+
+/**
+ * Exceção lançada quando uma chave de idempotência já usada chega com outra requisição.
+ */
+public class IdempotencyKeyReuseException extends PlantException {
+
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
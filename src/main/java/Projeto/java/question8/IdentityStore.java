@@ -0,0 +1,24 @@
+package Projeto.java.question8;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Origem dos usuários e papéis, consultada pelo {@link IdentityUserService}. As
+ * implementações podem ser locais ou clientes de um provedor de identidade remoto;
+ * o serviço guarda os resultados em cache, então cada consulta pode ser lenta.
+ */
+public interface IdentityStore {
+
+    /**
+     * Resolve o usuário dono do token, ou vazio se o token não for reconhecido.
+     */
+    Optional<UserIdentity> findByToken(String token);
+
+    /**
+     * Registra quem deve ser avisado, com o token, quando um token for revogado. Sem suporte
+     * a avisos, o registro é ignorado e a revogação só vale quando o cache consulta de novo.
+     */
+    default void addRevocationListener(Consumer<String> listener) {
+    }
+}
@@ -0,0 +1,179 @@
+package Projeto.java.question8;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Serviço de usuários que identifica o usuário da requisição pelo token do cabeçalho
+ * {@code Authorization: Bearer <token>} e o resolve em um {@link IdentityStore}.
+ *
+ * <p>As consultas ao repositório de identidades ficam fora do caminho das escritas: cada
+ * token reconhecido fica em cache por {@code ttl}, e depois de {@code refreshAfter} a próxima
+ * leitura dispara uma nova consulta em segundo plano enquanto continua recebendo o valor
+ * anterior. Só a primeira requisição de um token, ou uma após {@code ttl} sem uso, espera a
+ * consulta. Dentro da mesma requisição o usuário é resolvido uma única vez.
+ *
+ * <p>Tokens não reconhecidos ficam em cache só por {@code negativeTtl}, bem menor: o filtro de
+ * admissão autentica toda requisição, e tokens inventados não devem ocupar o cache no lugar
+ * dos usuários reais. Um token revogado no repositório é descartado do cache na hora, pelo
+ * aviso de {@link IdentityStore#addRevocationListener}, em vez de esperar a renovação.
+ *
+ * <p>Requisições sem token, com token desconhecido ou fora de uma requisição HTTP são
+ * atribuídas ao usuário anônimo, sem papéis.
+ */
+public class IdentityUserService implements UserService {
+
+    static final String BEARER_PREFIX = "Bearer ";
+    private static final String REQUEST_ATTRIBUTE = IdentityUserService.class.getName() + ".identity";
+
+    private final LoadingCache<String, Optional<UserIdentity>> identitiesByToken;
+    private final UserIdentity anonymous;
+
+    /**
+     * @param ttl tempo máximo em que um token reconhecido é usado sem nova consulta
+     * @param negativeTtl tempo máximo em que um token não reconhecido é usado sem nova consulta
+     * @param refreshAfter idade a partir da qual a próxima leitura renova o token em segundo plano;
+     *                     deve ser menor que {@code ttl}
+     * @param maximumSize quantidade máxima de tokens em cache
+     * @param anonymousUsername usuário atribuído às requisições não identificadas
+     */
+    public IdentityUserService(IdentityStore store, Duration ttl, Duration negativeTtl, Duration refreshAfter,
+                               long maximumSize, String anonymousUsername) {
+        this(store, ttl, negativeTtl, refreshAfter, maximumSize, anonymousUsername, ForkJoinPool.commonPool(),
+                Ticker.systemTicker());
+    }
+
+    IdentityUserService(IdentityStore store, Duration ttl, Duration negativeTtl, Duration refreshAfter,
+                        long maximumSize, String anonymousUsername, Executor refreshExecutor, Ticker ticker) {
+        if (refreshAfter.compareTo(ttl) >= 0) {
+            throw new IllegalArgumentException("A renovação (" + refreshAfter + ") deve ocorrer antes da expiração (" + ttl + ")");
+        }
+        if (negativeTtl.isNegative() || negativeTtl.compareTo(ttl) > 0) {
+            throw new IllegalArgumentException("A expiração de tokens não reconhecidos (" + negativeTtl
+                    + ") deve estar entre zero e a expiração (" + ttl + ")");
+        }
+        this.identitiesByToken = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireByResult(ttl.toNanos(), negativeTtl.toNanos()))
+                .refreshAfterWrite(refreshAfter)
+                .executor(refreshExecutor)
+                .ticker(ticker)
+                .recordStats()
+                .build(store::findByToken);
+        this.anonymous = new UserIdentity(anonymousUsername, Set.of());
+        store.addRevocationListener(identitiesByToken::invalidate);
+    }
+
+    @Override
+    public String getCurrentUsername() {
+        return currentIdentity().getUsername();
+    }
+
+    @Override
+    public boolean isCurrentUserAdmin() {
+        return currentIdentity().isAdmin();
+    }
+
+    /**
+     * Usuário da requisição atual, ou o anônimo.
+     */
+    public UserIdentity currentIdentity() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return anonymous;
+        }
+        Object resolved = request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved != null) {
+            return (UserIdentity) resolved;
+        }
+        String token = bearerToken(request);
+        UserIdentity identity = token == null ? anonymous : resolve(token);
+        request.setAttribute(REQUEST_ATTRIBUTE, identity, RequestAttributes.SCOPE_REQUEST);
+        return identity;
+    }
+
+    /**
+     * Usuário reconhecido pelo valor do cabeçalho {@code Authorization}, ou {@code null} se o
+     * cabeçalho faltar ou o token não for reconhecido.
+     */
+    public UserIdentity authenticate(String authorization) {
+        String token = bearerToken(authorization);
+        return token == null ? null : identitiesByToken.get(token).orElse(null);
+    }
+
+    /**
+     * Resolve o token pelo cache, ou o anônimo se não for reconhecido.
+     */
+    public UserIdentity resolve(String token) {
+        return identitiesByToken.get(token).orElse(anonymous);
+    }
+
+    /**
+     * Descarta o token do cache, para que uma revogação não avisada pelo repositório valha na
+     * próxima requisição.
+     */
+    public void invalidate(String token) {
+        identitiesByToken.invalidate(token);
+    }
+
+    /**
+     * Cache de tokens, para métricas.
+     */
+    LoadingCache<String, Optional<UserIdentity>> cache() {
+        return identitiesByToken;
+    }
+
+    // Prazo contado da carga ou da renovação, conforme o token tenha sido reconhecido ou não
+    private static final class ExpireByResult implements Expiry<String, Optional<UserIdentity>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        ExpireByResult(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String token, Optional<UserIdentity> identity, long currentTime) {
+            return identity.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Optional<UserIdentity> identity, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(token, identity, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, Optional<UserIdentity> identity, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static String bearerToken(RequestAttributes request) {
+        if (!(request instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return bearerToken(((ServletRequestAttributes) request).getRequest().getHeader("Authorization"));
+    }
+
+    private static String bearerToken(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+}
@@ -0,0 +1,79 @@
+package Projeto.java.question8;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Repositório de identidades em memória, para desenvolvimento e testes, opcionalmente
+ * carregado de um arquivo de propriedades no formato {@code token=usuario:PAPEL1,PAPEL2}.
+ */
+public class InMemoryIdentityStore implements IdentityStore {
+
+    private final Map<String, UserIdentity> usersByToken = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> revocationListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Carrega os usuários do arquivo, um por linha no formato {@code token=usuario:PAPEL1,PAPEL2}
+     * (papéis opcionais).
+     */
+    public static InMemoryIdentityStore load(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new PlantStorageException("Falha ao ler o arquivo de usuários " + file, e);
+        }
+        InMemoryIdentityStore store = new InMemoryIdentityStore();
+        for (String token : properties.stringPropertyNames()) {
+            String entry = properties.getProperty(token).trim();
+            int separator = entry.indexOf(':');
+            String username = separator < 0 ? entry : entry.substring(0, separator).trim();
+            if (username.isEmpty()) {
+                throw new IllegalStateException("Usuário vazio para um token em " + file);
+            }
+            Set<String> roles = new HashSet<>();
+            if (separator >= 0) {
+                for (String role : entry.substring(separator + 1).split(",")) {
+                    if (!role.isBlank()) {
+                        roles.add(role.trim());
+                    }
+                }
+            }
+            store.put(token, new UserIdentity(username, roles));
+        }
+        return store;
+    }
+
+    /**
+     * Associa o token ao usuário, substituindo uma associação anterior.
+     */
+    public void put(String token, UserIdentity identity) {
+        usersByToken.put(token, identity);
+    }
+
+    /**
+     * Revoga o token e avisa os interessados.
+     */
+    public void remove(String token) {
+        if (usersByToken.remove(token) != null) {
+            revocationListeners.forEach(listener -> listener.accept(token));
+        }
+    }
+
+    @Override
+    public void addRevocationListener(Consumer<String> listener) {
+        revocationListeners.add(listener);
+    }
+
+    @Override
+    public Optional<UserIdentity> findByToken(String token) {
+        return Optional.ofNullable(usersByToken.get(token));
+    }
+}
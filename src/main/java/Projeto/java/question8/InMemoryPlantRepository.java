@@ -1,31 +1,88 @@
 package Projeto.java.question8;
 
-import org.springframework.stereotype.Repository;
-
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementação do repositório de plantas.
  */
-@Repository
 public class InMemoryPlantRepository implements PlantRepository {
     
     private final Map<String, Plant> plantsByCode = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, Plant> plantsInCodeOrder =
+            new ConcurrentSkipListMap<>(PlantCodes.NUMERIC_ORDER);
     private final AtomicLong idSequence = new AtomicLong(1);
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final TrigramIndex descriptionIndex = new TrigramIndex();
+    private final FuzzyDescriptionIndex fuzzyDescriptionIndex = new FuzzyDescriptionIndex();
     
     @Override
     public Plant save(Plant plant) {
-        if (plant.getId() == null) {
-            plant.setId(idSequence.getAndIncrement());
-        }
+        assignId(plant);
         
-        plantsByCode.put(plant.getCodigo(), plant);
+        plantsByCode.compute(plant.getCodigo(), (code, current) -> {
+            if (plant.getVersao() == null) {
+                plant.setVersao(current == null ? 1L : current.getVersao() + 1);
+            }
+            index(plant);
+            return plant;
+        });
+        modificationCount.incrementAndGet();
         return plant;
     }
     
+    @Override
+    public boolean insertIfAbsent(Plant plant) {
+        boolean[] inserted = {false};
+        plantsByCode.computeIfAbsent(plant.getCodigo(), code -> {
+            assignId(plant);
+            plant.setVersao(1L);
+            index(plant);
+            inserted[0] = true;
+            return plant;
+        });
+        if (inserted[0]) {
+            modificationCount.incrementAndGet();
+        }
+        return inserted[0];
+    }
+    
+    @Override
+    public List<Plant> insertAllIfAbsent(List<Plant> plants) {
+        List<Plant> inserted = new ArrayList<>(plants.size());
+        for (Plant plant : plants) {
+            if (insertIfAbsent(plant)) {
+                inserted.add(plant);
+            }
+        }
+        return inserted;
+    }
+    
+    @Override
+    public boolean replaceIfVersion(Plant plant, long expectedVersion) {
+        boolean[] replaced = {false};
+        plantsByCode.computeIfPresent(plant.getCodigo(), (code, current) -> {
+            if (current.getVersao() != expectedVersion
+                    || (plant.getId() != null && !plant.getId().equals(current.getId()))) {
+                return current;
+            }
+            plant.setId(current.getId());
+            plant.setVersao(expectedVersion + 1);
+            index(plant);
+            replaced[0] = true;
+            return plant;
+        });
+        if (replaced[0]) {
+            modificationCount.incrementAndGet();
+        }
+        return replaced[0];
+    }
+    
     @Override
     public boolean existsByCode(String code) {
         return plantsByCode.containsKey(code);
@@ -42,21 +99,126 @@ public class InMemoryPlantRepository implements PlantRepository {
             return Collections.emptyList();
         }
         
-        return plantsByCode.values().stream()
-                .filter(plant -> plant.getDescricao() != null && 
-                        plant.getDescricao().toLowerCase().contains(description.toLowerCase()))
+        return descriptionIndex.search(description).stream()
+                .map(plantsByCode::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Plant> findByDescriptionSimilar(String description, int maxDistance) {
+        if (description == null || description.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        return fuzzyDescriptionIndex.search(description, maxDistance).stream()
+                .map(plantsByCode::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
     
     @Override
     public List<Plant> findAll() {
-        return new ArrayList<>(plantsByCode.values());
+        return new ArrayList<>(plantsInCodeOrder.values());
+    }
+    
+    @Override
+    public List<Plant> findAllAfter(String afterCode, int limit) {
+        Map<String, Plant> tail = afterCode == null
+                ? plantsInCodeOrder
+                : plantsInCodeOrder.tailMap(afterCode, false);
+        
+        return firstValues(tail, limit);
+    }
+    
+    @Override
+    public List<Plant> findByCodeRange(String fromCode, String toCode, int limit) {
+        if (PlantCodes.NUMERIC_ORDER.compare(fromCode, toCode) > 0) {
+            return Collections.emptyList();
+        }
+        
+        return firstValues(plantsInCodeOrder.subMap(fromCode, true, toCode, true), limit);
+    }
+    
+    @Override
+    public Stream<Plant> streamAll() {
+        return plantsInCodeOrder.values().stream();
+    }
+    
+    // Percorre apenas as entradas devolvidas, sem contar ou copiar o restante do intervalo
+    private List<Plant> firstValues(Map<String, Plant> range, int limit) {
+        List<Plant> result = new ArrayList<>(Math.min(limit, plantsByCode.size()));
+        for (Plant plant : range.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(plant);
+        }
+        return result;
     }
     
     @Override
     public void delete(Plant plant) {
         if (plant != null && plant.getCodigo() != null) {
-            plantsByCode.remove(plant.getCodigo());
+            boolean[] removed = {false};
+            plantsByCode.computeIfPresent(plant.getCodigo(), (code, current) -> {
+                plantsInCodeOrder.remove(code);
+                descriptionIndex.remove(code);
+                fuzzyDescriptionIndex.remove(code);
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                modificationCount.incrementAndGet();
+            }
+        }
+    }
+    
+    @Override
+    public List<Plant> deleteAll(List<String> codes) {
+        List<Plant> removed = new ArrayList<>();
+        for (String code : codes) {
+            if (code == null) {
+                continue;
+            }
+            plantsByCode.computeIfPresent(code, (key, current) -> {
+                plantsInCodeOrder.remove(key);
+                descriptionIndex.remove(key);
+                fuzzyDescriptionIndex.remove(key);
+                removed.add(current);
+                return null;
+            });
         }
+        // Um único avanço do contador para todo o lote
+        if (!removed.isEmpty()) {
+            modificationCount.incrementAndGet();
+        }
+        return removed;
+    }
+    
+    @Override
+    public long count() {
+        return plantsByCode.size();
+    }
+    
+    @Override
+    public long modificationCount() {
+        return modificationCount.get();
+    }
+    
+    private void assignId(Plant plant) {
+        if (plant.getId() == null) {
+            plant.setId(idSequence.getAndIncrement());
+        } else {
+            // Plantas restauradas trazem seu id; a sequência nunca volta a emiti-lo
+            idSequence.accumulateAndGet(plant.getId() + 1, Math::max);
+        }
+    }
+    
+    // Executado dentro do compute do mapa principal, o que serializa as alterações de cada código
+    private void index(Plant plant) {
+        plantsInCodeOrder.put(plant.getCodigo(), plant);
+        descriptionIndex.index(plant.getCodigo(), plant.getDescricao());
+        fuzzyDescriptionIndex.index(plant.getCodigo(), plant.getDescricao());
     }
 }
\ No newline at end of file
@@ -0,0 +1,455 @@
+package Projeto.java.question8;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Repositório de plantas em banco de dados relacional, acessado por um {@link DataSource}
+ * com pool de conexões.
+ *
+ * <p>A tabela {@code plantas} tem índice único em {@code codigo} e guarda também a chave
+ * {@code ordem}, que reproduz {@link PlantCodes#NUMERIC_ORDER} na comparação de textos do
+ * banco: o código sem zeros à esquerda, completado com zeros até {@value #MAX_CODE_LENGTH}
+ * caracteres, seguido do código original. Paginação e intervalos são resolvidos por ela.
+ *
+ * <p>O contador de modificações é a linha única de {@code plantas_revisao}, incrementada na
+ * mesma transação de cada escrita: cobre as escritas de todas as instâncias que compartilham
+ * o banco, para que o ETag das listagens mude mesmo quando a escrita foi feita por outra.
+ */
+public class JdbcPlantRepository implements PlantRepository {
+
+    static final int MAX_CODE_LENGTH = 64;
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+    private static final String CODE_CONSTRAINT = "uk_plantas_codigo";
+
+    private static final String COLUMNS =
+            "id, codigo, descricao, criado_por, data_criacao, ultima_modificacao_por, data_ultima_modificacao, versao";
+
+    private static final String INSERT =
+            "INSERT INTO plantas (codigo, ordem, descricao, criado_por, data_criacao, " +
+            "ultima_modificacao_por, data_ultima_modificacao, versao) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_WITH_ID =
+            "INSERT INTO plantas (id, codigo, ordem, descricao, criado_por, data_criacao, " +
+            "ultima_modificacao_por, data_ultima_modificacao, versao) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE =
+            "UPDATE plantas SET descricao = ?, criado_por = ?, data_criacao = ?, ultima_modificacao_por = ?, " +
+            "data_ultima_modificacao = ?, versao = ? WHERE codigo = ?";
+
+    private static final String UPDATE_IF_VERSION =
+            "UPDATE plantas SET descricao = ?, criado_por = ?, data_criacao = ?, ultima_modificacao_por = ?, " +
+            "data_ultima_modificacao = ?, versao = ? WHERE codigo = ? AND versao = ?";
+    private static final String UPDATE_IF_VERSION_AND_ID = UPDATE_IF_VERSION + " AND id = ?";
+
+    private static final String BUMP_REVISION = "UPDATE plantas_revisao SET revisao = revisao + 1 WHERE id = 1";
+
+    private static final RowMapper<Plant> PLANT_MAPPER = (rs, rowNum) -> {
+        Plant plant = new Plant(rs.getString("codigo"), rs.getString("descricao"));
+        plant.setId(rs.getLong("id"));
+        plant.setCriadoPor(rs.getString("criado_por"));
+        plant.setDataCriacao(rs.getObject("data_criacao", LocalDateTime.class));
+        plant.setUltimaModificacaoPor(rs.getString("ultima_modificacao_por"));
+        plant.setDataUltimaModificacao(rs.getObject("data_ultima_modificacao", LocalDateTime.class));
+        plant.setVersao(rs.getLong("versao"));
+        return plant;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    // Maior id gerado ou inserido por esta instância; o identity nunca é reiniciado abaixo dele
+    private final AtomicLong highestId = new AtomicLong();
+
+    public JdbcPlantRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Cria a tabela e os índices de plantas caso ainda não existam.
+     */
+    public void createSchemaIfAbsent() {
+        new ResourceDatabasePopulator(new ClassPathResource("db/plantas.sql")).execute(jdbcTemplate.getDataSource());
+    }
+
+    @Override
+    public Plant save(Plant plant) {
+        String sortKey = sortKey(plant.getCodigo());
+        Long explicitId = plant.getId();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                boolean inserted = transactionTemplate.execute(status -> {
+                    List<long[]> current = jdbcTemplate.query(
+                            "SELECT id, versao FROM plantas WHERE codigo = ? FOR UPDATE",
+                            (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, plant.getCodigo());
+                    if (current.isEmpty()) {
+                        if (plant.getVersao() == null) {
+                            plant.setVersao(1L);
+                        }
+                        insert(plant, sortKey);
+                    } else {
+                        if (plant.getId() == null) {
+                            plant.setId(current.get(0)[0]);
+                        }
+                        if (plant.getVersao() == null) {
+                            plant.setVersao(current.get(0)[1] + 1);
+                        }
+                        jdbcTemplate.update(UPDATE, plant.getDescricao(), plant.getCriadoPor(), plant.getDataCriacao(),
+                                plant.getUltimaModificacaoPor(), plant.getDataUltimaModificacao(), plant.getVersao(),
+                                plant.getCodigo());
+                    }
+                    jdbcTemplate.update(BUMP_REVISION);
+                    return current.isEmpty();
+                });
+                if (inserted && explicitId != null) {
+                    advanceIdentity(explicitId);
+                }
+                return plant;
+            } catch (DuplicateKeyException e) {
+                // Outra transação inseriu o mesmo código entre a leitura e a inserção: na próxima
+                // tentativa a linha existe e é atualizada. Um id repetido falharia sempre.
+                if (!violatesCodeConstraint(e) || attempt == MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+                plant.setId(explicitId);
+            }
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(Plant plant) {
+        String sortKey = sortKey(plant.getCodigo());
+        Long previousVersion = plant.getVersao();
+        plant.setVersao(1L);
+        Long explicitId = plant.getId();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insert(plant, sortKey);
+                jdbcTemplate.update(BUMP_REVISION);
+            });
+        } catch (DuplicateKeyException e) {
+            plant.setVersao(previousVersion);
+            if (!violatesCodeConstraint(e)) {
+                throw e;
+            }
+            return false;
+        }
+        if (explicitId != null) {
+            advanceIdentity(explicitId);
+        }
+        return true;
+    }
+
+    /**
+     * Insere as plantas em lotes de {@value #BATCH_SIZE}, cada lote em uma transação.
+     * Os códigos já existentes são descartados antes; se outra escrita concorrente
+     * violar o índice único no meio do lote, ele é refeito planta a planta.
+     */
+    @Override
+    public List<Plant> insertAllIfAbsent(List<Plant> plants) {
+        Map<String, Plant> candidates = new LinkedHashMap<>();
+        for (Plant plant : plants) {
+            sortKey(plant.getCodigo());
+            candidates.putIfAbsent(plant.getCodigo(), plant);
+        }
+
+        List<Plant> inserted = new ArrayList<>(candidates.size());
+        List<Plant> chunk = new ArrayList<>(BATCH_SIZE);
+        for (Plant plant : candidates.values()) {
+            chunk.add(plant);
+            if (chunk.size() == BATCH_SIZE) {
+                inserted.addAll(insertChunk(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inserted.addAll(insertChunk(chunk));
+        }
+        return inserted;
+    }
+
+    @Override
+    public boolean replaceIfVersion(Plant plant, long expectedVersion) {
+        boolean updated = transactionTemplate.execute(status -> {
+            int rows = plant.getId() == null
+                    ? jdbcTemplate.update(UPDATE_IF_VERSION, plant.getDescricao(), plant.getCriadoPor(),
+                            plant.getDataCriacao(), plant.getUltimaModificacaoPor(), plant.getDataUltimaModificacao(),
+                            expectedVersion + 1, plant.getCodigo(), expectedVersion)
+                    : jdbcTemplate.update(UPDATE_IF_VERSION_AND_ID, plant.getDescricao(), plant.getCriadoPor(),
+                            plant.getDataCriacao(), plant.getUltimaModificacaoPor(), plant.getDataUltimaModificacao(),
+                            expectedVersion + 1, plant.getCodigo(), expectedVersion, plant.getId());
+            if (rows > 0) {
+                jdbcTemplate.update(BUMP_REVISION);
+            }
+            return rows > 0;
+        });
+        if (!updated) {
+            return false;
+        }
+        plant.setVersao(expectedVersion + 1);
+        if (plant.getId() == null) {
+            plant.setId(jdbcTemplate.queryForObject("SELECT id FROM plantas WHERE codigo = ?", Long.class,
+                    plant.getCodigo()));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM plantas WHERE codigo = ?", Integer.class, code).isEmpty();
+    }
+
+    @Override
+    public Optional<Plant> findByCode(String code) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM plantas WHERE codigo = ?", PLANT_MAPPER, code)
+                .stream().findFirst();
+    }
+
+    @Override
+    public List<Plant> findByDescriptionContaining(String description) {
+        if (description == null || description.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String pattern = "%" + escapeLike(description.toLowerCase(Locale.ROOT)) + "%";
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM plantas WHERE LOWER(descricao) LIKE ? ESCAPE '\\' " +
+                "ORDER BY ordem", PLANT_MAPPER, pattern);
+    }
+
+    /**
+     * O banco só filtra pelo tamanho da descrição; a distância de edição é calculada aqui,
+     * sobre as linhas lidas em fluxo.
+     */
+    @Override
+    public List<Plant> findByDescriptionSimilar(String description, int maxDistance) {
+        if (description == null || description.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try (Stream<Plant> plants = jdbcTemplate.queryForStream("SELECT " + COLUMNS + " FROM plantas " +
+                        "WHERE LENGTH(descricao) BETWEEN ? AND ? ORDER BY ordem", PLANT_MAPPER,
+                description.length() - maxDistance, description.length() + maxDistance)) {
+            return EditDistance.rank(plants, description, maxDistance);
+        }
+    }
+
+    @Override
+    public List<Plant> findAll() {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM plantas ORDER BY ordem", PLANT_MAPPER);
+    }
+
+    @Override
+    public List<Plant> findAllAfter(String afterCode, int limit) {
+        if (afterCode == null) {
+            return jdbcTemplate.query("SELECT " + COLUMNS + " FROM plantas ORDER BY ordem FETCH FIRST ? ROWS ONLY",
+                    PLANT_MAPPER, limit);
+        }
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM plantas WHERE ordem > ? ORDER BY ordem " +
+                "FETCH FIRST ? ROWS ONLY", PLANT_MAPPER, sortKey(afterCode), limit);
+    }
+
+    @Override
+    public List<Plant> findByCodeRange(String fromCode, String toCode, int limit) {
+        if (PlantCodes.NUMERIC_ORDER.compare(fromCode, toCode) > 0) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM plantas WHERE ordem BETWEEN ? AND ? ORDER BY ordem " +
+                "FETCH FIRST ? ROWS ONLY", PLANT_MAPPER, sortKey(fromCode), sortKey(toCode), limit);
+    }
+
+    /**
+     * Percorre o resultado do banco sob demanda; o stream mantém uma conexão do pool
+     * até ser fechado.
+     */
+    @Override
+    public Stream<Plant> streamAll() {
+        return jdbcTemplate.queryForStream("SELECT " + COLUMNS + " FROM plantas ORDER BY ordem", PLANT_MAPPER);
+    }
+
+    @Override
+    public Stream<Plant> streamModifiedSince(LocalDateTime since) {
+        return jdbcTemplate.queryForStream("SELECT " + COLUMNS + " FROM plantas WHERE data_ultima_modificacao >= ? " +
+                "ORDER BY ordem", PLANT_MAPPER, since);
+    }
+
+    @Override
+    public void delete(Plant plant) {
+        if (plant == null || plant.getCodigo() == null) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update("DELETE FROM plantas WHERE codigo = ?", plant.getCodigo()) > 0) {
+                jdbcTemplate.update(BUMP_REVISION);
+            }
+        });
+    }
+
+    /**
+     * Remove as plantas em lotes de {@value #BATCH_SIZE} códigos, cada lote em uma transação
+     * que lê e bloqueia as linhas existentes antes de removê-las com um único comando.
+     */
+    @Override
+    public List<Plant> deleteAll(List<String> codes) {
+        List<String> distinct = codes.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        List<Plant> removed = new ArrayList<>(distinct.size());
+        for (int start = 0; start < distinct.size(); start += BATCH_SIZE) {
+            Object[] chunk = distinct.subList(start, Math.min(start + BATCH_SIZE, distinct.size())).toArray();
+            String in = "codigo IN (" + placeholders(chunk.length) + ")";
+            List<Plant> deleted = transactionTemplate.execute(status -> {
+                List<Plant> existing = jdbcTemplate.query("SELECT " + COLUMNS + " FROM plantas WHERE " + in +
+                        " ORDER BY ordem FOR UPDATE", PLANT_MAPPER, chunk);
+                if (!existing.isEmpty()) {
+                    jdbcTemplate.update("DELETE FROM plantas WHERE " + in, chunk);
+                    jdbcTemplate.update(BUMP_REVISION);
+                }
+                return existing;
+            });
+            removed.addAll(deleted);
+        }
+        return removed;
+    }
+
+    @Override
+    public long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM plantas", Long.class);
+    }
+
+    @Override
+    public long modificationCount() {
+        return jdbcTemplate.queryForObject("SELECT revisao FROM plantas_revisao WHERE id = 1", Long.class);
+    }
+
+    /**
+     * Chave de ordenação equivalente a {@link PlantCodes#NUMERIC_ORDER}.
+     */
+    static String sortKey(String code) {
+        if (code.length() > MAX_CODE_LENGTH) {
+            throw new ValidationException("O código da planta não pode exceder " + MAX_CODE_LENGTH + " caracteres");
+        }
+        int start = 0;
+        while (start < code.length() - 1 && code.charAt(start) == '0') {
+            start++;
+        }
+        StringBuilder key = new StringBuilder(MAX_CODE_LENGTH + code.length());
+        for (int i = code.length() - start; i < MAX_CODE_LENGTH; i++) {
+            key.append('0');
+        }
+        return key.append(code, start, code.length()).append(code).toString();
+    }
+
+    private void insert(Plant plant, String sortKey) {
+        if (plant.getId() != null) {
+            jdbcTemplate.update(INSERT_WITH_ID, plant.getId(), plant.getCodigo(), sortKey, plant.getDescricao(),
+                    plant.getCriadoPor(), plant.getDataCriacao(), plant.getUltimaModificacaoPor(),
+                    plant.getDataUltimaModificacao(), plant.getVersao());
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"id"});
+            bindInsert(statement, plant, sortKey);
+            return statement;
+        }, keyHolder);
+        plant.setId(keyHolder.getKey().longValue());
+        highestId.accumulateAndGet(plant.getId(), Math::max);
+    }
+
+    /**
+     * Ids explícitos não avançam o identity da tabela: se o id inserido passou do maior
+     * conhecido, o identity é reiniciado acima dele e das linhas existentes, para que os
+     * ids gerados depois não colidam. Fica fora da transação da inserção, já que DDL a
+     * confirmaria no meio.
+     */
+    private synchronized void advanceIdentity(long explicitId) {
+        if (explicitId < highestId.get()) {
+            return;
+        }
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM plantas", Long.class);
+        long next = Math.max(Math.max(max == null ? 0 : max, highestId.get()), explicitId) + 1;
+        jdbcTemplate.execute("ALTER TABLE plantas ALTER COLUMN id RESTART WITH " + next);
+        highestId.accumulateAndGet(next - 1, Math::max);
+    }
+
+    private static boolean violatesCodeConstraint(DuplicateKeyException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(CODE_CONSTRAINT);
+    }
+
+    private List<Plant> insertChunk(List<Plant> chunk) {
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT codigo FROM plantas WHERE codigo IN (" + placeholders(chunk.size()) + ")", String.class,
+                chunk.stream().map(Plant::getCodigo).toArray()));
+        List<Plant> missing = chunk.stream()
+                .filter(plant -> !existing.contains(plant.getCodigo()))
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return missing;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute((Connection connection) -> {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"id"})) {
+                    for (Plant plant : missing) {
+                        plant.setVersao(1L);
+                        bindInsert(statement, plant, sortKey(plant.getCodigo()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Plant plant : missing) {
+                            keys.next();
+                            plant.setId(keys.getLong(1));
+                            highestId.accumulateAndGet(plant.getId(), Math::max);
+                        }
+                    }
+                }
+                try (Statement bump = connection.createStatement()) {
+                    bump.executeUpdate(BUMP_REVISION);
+                }
+                return null;
+            }));
+        } catch (DataAccessException e) {
+            // Código inserido por outra escrita depois da consulta: o lote foi desfeito
+            return missing.stream().filter(this::insertIfAbsent).collect(Collectors.toList());
+        }
+        return missing;
+    }
+
+    private static void bindInsert(PreparedStatement statement, Plant plant, String sortKey) throws SQLException {
+        statement.setString(1, plant.getCodigo());
+        statement.setString(2, sortKey);
+        statement.setString(3, plant.getDescricao());
+        statement.setString(4, plant.getCriadoPor());
+        statement.setObject(5, plant.getDataCriacao());
+        statement.setString(6, plant.getUltimaModificacaoPor());
+        statement.setObject(7, plant.getDataUltimaModificacao());
+        statement.setLong(8, plant.getVersao());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
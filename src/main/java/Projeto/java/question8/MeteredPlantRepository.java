@@ -0,0 +1,285 @@
+package Projeto.java.question8;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Repositório de plantas instrumentado: decora outro repositório registrando no
+ * Micrometer o tempo de cada operação ({@code plant.repository.operations}), a
+ * quantidade de plantas retornada pelas consultas ({@code plant.repository.results})
+ * e o tamanho do repositório ({@code plant.repository.size}).
+ *
+ * <p>Os medidores são resolvidos uma única vez na construção; no caminho quente resta
+ * apenas a leitura do relógio e o registro no histograma.
+ */
+public class MeteredPlantRepository implements PlantRepository, Closeable {
+
+    static final String OPERATIONS = "plant.repository.operations";
+    static final String RESULTS = "plant.repository.results";
+    static final String SIZE = "plant.repository.size";
+
+    private final PlantRepository delegate;
+
+    private final Timer saveTimer;
+    private final Timer insertTimer;
+    private final Timer insertAllTimer;
+    private final Timer replaceTimer;
+    private final Timer existsTimer;
+    private final Timer findByCodeTimer;
+    private final Timer findByDescriptionTimer;
+    private final Timer findByDescriptionSimilarTimer;
+    private final Timer findAllTimer;
+    private final Timer findAllAfterTimer;
+    private final Timer findByCodeRangeTimer;
+    private final Timer findByCodePrefixTimer;
+    private final Timer deleteTimer;
+    private final Timer deleteAllTimer;
+
+    private final DistributionSummary findByDescriptionResults;
+    private final DistributionSummary findByDescriptionSimilarResults;
+    private final DistributionSummary findAllResults;
+    private final DistributionSummary findAllAfterResults;
+    private final DistributionSummary findByCodeRangeResults;
+    private final DistributionSummary findByCodePrefixResults;
+
+    public MeteredPlantRepository(PlantRepository delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+
+        this.saveTimer = timer(registry, "save");
+        this.insertTimer = timer(registry, "insertIfAbsent");
+        this.insertAllTimer = timer(registry, "insertAllIfAbsent");
+        this.replaceTimer = timer(registry, "replaceIfVersion");
+        this.existsTimer = timer(registry, "existsByCode");
+        this.findByCodeTimer = timer(registry, "findByCode");
+        this.findByDescriptionTimer = timer(registry, "findByDescriptionContaining");
+        this.findByDescriptionSimilarTimer = timer(registry, "findByDescriptionSimilar");
+        this.findAllTimer = timer(registry, "findAll");
+        this.findAllAfterTimer = timer(registry, "findAllAfter");
+        this.findByCodeRangeTimer = timer(registry, "findByCodeRange");
+        this.findByCodePrefixTimer = timer(registry, "findByCodePrefix");
+        this.deleteTimer = timer(registry, "delete");
+        this.deleteAllTimer = timer(registry, "deleteAll");
+
+        this.findByDescriptionResults = results(registry, "findByDescriptionContaining");
+        this.findByDescriptionSimilarResults = results(registry, "findByDescriptionSimilar");
+        this.findAllResults = results(registry, "findAll");
+        this.findAllAfterResults = results(registry, "findAllAfter");
+        this.findByCodeRangeResults = results(registry, "findByCodeRange");
+        this.findByCodePrefixResults = results(registry, "findByCodePrefix");
+
+        Gauge.builder(SIZE, delegate, PlantRepository::count)
+                .description("Quantidade de plantas armazenadas")
+                .register(registry);
+    }
+
+    @Override
+    public Plant save(Plant plant) {
+        long start = System.nanoTime();
+        try {
+            return delegate.save(plant);
+        } finally {
+            record(saveTimer, start);
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(Plant plant) {
+        long start = System.nanoTime();
+        try {
+            return delegate.insertIfAbsent(plant);
+        } finally {
+            record(insertTimer, start);
+        }
+    }
+
+    @Override
+    public List<Plant> insertAllIfAbsent(List<Plant> plants) {
+        long start = System.nanoTime();
+        try {
+            return delegate.insertAllIfAbsent(plants);
+        } finally {
+            record(insertAllTimer, start);
+        }
+    }
+
+    @Override
+    public boolean replaceIfVersion(Plant plant, long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            return delegate.replaceIfVersion(plant, expectedVersion);
+        } finally {
+            record(replaceTimer, start);
+        }
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        long start = System.nanoTime();
+        try {
+            return delegate.existsByCode(code);
+        } finally {
+            record(existsTimer, start);
+        }
+    }
+
+    @Override
+    public Optional<Plant> findByCode(String code) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByCode(code);
+        } finally {
+            record(findByCodeTimer, start);
+        }
+    }
+
+    @Override
+    public List<Plant> findByDescriptionContaining(String description) {
+        long start = System.nanoTime();
+        try {
+            return counted(findByDescriptionResults, delegate.findByDescriptionContaining(description));
+        } finally {
+            record(findByDescriptionTimer, start);
+        }
+    }
+
+    @Override
+    public List<Plant> findByDescriptionSimilar(String description, int maxDistance) {
+        long start = System.nanoTime();
+        try {
+            return counted(findByDescriptionSimilarResults, delegate.findByDescriptionSimilar(description, maxDistance));
+        } finally {
+            record(findByDescriptionSimilarTimer, start);
+        }
+    }
+
+    @Override
+    public List<Plant> findAll() {
+        long start = System.nanoTime();
+        try {
+            return counted(findAllResults, delegate.findAll());
+        } finally {
+            record(findAllTimer, start);
+        }
+    }
+
+    @Override
+    public List<Plant> findAllAfter(String afterCode, int limit) {
+        long start = System.nanoTime();
+        try {
+            return counted(findAllAfterResults, delegate.findAllAfter(afterCode, limit));
+        } finally {
+            record(findAllAfterTimer, start);
+        }
+    }
+
+    @Override
+    public List<Plant> findByCodeRange(String fromCode, String toCode, int limit) {
+        long start = System.nanoTime();
+        try {
+            return counted(findByCodeRangeResults, delegate.findByCodeRange(fromCode, toCode, limit));
+        } finally {
+            record(findByCodeRangeTimer, start);
+        }
+    }
+
+    @Override
+    public List<Plant> findByCodePrefix(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return counted(findByCodePrefixResults, delegate.findByCodePrefix(prefix, limit));
+        } finally {
+            record(findByCodePrefixTimer, start);
+        }
+    }
+
+    // O stream é consumido fora do repositório; medir apenas sua criação não diria nada
+    @Override
+    public Stream<Plant> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Plant> streamModifiedSince(LocalDateTime since) {
+        return delegate.streamModifiedSince(since);
+    }
+
+    @Override
+    public void delete(Plant plant) {
+        long start = System.nanoTime();
+        try {
+            delegate.delete(plant);
+        } finally {
+            record(deleteTimer, start);
+        }
+    }
+
+    @Override
+    public List<Plant> deleteAll(List<String> codes) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deleteAll(codes);
+        } finally {
+            record(deleteAllTimer, start);
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long modificationCount() {
+        return delegate.modificationCount();
+    }
+
+    /**
+     * Fecha o repositório decorado, se ele exigir fechamento.
+     */
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder(OPERATIONS)
+                .description("Tempo das operações do repositório de plantas")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(registry);
+    }
+
+    private static DistributionSummary results(MeterRegistry registry, String operation) {
+        return DistributionSummary.builder(RESULTS)
+                .description("Quantidade de plantas retornadas pelas consultas")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000_000.0)
+                .register(registry);
+    }
+
+    private static void record(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static List<Plant> counted(DistributionSummary summary, List<Plant> plants) {
+        summary.record(plants.size());
+        return plants;
+    }
+}
@@ -0,0 +1,817 @@
+package Projeto.java.question8;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implementação compacta do repositório de plantas.
+ * Cada planta ocupa um registro de tamanho fixo em memória direta (fora do heap),
+ * localizado por uma tabela de endereçamento aberto de chave primitiva.
+ * As plantas devolvidas são cópias decodificadas dos registros.
+ *
+ * <p>Layout do registro ({@value #RECORD_SIZE} bytes):
+ * id, chave do código, tamanho e caracteres da descrição, ids dos usuários de
+ * auditoria (internados em um dicionário), datas em nanossegundos desde a época (UTC)
+ * e versão.
+ */
+public class OffHeapPlantRepository implements PlantRepository {
+
+    static final int RECORD_SIZE = 72;
+    static final int MAX_SIGNIFICANT_DIGITS = 17;
+    static final int MAX_CODE_DIGITS = 31;
+    static final int MAX_DESCRIPTION_LENGTH = 10;
+
+    private static final int ID = 0;
+    private static final int CODE_KEY = 8;
+    private static final int DESCRIPTION_LENGTH = 16;
+    private static final int DESCRIPTION = 18;
+    private static final int CREATED_BY = 38;
+    private static final int MODIFIED_BY = 42;
+    private static final int CREATED_AT = 46;
+    private static final int MODIFIED_AT = 54;
+    private static final int VERSION = 64;
+
+    private static final int NO_USER = -1;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final long EMPTY_KEY = 0L;
+    private static final int TIE_BITS = 5;
+    private static final long[] POWERS_OF_TEN = new long[MAX_SIGNIFICANT_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer records;
+    private int slotCapacity;
+    private int nextSlot;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private long[] tableKeys;
+    private int[] tableSlots;
+    private int size;
+
+    private final Map<String, Integer> userIds = new HashMap<>();
+    private final List<String> userNames = new ArrayList<>();
+
+    private long idSequence = 1;
+    private volatile long modificationCount;
+
+    public OffHeapPlantRepository() {
+        this(1024);
+    }
+
+    public OffHeapPlantRepository(int initialCapacity) {
+        this.slotCapacity = Math.max(16, initialCapacity);
+        this.records = ByteBuffer.allocateDirect(slotCapacity * RECORD_SIZE);
+        int tableCapacity = Integer.highestOneBit(slotCapacity * 2 - 1) << 1;
+        this.tableKeys = new long[tableCapacity];
+        this.tableSlots = new int[tableCapacity];
+    }
+
+    @Override
+    public Plant save(Plant plant) {
+        long key = validatedKey(plant);
+
+        lock.writeLock().lock();
+        try {
+            store(key, plant);
+            return plant;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(Plant plant) {
+        long key = validatedKey(plant);
+
+        lock.writeLock().lock();
+        try {
+            return insert(key, plant);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Plant> insertAllIfAbsent(List<Plant> plants) {
+        long[] keys = new long[plants.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = validatedKey(plants.get(i));
+        }
+
+        List<Plant> inserted = new ArrayList<>(plants.size());
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                if (insert(keys[i], plants.get(i))) {
+                    inserted.add(plants.get(i));
+                }
+            }
+            return inserted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean replaceIfVersion(Plant plant, long expectedVersion) {
+        long key = validatedKey(plant);
+
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(key);
+            if (slot < 0 || records.getLong(slot * RECORD_SIZE + VERSION) != expectedVersion
+                    || (plant.getId() != null && plant.getId() != records.getLong(slot * RECORD_SIZE + ID))) {
+                return false;
+            }
+            plant.setId(records.getLong(slot * RECORD_SIZE + ID));
+            plant.setVersao(expectedVersion + 1);
+            write(slot, key, plant);
+            modificationCount++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        long key = codeKeyOrEmpty(code);
+        if (key == EMPTY_KEY) {
+            return false;
+        }
+
+        lock.readLock().lock();
+        try {
+            return slotOf(key) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Plant> findByCode(String code) {
+        long key = codeKeyOrEmpty(code);
+        return key == EMPTY_KEY ? Optional.empty() : findByKey(key);
+    }
+
+    @Override
+    public List<Plant> findByDescriptionContaining(String description) {
+        if (description == null || description.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (description.length() > MAX_DESCRIPTION_LENGTH) {
+            return Collections.emptyList();
+        }
+
+        char[] query = description.toLowerCase(Locale.ROOT).toCharArray();
+        List<Plant> result = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < nextSlot; slot++) {
+                if (isLive(slot) && descriptionContains(slot, query)) {
+                    result.add(read(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Varre os registros comparando as descrições direto na memória direta. O tamanho gravado
+     * descarta, sem ler os caracteres, as descrições que diferem da consulta em mais de
+     * {@code maxDistance} caracteres.
+     */
+    @Override
+    public List<Plant> findByDescriptionSimilar(String description, int maxDistance) {
+        if (description == null || description.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        EditDistance distance = new EditDistance(description);
+        char[] chars = new char[MAX_DESCRIPTION_LENGTH];
+        CharBuffer text = CharBuffer.wrap(chars);
+        List<EditDistance.Match<Plant>> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < nextSlot; slot++) {
+                if (!isLive(slot)) {
+                    continue;
+                }
+                int base = slot * RECORD_SIZE;
+                int length = records.get(base + DESCRIPTION_LENGTH);
+                if (length < 0 || Math.abs(length - distance.queryLength()) > maxDistance) {
+                    continue;
+                }
+                for (int i = 0; i < length; i++) {
+                    chars[i] = records.getChar(base + DESCRIPTION + i * Character.BYTES);
+                }
+                text.limit(length);
+                int d = distance.to(text);
+                if (d <= maxDistance) {
+                    Plant plant = read(slot);
+                    matches.add(new EditDistance.Match<>(plant, plant.getCodigo(), d));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return EditDistance.Match.ranked(matches);
+    }
+
+    @Override
+    public List<Plant> findAll() {
+        return streamAll().collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Plant> findAllAfter(String afterCode, int limit) {
+        long lowerBound;
+        if (afterCode == null) {
+            lowerBound = EMPTY_KEY;
+        } else {
+            lowerBound = codeKeyOrEmpty(afterCode);
+            if (lowerBound == EMPTY_KEY) {
+                return Collections.emptyList();
+            }
+        }
+        return findKeysInRange(lowerBound + 1, Long.MAX_VALUE, limit);
+    }
+
+    @Override
+    public List<Plant> findByCodeRange(String fromCode, String toCode, int limit) {
+        long from = codeKeyOrEmpty(fromCode);
+        if (from == EMPTY_KEY) {
+            return Collections.emptyList();
+        }
+        long to = codeKeyOrEmpty(toCode);
+        if (to == EMPTY_KEY) {
+            to = Long.MAX_VALUE;
+        }
+        return findKeysInRange(from, to, limit);
+    }
+
+    /**
+     * Sem índice ordenado, responde com uma única varredura da tabela, selecionando as
+     * menores chaves que começam com o prefixo. Para prefixos sem zeros à esquerda, a
+     * comparação é feita sobre a chave, sem decodificar o código.
+     */
+    @Override
+    public List<Plant> findByCodePrefix(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || prefix.length() > MAX_CODE_DIGITS) {
+            return Collections.emptyList();
+        }
+        long prefixKey = codeKeyOrEmpty(prefix);
+        if (prefixKey == EMPTY_KEY || prefix.charAt(0) == '0') {
+            return findSmallestKeys(key -> decodeCode(key).startsWith(prefix), limit);
+        }
+
+        long prefixValue = prefixKey >>> TIE_BITS;
+        int prefixDigits = prefix.length();
+        return findSmallestKeys(key -> {
+            long value = key >>> TIE_BITS;
+            int digits = MAX_CODE_DIGITS - (int) (key & ((1 << TIE_BITS) - 1));
+            // Códigos sem zeros à esquerda com ao menos os dígitos do prefixo
+            return value != 0 && digits >= prefixDigits && digits <= MAX_SIGNIFICANT_DIGITS
+                    && value >= POWERS_OF_TEN[digits - 1]
+                    && value / POWERS_OF_TEN[digits - prefixDigits] == prefixValue;
+        }, limit);
+    }
+
+    @Override
+    public Stream<Plant> streamAll() {
+        long[] keys;
+        lock.readLock().lock();
+        try {
+            keys = new long[size];
+            int count = 0;
+            for (long key : tableKeys) {
+                if (key != EMPTY_KEY) {
+                    keys[count++] = key;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // As chaves preservam a ordem numérica dos códigos; os registros são lidos sob demanda
+        Arrays.sort(keys);
+        return Arrays.stream(keys)
+                .mapToObj(this::findByKey)
+                .flatMap(Optional::stream);
+    }
+
+    @Override
+    public void delete(Plant plant) {
+        if (plant == null || plant.getCodigo() == null) {
+            return;
+        }
+        long key = codeKeyOrEmpty(plant.getCodigo());
+        if (key == EMPTY_KEY) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int slot = removeFromTable(key);
+            if (slot >= 0) {
+                records.putLong(slot * RECORD_SIZE + CODE_KEY, EMPTY_KEY);
+                releaseSlot(slot);
+                modificationCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Plant> deleteAll(List<String> codes) {
+        long[] keys = new long[codes.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = codeKeyOrEmpty(codes.get(i));
+        }
+
+        List<Plant> removed = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (long key : keys) {
+                if (key == EMPTY_KEY) {
+                    continue;
+                }
+                int slot = removeFromTable(key);
+                if (slot >= 0) {
+                    removed.add(read(slot));
+                    records.putLong(slot * RECORD_SIZE + CODE_KEY, EMPTY_KEY);
+                    releaseSlot(slot);
+                }
+            }
+            if (!removed.isEmpty()) {
+                modificationCount++;
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Incrementado sob o lock de escrita, depois que o registro foi gravado
+    @Override
+    public long modificationCount() {
+        return modificationCount;
+    }
+
+    @Override
+    public long count() {
+        return size();
+    }
+
+    /**
+     * Quantidade de plantas armazenadas.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes de memória direta reservados para os registros.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return records.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long validatedKey(Plant plant) {
+        long key = codeKey(plant.getCodigo());
+        String descricao = plant.getDescricao();
+        if (descricao != null && descricao.length() > MAX_DESCRIPTION_LENGTH) {
+            throw new ValidationException("A descrição da planta não pode exceder 10 caracteres");
+        }
+        return key;
+    }
+
+    // Deve ser chamado com o lock de escrita
+    private void store(long key, Plant plant) {
+        assignId(plant);
+
+        int slot = slotOf(key);
+        if (slot < 0) {
+            slot = allocateSlot();
+            insertIntoTable(key, slot);
+            if (plant.getVersao() == null) {
+                plant.setVersao(1L);
+            }
+        } else if (plant.getVersao() == null) {
+            plant.setVersao(records.getLong(slot * RECORD_SIZE + VERSION) + 1);
+        }
+        write(slot, key, plant);
+        modificationCount++;
+    }
+
+    // Deve ser chamado com o lock de escrita
+    private boolean insert(long key, Plant plant) {
+        if (slotOf(key) >= 0) {
+            return false;
+        }
+        assignId(plant);
+        plant.setVersao(1L);
+
+        int slot = allocateSlot();
+        insertIntoTable(key, slot);
+        write(slot, key, plant);
+        modificationCount++;
+        return true;
+    }
+
+    private void assignId(Plant plant) {
+        if (plant.getId() == null) {
+            plant.setId(idSequence++);
+        } else {
+            idSequence = Math.max(idSequence, plant.getId() + 1);
+        }
+    }
+
+    private Optional<Plant> findByKey(long key) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(key);
+            return slot < 0 ? Optional.empty() : Optional.of(read(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Plant> findKeysInRange(long from, long to, int limit) {
+        if (from > to) {
+            return Collections.emptyList();
+        }
+        return findSmallestKeys(key -> key >= from && key <= to, limit);
+    }
+
+    // Seleciona as menores chaves aceitas com um heap de máximo limitado a "limit"
+    private List<Plant> findSmallestKeys(LongPredicate accepted, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        long[] heap = new long[Math.min(limit, 1024)];
+        int heapSize = 0;
+
+        lock.readLock().lock();
+        try {
+            for (long key : tableKeys) {
+                if (key == EMPTY_KEY || !accepted.test(key)) {
+                    continue;
+                }
+                if (heapSize < limit) {
+                    if (heapSize == heap.length) {
+                        heap = Arrays.copyOf(heap, Math.min(limit, heap.length * 2));
+                    }
+                    heap[heapSize] = key;
+                    siftUp(heap, heapSize++);
+                } else if (key < heap[0]) {
+                    heap[0] = key;
+                    siftDown(heap, heapSize);
+                }
+            }
+
+            long[] keys = Arrays.copyOf(heap, heapSize);
+            Arrays.sort(keys);
+            List<Plant> result = new ArrayList<>(heapSize);
+            for (long key : keys) {
+                result.add(read(slotOf(key)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] >= heap[index]) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int heapSize) {
+        int index = 0;
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && heap[left] > heap[largest]) {
+                largest = left;
+            }
+            if (right < heapSize && heap[right] > heap[largest]) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(heap, index, largest);
+            index = largest;
+        }
+    }
+
+    private static void swap(long[] heap, int i, int j) {
+        long tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    // ---- Codificação dos códigos ----
+
+    /**
+     * Converte o código em uma chave positiva que preserva {@link PlantCodes#NUMERIC_ORDER}:
+     * o valor numérico nos bits altos e, nos 5 bits baixos, o desempate pela quantidade
+     * de zeros à esquerda.
+     */
+    static long codeKey(String code) {
+        long key = codeKeyOrEmpty(code);
+        if (key == EMPTY_KEY) {
+            throw new ValidationException("O código da planta excede o tamanho suportado pelo armazenamento compacto");
+        }
+        return key;
+    }
+
+    private static long codeKeyOrEmpty(String code) {
+        if (code == null || code.isEmpty() || code.length() > MAX_CODE_DIGITS) {
+            return EMPTY_KEY;
+        }
+
+        int digits = code.length();
+        int start = 0;
+        while (start < digits - 1 && code.charAt(start) == '0') {
+            start++;
+        }
+        if (digits - start > MAX_SIGNIFICANT_DIGITS) {
+            return EMPTY_KEY;
+        }
+
+        long value = 0;
+        for (int i = start; i < digits; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return EMPTY_KEY;
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        int tie = value == 0 ? digits : MAX_CODE_DIGITS - digits;
+        return value << TIE_BITS | tie;
+    }
+
+    static String decodeCode(long key) {
+        long value = key >>> TIE_BITS;
+        int tie = (int) (key & ((1 << TIE_BITS) - 1));
+        int digits = value == 0 ? tie : MAX_CODE_DIGITS - tie;
+
+        String significant = Long.toString(value);
+        if (significant.length() == digits) {
+            return significant;
+        }
+        StringBuilder code = new StringBuilder(digits);
+        for (int i = significant.length(); i < digits; i++) {
+            code.append('0');
+        }
+        return code.append(significant).toString();
+    }
+
+    // ---- Registros ----
+
+    private boolean isLive(int slot) {
+        return records.getLong(slot * RECORD_SIZE + CODE_KEY) != EMPTY_KEY;
+    }
+
+    private void write(int slot, long key, Plant plant) {
+        int base = slot * RECORD_SIZE;
+        records.putLong(base + ID, plant.getId());
+        records.putLong(base + CODE_KEY, key);
+
+        String descricao = plant.getDescricao();
+        if (descricao == null) {
+            records.put(base + DESCRIPTION_LENGTH, (byte) -1);
+        } else {
+            records.put(base + DESCRIPTION_LENGTH, (byte) descricao.length());
+            for (int i = 0; i < descricao.length(); i++) {
+                records.putChar(base + DESCRIPTION + i * Character.BYTES, descricao.charAt(i));
+            }
+        }
+
+        records.putInt(base + CREATED_BY, internUser(plant.getCriadoPor()));
+        records.putInt(base + MODIFIED_BY, internUser(plant.getUltimaModificacaoPor()));
+        records.putLong(base + CREATED_AT, toEpochNanos(plant.getDataCriacao()));
+        records.putLong(base + MODIFIED_AT, toEpochNanos(plant.getDataUltimaModificacao()));
+        records.putLong(base + VERSION, plant.getVersao());
+    }
+
+    private Plant read(int slot) {
+        int base = slot * RECORD_SIZE;
+        Plant plant = new Plant(decodeCode(records.getLong(base + CODE_KEY)), readDescription(base));
+        plant.setId(records.getLong(base + ID));
+        plant.setCriadoPor(userName(records.getInt(base + CREATED_BY)));
+        plant.setUltimaModificacaoPor(userName(records.getInt(base + MODIFIED_BY)));
+        plant.setDataCriacao(fromEpochNanos(records.getLong(base + CREATED_AT)));
+        plant.setDataUltimaModificacao(fromEpochNanos(records.getLong(base + MODIFIED_AT)));
+        plant.setVersao(records.getLong(base + VERSION));
+        return plant;
+    }
+
+    private String readDescription(int base) {
+        int length = records.get(base + DESCRIPTION_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = records.getChar(base + DESCRIPTION + i * Character.BYTES);
+        }
+        return new String(chars);
+    }
+
+    // Compara direto na memória direta, sem decodificar a descrição em String
+    private boolean descriptionContains(int slot, char[] query) {
+        int base = slot * RECORD_SIZE;
+        int length = records.get(base + DESCRIPTION_LENGTH);
+        for (int start = 0; start + query.length <= length; start++) {
+            int i = 0;
+            while (i < query.length && Character.toLowerCase(
+                    records.getChar(base + DESCRIPTION + (start + i) * Character.BYTES)) == query[i]) {
+                i++;
+            }
+            if (i == query.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int internUser(String user) {
+        if (user == null) {
+            return NO_USER;
+        }
+        return userIds.computeIfAbsent(user, u -> {
+            userNames.add(u);
+            return userNames.size() - 1;
+        });
+    }
+
+    private String userName(int id) {
+        return id == NO_USER ? null : userNames.get(id);
+    }
+
+    private static long toEpochNanos(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NO_TIMESTAMP;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    private static LocalDateTime fromEpochNanos(long nanos) {
+        if (nanos == NO_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (nextSlot == slotCapacity) {
+            growRecords();
+        }
+        return nextSlot++;
+    }
+
+    private void releaseSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void growRecords() {
+        int newCapacity = slotCapacity * 2;
+        if ((long) newCapacity * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Capacidade máxima do armazenamento compacto atingida");
+        }
+        ByteBuffer grown = ByteBuffer.allocateDirect(newCapacity * RECORD_SIZE);
+        ByteBuffer current = records.duplicate();
+        current.clear();
+        grown.put(current);
+        records = grown;
+        slotCapacity = newCapacity;
+    }
+
+    // ---- Tabela de endereçamento aberto (sondagem linear) ----
+
+    private int slotOf(long key) {
+        int mask = tableKeys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            long current = tableKeys[i];
+            if (current == key) {
+                return tableSlots[i];
+            }
+            if (current == EMPTY_KEY) {
+                return -1;
+            }
+        }
+    }
+
+    private void insertIntoTable(long key, int slot) {
+        if ((size + 1) * 2 > tableKeys.length) {
+            rehash(tableKeys.length * 2);
+        }
+        int mask = tableKeys.length - 1;
+        int i = hash(key) & mask;
+        while (tableKeys[i] != EMPTY_KEY) {
+            i = (i + 1) & mask;
+        }
+        tableKeys[i] = key;
+        tableSlots[i] = slot;
+        size++;
+    }
+
+    // Remoção com deslocamento para trás, sem marcadores de remoção
+    private int removeFromTable(long key) {
+        int mask = tableKeys.length - 1;
+        int i = hash(key) & mask;
+        while (tableKeys[i] != key) {
+            if (tableKeys[i] == EMPTY_KEY) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+        int slot = tableSlots[i];
+
+        int hole = i;
+        for (int j = (hole + 1) & mask; tableKeys[j] != EMPTY_KEY; j = (j + 1) & mask) {
+            int home = hash(tableKeys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                tableKeys[hole] = tableKeys[j];
+                tableSlots[hole] = tableSlots[j];
+                hole = j;
+            }
+        }
+        tableKeys[hole] = EMPTY_KEY;
+        size--;
+        return slot;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = tableKeys;
+        int[] oldSlots = tableSlots;
+        tableKeys = new long[newCapacity];
+        tableSlots = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != EMPTY_KEY) {
+                int i = hash(oldKeys[k]) & mask;
+                while (tableKeys[i] != EMPTY_KEY) {
+                    i = (i + 1) & mask;
+                }
+                tableKeys[i] = oldKeys[k];
+                tableSlots[i] = oldSlots[k];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
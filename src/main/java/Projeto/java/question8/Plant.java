@@ -20,6 +20,7 @@ public class Plant {
     private LocalDateTime dataCriacao;
     private String ultimaModificacaoPor;
     private LocalDateTime dataUltimaModificacao;
+    private Long versao;
 
     // Construtores
     public Plant() {
@@ -30,6 +31,20 @@ public class Plant {
         this.descricao = descricao;
     }
 
+    /**
+     * Cria uma cópia da planta, usada para alterar sem modificar a instância armazenada.
+     */
+    public Plant(Plant other) {
+        this.id = other.id;
+        this.codigo = other.codigo;
+        this.descricao = other.descricao;
+        this.criadoPor = other.criadoPor;
+        this.dataCriacao = other.dataCriacao;
+        this.ultimaModificacaoPor = other.ultimaModificacaoPor;
+        this.dataUltimaModificacao = other.dataUltimaModificacao;
+        this.versao = other.versao;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -49,6 +64,7 @@ public class Plant {
                 "id=" + id +
                 ", codigo='" + codigo + '\'' +
                 ", descricao='" + descricao + '\'' +
+                ", versao=" + versao +
                 '}';
     }
 }
@@ -0,0 +1,222 @@
+package Projeto.java.question8;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controle de admissão das requisições da API de plantas. Cada cliente tem um balde de
+ * fichas de {@code clientRate} requisições por segundo com rajadas de até {@code clientBurst};
+ * cada classe de endpoint (leitura, escrita, busca) tem um {@link AdaptiveConcurrencyLimit}
+ * próprio, para que buscas lentas não tomem as vagas das leituras por código.
+ *
+ * <p>Uma requisição que excede o balde do cliente é recusada com 429 e uma que excede o limite
+ * da classe com 503, as duas com o tempo de espera sugerido para o cabeçalho
+ * {@code Retry-After}. Nada fica na fila: sob sobrecarga, as requisições admitidas mantêm a
+ * latência de um servidor sem carga e as demais recebem a recusa em microssegundos.
+ */
+public class PlantAdmissionControl {
+
+    /**
+     * Classe de endpoint, com seu próprio limite de concorrência.
+     */
+    public enum EndpointClass {
+        READ, WRITE, SEARCH
+    }
+
+    static final String REJECTIONS = "plant.admission.rejected";
+    static final String LIMIT = "plant.admission.limit";
+    static final String IN_FLIGHT = "plant.admission.in-flight";
+
+    private static final int WINDOW_SIZE = 50;
+    private static final long OVERLOAD_RETRY_AFTER_SECONDS = 1;
+
+    private final double tokensPerNano;
+    private final int clientBurst;
+    private final Cache<String, TokenBucket> bucketsByClient;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rateRejections = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> overloadRejections = new EnumMap<>(EndpointClass.class);
+    private final Ticker ticker;
+
+    /**
+     * @param clientRate requisições por segundo de cada cliente; 0 desativa o limite por cliente
+     * @param clientBurst requisições que um cliente parado pode fazer de uma vez
+     * @param clientIdleTimeout tempo sem requisições após o qual o balde de um cliente é descartado
+     * @param clientMaxTracked quantidade máxima de baldes de clientes guardados
+     * @param initialLimit limite inicial de requisições simultâneas por classe de endpoint
+     * @param minLimit menor limite a que a adaptação pode chegar
+     * @param maxLimit maior limite a que a adaptação pode chegar
+     */
+    public PlantAdmissionControl(double clientRate, int clientBurst, Duration clientIdleTimeout, long clientMaxTracked,
+                                 int initialLimit, int minLimit, int maxLimit, MeterRegistry registry) {
+        this(clientRate, clientBurst, clientIdleTimeout, clientMaxTracked, initialLimit, minLimit, maxLimit, registry,
+                Ticker.systemTicker());
+    }
+
+    PlantAdmissionControl(double clientRate, int clientBurst, Duration clientIdleTimeout, long clientMaxTracked,
+                          int initialLimit, int minLimit, int maxLimit, MeterRegistry registry, Ticker ticker) {
+        if (clientRate < 0 || (clientRate > 0 && clientBurst < 1)) {
+            throw new IllegalArgumentException("Taxa por cliente inválida: " + clientRate + "/s, rajada " + clientBurst);
+        }
+        this.tokensPerNano = clientRate / TimeUnit.SECONDS.toNanos(1);
+        this.clientBurst = clientBurst;
+        this.ticker = ticker;
+        this.bucketsByClient = Caffeine.newBuilder()
+                .maximumSize(clientMaxTracked)
+                .expireAfterAccess(clientIdleTimeout)
+                .ticker(ticker)
+                .build();
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, WINDOW_SIZE);
+            String tag = endpointClass.name().toLowerCase(Locale.ROOT);
+            limits.put(endpointClass, limit);
+            Gauge.builder(LIMIT, limit, AdaptiveConcurrencyLimit::limit)
+                    .description("Limite atual de requisições simultâneas")
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder(IN_FLIGHT, limit, AdaptiveConcurrencyLimit::inFlight)
+                    .description("Requisições admitidas em andamento")
+                    .tag("class", tag)
+                    .register(registry);
+            rateRejections.put(endpointClass, rejections(registry, tag, "rate"));
+            overloadRejections.put(endpointClass, rejections(registry, tag, "overload"));
+        }
+    }
+
+    private static Counter rejections(MeterRegistry registry, String endpointClass, String reason) {
+        return Counter.builder(REJECTIONS)
+                .description("Requisições recusadas pelo controle de admissão")
+                .tag("class", endpointClass)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Decide se a requisição do cliente entra. Uma admissão aceita deve ser encerrada com
+     * {@link Admission#complete()} ou {@link Admission#release()}.
+     */
+    public Admission admit(String client, EndpointClass endpointClass) {
+        if (tokensPerNano > 0) {
+            long now = ticker.read();
+            long waitNanos = bucketsByClient.get(client, c -> new TokenBucket(now)).tryAcquire(now);
+            if (waitNanos > 0) {
+                rateRejections.get(endpointClass).increment();
+                return Admission.rejected(HttpStatus.TOO_MANY_REQUESTS,
+                        Math.max(1, (long) Math.ceil(waitNanos / 1e9)),
+                        "Limite de requisições do cliente excedido");
+            }
+        }
+
+        AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            overloadRejections.get(endpointClass).increment();
+            return Admission.rejected(HttpStatus.SERVICE_UNAVAILABLE, OVERLOAD_RETRY_AFTER_SECONDS,
+                    "Serviço sobrecarregado, tente novamente em instantes");
+        }
+        return new Admission(this, limit, ticker.read());
+    }
+
+    int limit(EndpointClass endpointClass) {
+        return limits.get(endpointClass).limit();
+    }
+
+    /**
+     * Resultado de {@link #admit}: uma vaga reservada ou uma recusa com o status HTTP e o
+     * tempo de espera sugerido.
+     */
+    public static final class Admission {
+
+        private final PlantAdmissionControl control;
+        private final AdaptiveConcurrencyLimit limit;
+        private final long startedAt;
+        private final HttpStatus status;
+        private final long retryAfterSeconds;
+        private final String message;
+
+        private Admission(PlantAdmissionControl control, AdaptiveConcurrencyLimit limit, long startedAt) {
+            this.control = control;
+            this.limit = limit;
+            this.startedAt = startedAt;
+            this.status = null;
+            this.retryAfterSeconds = 0;
+            this.message = null;
+        }
+
+        private Admission(HttpStatus status, long retryAfterSeconds, String message) {
+            this.control = null;
+            this.limit = null;
+            this.startedAt = 0;
+            this.status = status;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.message = message;
+        }
+
+        static Admission rejected(HttpStatus status, long retryAfterSeconds, String message) {
+            return new Admission(status, retryAfterSeconds, message);
+        }
+
+        public boolean isAdmitted() {
+            return limit != null;
+        }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Libera a vaga de uma requisição respondida, usando sua latência no ajuste do limite.
+         */
+        public void complete() {
+            limit.release(control.ticker.read() - startedAt);
+        }
+
+        /**
+         * Libera a vaga sem usar a latência da requisição.
+         */
+        public void release() {
+            limit.release();
+        }
+    }
+
+    // Fichas repostas continuamente conforme o tempo passa, até a capacidade da rajada
+    private final class TokenBucket {
+
+        private double tokens = clientBurst;
+        private long updatedAt;
+
+        TokenBucket(long now) {
+            this.updatedAt = now;
+        }
+
+        // Zero se consumiu uma ficha, senão o tempo até a próxima
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(clientBurst, tokens + Math.max(0, now - updatedAt) * tokensPerNano);
+            updatedAt = Math.max(updatedAt, now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
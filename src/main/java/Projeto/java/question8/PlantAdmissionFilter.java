@@ -0,0 +1,149 @@
+package Projeto.java.question8;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Filtro na frente da API de plantas que aplica o {@link PlantAdmissionControl} antes de a
+ * requisição ocupar uma thread do controlador. O cliente é o usuário do token
+ * {@code Authorization} quando o {@link IdentityUserService} o reconhece e, do contrário, o
+ * endereço remoto: um cabeçalho inventado não ganha um balde novo. Atrás de um proxy, o
+ * endereço remoto só identifica o cliente com {@code server.forward-headers-strategy}
+ * configurado; sem isso, todos os clientes sem token dividem o balde do proxy. O fluxo de alterações
+ * ({@code /api/plantas/changes}) fica de fora: suas conexões duram minutos e não refletem
+ * o custo de uma requisição.
+ *
+ * <p>O caminho é classificado já decodificado e sem parâmetros de segmento ({@code ;x=y}),
+ * como o controlador o recebe.
+ *
+ * <p>Respostas assíncronas, como a exportação, mantêm a vaga até terminarem, mas não entram
+ * no ajuste do limite.
+ */
+public class PlantAdmissionFilter extends OncePerRequestFilter {
+
+    static final String BASE_PATH = "/api/plantas";
+
+    private final PlantAdmissionControl admissionControl;
+    private final IdentityUserService identities;
+
+    public PlantAdmissionFilter(PlantAdmissionControl admissionControl) {
+        this(admissionControl, null);
+    }
+
+    /**
+     * @param identities serviço que reconhece os tokens dos clientes; nulo para identificá-los
+     *                   apenas pelo endereço remoto
+     */
+    public PlantAdmissionFilter(PlantAdmissionControl admissionControl, IdentityUserService identities) {
+        this.admissionControl = admissionControl;
+        this.identities = identities;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String pathInfo = request.getPathInfo();
+        PlantAdmissionControl.EndpointClass endpointClass =
+                classify(request.getMethod(), pathInfo == null ? request.getServletPath() : request.getServletPath() + pathInfo);
+        if (endpointClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        PlantAdmissionControl.Admission admission = admissionControl.admit(clientOf(request), endpointClass);
+        if (!admission.isAdmitted()) {
+            reject(response, admission);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            admission.release();
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new ReleaseOnCompletion(admission));
+        } else {
+            admission.complete();
+        }
+    }
+
+    /**
+     * Classe de endpoint da requisição, ou {@code null} para as que passam sem controle.
+     */
+    static PlantAdmissionControl.EndpointClass classify(String method, String path) {
+        if (!path.equals(BASE_PATH) && !path.startsWith(BASE_PATH + "/")) {
+            return null;
+        }
+        if (path.startsWith(BASE_PATH + "/changes")) {
+            return null;
+        }
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return path.equals(BASE_PATH + "/search") || path.equals(BASE_PATH + "/suggest")
+                    ? PlantAdmissionControl.EndpointClass.SEARCH
+                    : PlantAdmissionControl.EndpointClass.READ;
+        }
+        return "OPTIONS".equals(method) ? null : PlantAdmissionControl.EndpointClass.WRITE;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        if (identities != null) {
+            UserIdentity identity = identities.authenticate(request.getHeader(HttpHeaders.AUTHORIZATION));
+            if (identity != null) {
+                return "user:" + identity.getUsername();
+            }
+        }
+        return "addr:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, PlantAdmissionControl.Admission admission) throws IOException {
+        response.setStatus(admission.getStatus().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(admission.getMessage());
+    }
+
+    private static final class ReleaseOnCompletion implements AsyncListener {
+
+        private final PlantAdmissionControl.Admission admission;
+        private boolean released;
+
+        ReleaseOnCompletion(PlantAdmissionControl.Admission admission) {
+            this.admission = admission;
+        }
+
+        @Override
+        public synchronized void onComplete(AsyncEvent event) {
+            if (!released) {
+                released = true;
+                admission.release();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            onComplete(event);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            onComplete(event);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
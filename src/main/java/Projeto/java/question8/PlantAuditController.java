@@ -0,0 +1,59 @@
+package Projeto.java.question8;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controlador REST para consulta da trilha de auditoria de plantas.
+ */
+@RestController
+@RequestMapping("/api/plantas/{code}/audit")
+public class PlantAuditController {
+
+    private final PlantAuditTrail auditTrail;
+    private final UserService userService;
+
+    public PlantAuditController(PlantAuditTrail auditTrail, UserService userService) {
+        this.auditTrail = auditTrail;
+        this.userService = userService;
+    }
+
+    /**
+     * Busca as operações registradas para uma planta, opcionalmente entre {@code from}
+     * e {@code to} (inclusive). Restrito a administradores.
+     */
+    @GetMapping
+    public ResponseEntity<List<PlantAuditEvent>> getAuditTrail(
+            @PathVariable String code,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!userService.isCurrentUserAdmin()) {
+            throw new UnauthorizedOperationException("Apenas administradores podem consultar a auditoria");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ValidationException("O início do período não pode ser posterior ao fim");
+        }
+        return ResponseEntity.ok(auditTrail.find(code, from, to));
+    }
+
+    /**
+     * Manipulador de exceções para ValidationException.
+     */
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<String> handleValidationException(ValidationException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Manipulador de exceções para UnauthorizedOperationException.
+     */
+    @ExceptionHandler(UnauthorizedOperationException.class)
+    public ResponseEntity<String> handleUnauthorizedOperationException(UnauthorizedOperationException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.FORBIDDEN);
+    }
+}
@@ -0,0 +1,53 @@
+package Projeto.java.question8;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de auditoria de uma criação, atualização ou exclusão de planta.
+ */
+public final class PlantAuditEvent {
+
+    private final LocalDateTime dataHora;
+    private final PlantChangeEvent.Type operacao;
+    private final String codigo;
+    private final String usuario;
+    private final Long versao;
+    private final String descricao;
+
+    public PlantAuditEvent(LocalDateTime dataHora, PlantChangeEvent.Type operacao, String codigo, String usuario,
+                           Long versao, String descricao) {
+        this.dataHora = dataHora;
+        this.operacao = operacao;
+        this.codigo = codigo;
+        this.usuario = usuario;
+        this.versao = versao;
+        this.descricao = descricao;
+    }
+
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+
+    public PlantChangeEvent.Type getOperacao() {
+        return operacao;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    /**
+     * Versão da planta após a operação; nas exclusões, a última versão existente.
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
@@ -0,0 +1,368 @@
+package Projeto.java.question8;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trilha de auditoria das operações de plantas, somente de acréscimo.
+ *
+ * <p>{@link #record} apenas oferece o evento a uma fila limitada e retorna, sem esperar
+ * disco. Uma thread de fundo retira os eventos em lotes de até {@code batchSize}, grava
+ * cada lote como linhas JSON no arquivo atual e o descarrega de uma vez; ao passar de
+ * {@code maxFileBytes}, o próximo lote vai para um novo arquivo. Arquivos nunca são
+ * reescritos nem apagados; cada abertura da trilha e cada falha de gravação também começam
+ * um novo arquivo, para que um arquivo fechado nunca volte a receber eventos.
+ *
+ * <p>Ao fechar um arquivo, a thread de gravação grava ao lado dele um pequeno índice
+ * ({@code .idx}) com a menor e a maior data dos seus eventos; as consultas por período pulam,
+ * sem abri-los, os arquivos cujo intervalo não cruza o pedido. Só o arquivo atual e os de
+ * uma gravação interrompida, sem índice, são sempre lidos.
+ *
+ * <p>Se a fila estiver cheia, o evento é descartado e contado em {@link #droppedCount()}
+ * para não atrasar a operação auditada; dimensione a fila para os picos esperados.
+ * Eventos aceitos ficam visíveis nas consultas assim que o lote deles é gravado.
+ */
+public class PlantAuditTrail implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(PlantAuditTrail.class);
+
+    static final String FILE_PREFIX = "audit-";
+    static final String FILE_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".idx";
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    // Margem para sistemas de arquivos que registram a data de modificação em segundos
+    private static final long MODIFIED_TIME_SLACK_SECONDS = 2;
+
+    private final Path directory;
+    private final int batchSize;
+    private final long maxFileBytes;
+    private final BlockingQueue<PlantAuditEvent> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ObjectMapper reader = new ObjectMapper();
+    private final Thread writer;
+    private volatile boolean closed;
+    // Chamadas de record em andamento: a gravação só termina depois delas
+    private final AtomicInteger recording = new AtomicInteger();
+
+    // Acessados apenas pela thread de gravação
+    private long generation;
+    private FileOutputStream file;
+    private LocalDateTime fileFirst;
+    private LocalDateTime fileLast;
+
+    public PlantAuditTrail(Path directory, int queueCapacity, int batchSize, long maxFileBytes) {
+        this.directory = directory;
+        this.batchSize = batchSize;
+        this.maxFileBytes = maxFileBytes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        try {
+            Files.createDirectories(directory);
+            List<Long> generations = generations();
+            this.generation = generations.isEmpty() ? 1 : generations.get(generations.size() - 1) + 1;
+        } catch (IOException e) {
+            throw new PlantStorageException("Falha ao abrir a trilha de auditoria de plantas", e);
+        }
+        this.writer = new Thread(this::writeLoop, "plant-audit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Registra um evento sem bloquear; descarta-o se a fila estiver cheia.
+     *
+     * @return {@code true} se o evento foi aceito
+     */
+    public boolean record(PlantAuditEvent event) {
+        // Conta a chamada antes de ler closed: a gravação que já viu closed e nenhuma chamada
+        // em andamento não deixa para trás um evento aceito
+        recording.incrementAndGet();
+        try {
+            if (!closed && queue.offer(event)) {
+                return true;
+            }
+        } finally {
+            recording.decrementAndGet();
+        }
+        if (dropped.getAndIncrement() == 0) {
+            log.warn("Fila de auditoria de plantas cheia ou encerrada; eventos estão sendo descartados");
+        }
+        return false;
+    }
+
+    /**
+     * Busca os eventos de uma planta com data entre {@code from} e {@code to} (inclusive;
+     * nulos não limitam), na ordem em que foram gravados. Arquivos cujo índice mostra eventos
+     * só fora do período não são lidos; sem índice, os cuja última gravação é anterior a
+     * {@code from}.
+     */
+    public List<PlantAuditEvent> find(String code, LocalDateTime from, LocalDateTime to) {
+        List<PlantAuditEvent> events = new ArrayList<>();
+        String codeField = "\"codigo\":" + quote(code);
+        try {
+            for (long fileGeneration : generations()) {
+                Path path = path(fileGeneration);
+                LocalDateTime[] range = readIndex(fileGeneration);
+                if (range != null) {
+                    if ((from != null && range[1].isBefore(from)) || (to != null && range[0].isAfter(to))) {
+                        continue;
+                    }
+                } else if (from != null && lastModified(path).plusSeconds(MODIFIED_TIME_SLACK_SECONDS).isBefore(from)) {
+                    continue;
+                }
+                try (BufferedReader lines = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        // Filtra pelo texto antes de decodificar a linha
+                        if (!line.contains(codeField)) {
+                            continue;
+                        }
+                        PlantAuditEvent event = decode(line);
+                        if (event != null && code.equals(event.getCodigo())
+                                && (from == null || !event.getDataHora().isBefore(from))
+                                && (to == null || !event.getDataHora().isAfter(to))) {
+                            events.add(event);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new PlantStorageException("Falha ao ler a trilha de auditoria de plantas", e);
+        }
+        return events;
+    }
+
+    /**
+     * Eventos descartados por falta de espaço na fila ou por falha de gravação.
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Eventos gravados em disco.
+     */
+    public long writtenCount() {
+        return written.get();
+    }
+
+    /**
+     * Eventos aguardando gravação.
+     */
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Para de aceitar eventos, grava os pendentes e fecha o arquivo atual.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<PlantAuditEvent> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                PlantAuditEvent first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && recording.get() == 0 && queue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeFile();
+        }
+    }
+
+    private void writeBatch(List<PlantAuditEvent> batch) {
+        try {
+            FileOutputStream out = currentFile();
+            // O gerador acumula o lote inteiro e o descarrega em uma única escrita ao fechar
+            try (JsonGenerator generator = jsonFactory.createGenerator(new BufferedOutputStream(out, 64 * 1024))
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.setRootValueSeparator(null);
+                for (PlantAuditEvent event : batch) {
+                    encode(generator, event);
+                    generator.writeRaw('\n');
+                }
+            }
+            written.addAndGet(batch.size());
+            for (PlantAuditEvent event : batch) {
+                if (fileFirst == null || event.getDataHora().isBefore(fileFirst)) {
+                    fileFirst = event.getDataHora();
+                }
+                if (fileLast == null || event.getDataHora().isAfter(fileLast)) {
+                    fileLast = event.getDataHora();
+                }
+            }
+            if (out.getChannel().position() >= maxFileBytes) {
+                closeFile();
+            }
+        } catch (IOException e) {
+            dropped.addAndGet(batch.size());
+            log.error("Falha ao gravar {} eventos de auditoria de plantas", batch.size(), e);
+            closeFile();
+        }
+    }
+
+    private FileOutputStream currentFile() throws FileNotFoundException {
+        if (file == null) {
+            file = new FileOutputStream(path(generation).toFile(), true);
+        }
+        return file;
+    }
+
+    // O próximo lote vai para um novo arquivo: o índice deste não muda mais
+    private void closeFile() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.warn("Falha ao fechar o arquivo de auditoria de plantas", e);
+            }
+            file = null;
+            if (fileFirst != null) {
+                writeIndex(generation, fileFirst, fileLast);
+            }
+            fileFirst = null;
+            fileLast = null;
+            generation++;
+        }
+    }
+
+    private void writeIndex(long fileGeneration, LocalDateTime first, LocalDateTime last) {
+        Path index = index(fileGeneration);
+        Path temporary = index.resolveSibling(index.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, List.of(first.toString(), last.toString()), StandardCharsets.UTF_8);
+            Files.move(temporary, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // Sem índice, o arquivo continua sendo lido nas consultas
+            log.warn("Falha ao gravar o índice do arquivo de auditoria de plantas {}", fileGeneration, e);
+        }
+    }
+
+    // Menor e maior data dos eventos do arquivo, ou null sem um índice legível
+    private static LocalDateTime[] parseIndex(List<String> lines) {
+        if (lines.size() < 2) {
+            return null;
+        }
+        try {
+            return new LocalDateTime[]{LocalDateTime.parse(lines.get(0)), LocalDateTime.parse(lines.get(1))};
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private LocalDateTime[] readIndex(long fileGeneration) throws IOException {
+        try {
+            return parseIndex(Files.readAllLines(index(fileGeneration), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static void encode(JsonGenerator generator, PlantAuditEvent event) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("dataHora", event.getDataHora().toString());
+        generator.writeStringField("operacao", event.getOperacao().name());
+        generator.writeStringField("codigo", event.getCodigo());
+        generator.writeStringField("usuario", event.getUsuario());
+        if (event.getVersao() != null) {
+            generator.writeNumberField("versao", event.getVersao());
+        }
+        if (event.getDescricao() != null) {
+            generator.writeStringField("descricao", event.getDescricao());
+        }
+        generator.writeEndObject();
+    }
+
+    private PlantAuditEvent decode(String line) {
+        try {
+            JsonNode node = reader.readTree(line);
+            return new PlantAuditEvent(
+                    LocalDateTime.parse(node.get("dataHora").asText()),
+                    PlantChangeEvent.Type.valueOf(node.get("operacao").asText()),
+                    node.get("codigo").asText(),
+                    node.path("usuario").asText(null),
+                    node.has("versao") ? node.get("versao").asLong() : null,
+                    node.path("descricao").asText(null));
+        } catch (IOException | RuntimeException e) {
+            // Uma linha incompleta (queda durante a gravação) não impede a leitura das demais
+            log.warn("Linha inválida na trilha de auditoria de plantas ignorada");
+            return null;
+        }
+    }
+
+    private String quote(String value) {
+        try {
+            return reader.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LocalDateTime lastModified(Path path) throws IOException {
+        return LocalDateTime.ofInstant(Files.getLastModifiedTime(path).toInstant(), ZoneId.systemDefault());
+    }
+
+    private List<Long> generations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                generations.add(Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private Path path(long generation) {
+        return directory.resolve(String.format("%s%020d%s", FILE_PREFIX, generation, FILE_SUFFIX));
+    }
+
+    private Path index(long generation) {
+        return directory.resolve(String.format("%s%020d%s", FILE_PREFIX, generation, INDEX_SUFFIX));
+    }
+}
@@ -0,0 +1,52 @@
+package Projeto.java.question8;
+
+import java.util.List;
+
+/**
+ * Resultado de uma operação em lote sobre plantas: os itens processados com sucesso
+ * e os erros de cada item rejeitado, identificados pela posição no lote.
+ */
+public class PlantBatchResult {
+    private final List<Plant> succeeded;
+    private final List<ItemError> errors;
+
+    public PlantBatchResult(List<Plant> succeeded, List<ItemError> errors) {
+        this.succeeded = succeeded;
+        this.errors = errors;
+    }
+
+    public List<Plant> getSucceeded() {
+        return succeeded;
+    }
+
+    public List<ItemError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Erro de um item do lote.
+     */
+    public static class ItemError {
+        private final int index;
+        private final String codigo;
+        private final String message;
+
+        public ItemError(int index, String codigo, String message) {
+            this.index = index;
+            this.codigo = codigo;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getCodigo() {
+            return codigo;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
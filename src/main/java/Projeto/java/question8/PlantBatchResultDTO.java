@@ -0,0 +1,55 @@
+package Projeto.java.question8;
+
+import java.util.List;
+
+/**
+ * DTO com o resumo de uma operação em lote: quantos itens foram processados
+ * e os erros dos itens rejeitados.
+ */
+public class PlantBatchResultDTO {
+    private int succeeded;
+    private int failed;
+    private List<PlantBatchResult.ItemError> errors;
+
+    // Construtores
+    public PlantBatchResultDTO() {
+    }
+
+    public PlantBatchResultDTO(int succeeded, int failed, List<PlantBatchResult.ItemError> errors) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    // Getters e setters
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<PlantBatchResult.ItemError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<PlantBatchResult.ItemError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Cria um DTO a partir do resultado do lote.
+     */
+    public static PlantBatchResultDTO fromResult(PlantBatchResult result) {
+        return new PlantBatchResultDTO(result.getSucceeded().size(), result.getErrors().size(), result.getErrors());
+    }
+}
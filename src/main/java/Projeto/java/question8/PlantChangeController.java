@@ -0,0 +1,248 @@
+package Projeto.java.question8;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transmite as alterações de plantas do {@link PlantChangeLog} como Server-Sent Events.
+ *
+ * <p>Cada evento traz como {@code id} a época do buffer e a sequência ({@code época-sequência}),
+ * o tipo como nome ({@code created}, {@code updated} ou {@code deleted}) e a planta em JSON.
+ * A retomada parte do cabeçalho {@code Last-Event-ID}, que o {@code EventSource} envia ao
+ * reconectar, ou do parâmetro {@code after}; sem eles, só as alterações seguintes são
+ * enviadas. Um assinante que ficou para trás além da capacidade do buffer recebe um evento
+ * {@code gap} com o intervalo de sequências perdidas e continua do evento mais antigo retido.
+ * Um id de outra época (depois de um reinício) ou além da última sequência publicada também
+ * gera um {@code gap}, com {@code reinicio} verdadeiro, e a transmissão recomeça do evento
+ * mais antigo retido: o assinante deve ressincronizar o estado.
+ *
+ * <p>Um pool pequeno verifica periodicamente o buffer com o cursor de cada assinante e
+ * entrega os envios a outro pool, de threads sob demanda, com no máximo um envio em curso
+ * por assinante: quem publica nunca espera por um assinante, e um assinante lento não
+ * atrasa os demais. Um assinante com uma escrita bloqueada por mais de
+ * {@code plant.changes.send-timeout} deixa de ser atendido e o emissor é encerrado com erro
+ * assim que a escrita terminar ou falhar.
+ */
+@RestController
+@RequestMapping("/api/plantas/changes")
+public class PlantChangeController implements Closeable {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    private static final int MAX_EVENTS_PER_POLL = 256;
+
+    private final PlantChangeLog changeLog;
+    private final Duration pollInterval;
+    private final Duration emitterTimeout;
+    private final Duration sendTimeout;
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService sender;
+
+    public PlantChangeController(PlantChangeLog changeLog,
+                                 @Value("${plant.changes.poll-interval:100ms}") Duration pollInterval,
+                                 @Value("${plant.changes.emitter-timeout:30m}") Duration emitterTimeout,
+                                 @Value("${plant.changes.send-timeout:10s}") Duration sendTimeout,
+                                 @Value("${plant.changes.dispatcher-threads:2}") int dispatcherThreads) {
+        this.changeLog = changeLog;
+        this.pollInterval = pollInterval;
+        this.emitterTimeout = emitterTimeout;
+        this.sendTimeout = sendTimeout;
+        this.dispatcher = Executors.newScheduledThreadPool(dispatcherThreads, daemonThreads("plant-changes-"));
+        this.sender = Executors.newCachedThreadPool(daemonThreads("plant-changes-send-"));
+    }
+
+    /**
+     * Assina as alterações de plantas.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId,
+                                    @RequestParam(required = false) String after) {
+        String resumeAfter = lastEventId != null ? lastEventId : after;
+        long lastSequence = changeLog.lastSequence();
+        long nextSequence = lastSequence + 1;
+        boolean reset = false;
+        if (resumeAfter != null) {
+            long sequence = parseSequence(resumeAfter);
+            reset = sequence < 0 || sequence > lastSequence;
+            nextSequence = reset ? 1 : sequence + 1;
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        Subscription subscription = new Subscription(emitter, nextSequence, reset);
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscription.cancel());
+        subscription.schedule(dispatcher.scheduleWithFixedDelay(subscription::poll, 0,
+                pollInterval.toNanos(), TimeUnit.NANOSECONDS));
+        return emitter;
+    }
+
+    /**
+     * Encerra o envio para todos os assinantes.
+     */
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    /**
+     * Sequência de um id {@code época-sequência} desta época, ou de um número sem época;
+     * -1 para um id de outra época ou malformado.
+     */
+    private long parseSequence(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator >= 0 && !eventId.substring(0, separator).equals(changeLog.epoch())) {
+            return -1;
+        }
+        try {
+            long sequence = Long.parseLong(eventId.substring(separator + 1).trim());
+            return sequence < 0 ? -1 : sequence;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Subscription {
+        private final SseEmitter emitter;
+        private volatile long nextSequence;
+        private volatile boolean resetPending;
+        // Início do envio em curso, ou zero: também garante um único envio por vez
+        private volatile long sendingSince;
+        private volatile ScheduledFuture<?> task;
+        private volatile boolean cancelled;
+
+        Subscription(SseEmitter emitter, long nextSequence, boolean reset) {
+            this.emitter = emitter;
+            this.nextSequence = nextSequence;
+            this.resetPending = reset;
+        }
+
+        void schedule(ScheduledFuture<?> task) {
+            this.task = task;
+            if (cancelled) {
+                task.cancel(false);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> current = task;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        // Roda no pool de verificação: nunca escreve no emissor, só agenda o envio
+        void poll() {
+            if (cancelled) {
+                return;
+            }
+            long started = sendingSince;
+            if (started != 0) {
+                if (System.nanoTime() - started > sendTimeout.toNanos()) {
+                    fail(new IOException("Assinante não consumiu os eventos em " + sendTimeout));
+                }
+                return;
+            }
+            if (!resetPending && nextSequence > changeLog.lastSequence()) {
+                return;
+            }
+            sendingSince = System.nanoTime();
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                sendingSince = 0;
+                cancel();
+            }
+        }
+
+        // Roda no pool de envio, um por vez por assinante
+        private void drain() {
+            try {
+                if (resetPending) {
+                    send(SseEmitter.event().name("gap").data(Map.of("reinicio", true), MediaType.APPLICATION_JSON));
+                    resetPending = false;
+                }
+                List<PlantChangeEvent> events;
+                do {
+                    events = changeLog.read(nextSequence, MAX_EVENTS_PER_POLL);
+                    if (!events.isEmpty() && events.get(0).getSequence() > nextSequence) {
+                        sendGap(nextSequence, events.get(0).getSequence() - 1);
+                    }
+                    for (PlantChangeEvent event : events) {
+                        if (cancelled) {
+                            return;
+                        }
+                        send(SseEmitter.event()
+                                .id(changeLog.epoch() + "-" + event.getSequence())
+                                .name(event.getType().name().toLowerCase())
+                                .data(PlantExportDTO.fromEntity(event.getPlant()), MediaType.APPLICATION_JSON));
+                        nextSequence = event.getSequence() + 1;
+                    }
+                } while (events.size() == MAX_EVENTS_PER_POLL && !cancelled);
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado ou emissor já encerrado
+                fail(e);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+
+        // Cada escrita tem o próprio prazo, verificado pelo pool de verificação
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendingSince = System.nanoTime();
+            emitter.send(event);
+        }
+
+        private void sendGap(long from, long to) throws IOException {
+            Map<String, Long> lost = new LinkedHashMap<>();
+            lost.put("de", from);
+            lost.put("ate", to);
+            send(SseEmitter.event().name("gap").data(lost, MediaType.APPLICATION_JSON));
+        }
+
+        private void fail(Exception e) {
+            if (cancelled) {
+                return;
+            }
+            cancel();
+            // Os métodos do emissor são sincronizados: com uma escrita bloqueada, encerrar na
+            // thread de verificação a prenderia até a escrita terminar
+            try {
+                sender.execute(() -> emitter.completeWithError(e));
+            } catch (RejectedExecutionException rejected) {
+                // Controlador encerrado
+            }
+        }
+    }
+}
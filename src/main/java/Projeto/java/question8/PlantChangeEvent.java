@@ -0,0 +1,40 @@
+package Projeto.java.question8;
+
+/**
+ * Alteração de uma planta publicada no {@link PlantChangeLog}. A planta é uma cópia
+ * do estado confirmado no repositório; em exclusões, o último estado conhecido.
+ */
+public final class PlantChangeEvent {
+
+    /**
+     * Tipo da alteração.
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final Plant plant;
+
+    PlantChangeEvent(long sequence, Type type, Plant plant) {
+        this.sequence = sequence;
+        this.type = type;
+        this.plant = plant;
+    }
+
+    /**
+     * Número de sequência, crescente e sem lacunas na ordem de publicação, a partir de 1.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Plant getPlant() {
+        return plant;
+    }
+}
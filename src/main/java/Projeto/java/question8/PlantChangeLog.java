@@ -0,0 +1,111 @@
+package Projeto.java.question8;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer circular limitado e sem bloqueios com as últimas alterações de plantas.
+ *
+ * <p>Cada publicação reserva um número de sequência com um incremento atômico e grava
+ * o evento na posição correspondente, sobrescrevendo o evento de uma volta anterior:
+ * quem publica nunca espera por quem lê. Cada leitor mantém o próprio cursor e lê do
+ * buffer sem removê-lo, então vários leitores não disputam entre si; um leitor que fica
+ * mais de {@code capacity} eventos para trás perde os mais antigos e percebe a lacuna
+ * pela sequência do primeiro evento lido.
+ *
+ * <p>A ordem das sequências é a ordem de publicação, que sucede a escrita no repositório;
+ * para alterações simultâneas da mesma planta, a versão da planta no evento é a referência.
+ *
+ * <p>As sequências recomeçam em 1 a cada instância; a {@link #epoch() época} identifica a
+ * instância, para que um leitor distinga uma sequência antiga de uma reiniciada.
+ */
+public class PlantChangeLog {
+
+    private final AtomicReferenceArray<PlantChangeEvent> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX)
+            + Integer.toString(ThreadLocalRandom.current().nextInt(Character.MAX_RADIX * Character.MAX_RADIX), Character.MAX_RADIX);
+
+    /**
+     * @param capacity quantidade de eventos retidos, arredondada para a próxima potência de dois
+     */
+    public PlantChangeLog(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publica uma alteração com uma cópia da planta informada.
+     */
+    public PlantChangeEvent publish(PlantChangeEvent.Type type, Plant plant) {
+        long sequence = nextSequence.getAndIncrement();
+        PlantChangeEvent event = new PlantChangeEvent(sequence, type, new Plant(plant));
+        int index = (int) sequence & mask;
+        // Um publicador atrasado não sobrescreve o evento de uma volta mais recente
+        PlantChangeEvent current;
+        do {
+            current = slots.get(index);
+            if (current != null && current.getSequence() > sequence) {
+                return event;
+            }
+        } while (!slots.compareAndSet(index, current, event));
+        return event;
+    }
+
+    /**
+     * Lê até {@code maxEvents} eventos em ordem, a partir da sequência {@code fromSequence}
+     * ou do mais antigo ainda retido, se ela já foi sobrescrita. Para antes de uma sequência
+     * reservada mas ainda não gravada, para não entregar eventos fora de ordem.
+     */
+    public List<PlantChangeEvent> read(long fromSequence, int maxEvents) {
+        List<PlantChangeEvent> events = new ArrayList<>();
+        long sequence = Math.max(fromSequence, oldestSequence());
+        while (events.size() < maxEvents && sequence < nextSequence.get()) {
+            PlantChangeEvent event = slots.get((int) sequence & mask);
+            if (event == null || event.getSequence() < sequence) {
+                break;
+            }
+            if (event.getSequence() > sequence) {
+                // Sobrescrito durante a leitura: salta para o mais antigo retido
+                sequence = Math.max(sequence + 1, oldestSequence());
+                continue;
+            }
+            events.add(event);
+            sequence++;
+        }
+        return events;
+    }
+
+    /**
+     * Sequência do último evento publicado, ou zero se nenhum foi publicado.
+     */
+    public long lastSequence() {
+        return nextSequence.get() - 1;
+    }
+
+    /**
+     * Identificador desta instância do buffer, diferente a cada criação, sem hífens.
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * Quantidade máxima de eventos retidos.
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    private long oldestSequence() {
+        return Math.max(1, nextSequence.get() - slots.length());
+    }
+}
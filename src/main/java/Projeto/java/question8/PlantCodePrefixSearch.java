@@ -0,0 +1,84 @@
+package Projeto.java.question8;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Busca por prefixo de código sobre as consultas por intervalo de um {@link PlantRepository}.
+ *
+ * <p>Na ordem numérica, os códigos que começam com um prefixo sem zeros à esquerda e têm
+ * {@code k} dígitos a mais formam o intervalo contínuo de {@code prefixo+"0"*k} a
+ * {@code prefixo+"9"*k}. A busca consulta esses intervalos do menor {@code k} para o maior
+ * até completar o limite ou não haver códigos maiores, então faz uma consulta por dígito
+ * acrescentado: em repositórios com índice ordenado, o custo depende do tamanho dos códigos
+ * e do limite, e não da quantidade de plantas.
+ */
+final class PlantCodePrefixSearch {
+
+    private PlantCodePrefixSearch() {
+    }
+
+    /**
+     * Busca até {@code limit} plantas cujo código começa com {@code prefix}, na ordem numérica.
+     */
+    static List<Plant> find(PlantRepository repository, String prefix, int limit) {
+        List<Plant> result = new ArrayList<>(Math.min(limit, 64));
+        if (limit <= 0) {
+            return result;
+        }
+        if (hasOnlyZeros(prefix)) {
+            // Zeros à esquerda não mudam o valor: esses códigos se espalham por toda a ordem numérica
+            try (Stream<Plant> plants = repository.streamAll()) {
+                plants.filter(plant -> plant.getCodigo().startsWith(prefix))
+                        .limit(limit)
+                        .forEach(result::add);
+            }
+            return result;
+        }
+
+        StringBuilder low = new StringBuilder(prefix);
+        StringBuilder high = new StringBuilder(prefix);
+        while (true) {
+            String to = high.toString();
+            collectRange(repository, prefix, low.toString(), to, limit, result);
+            if (result.size() >= limit || repository.findAllAfter(to, 1).isEmpty()) {
+                return result;
+            }
+            low.append('0');
+            high.append('9');
+        }
+    }
+
+    // O intervalo também contém os mesmos valores com outros zeros à esquerda; eles são
+    // descartados e a consulta continua do último código lido até completar o limite
+    private static void collectRange(PlantRepository repository, String prefix, String from, String to,
+                                     int limit, List<Plant> result) {
+        String start = from;
+        boolean afterStart = false;
+        while (true) {
+            int page = limit - result.size() + (afterStart ? 1 : 0);
+            List<Plant> plants = repository.findByCodeRange(start, to, page);
+            for (Plant plant : plants) {
+                String code = plant.getCodigo();
+                if (result.size() < limit && code.startsWith(prefix) && !(afterStart && code.equals(start))) {
+                    result.add(plant);
+                }
+            }
+            if (plants.size() < page || result.size() >= limit) {
+                return;
+            }
+            start = plants.get(plants.size() - 1).getCodigo();
+            afterStart = true;
+        }
+    }
+
+    private static boolean hasOnlyZeros(String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (prefix.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package Projeto.java.question8;
+
+import java.util.Comparator;
+
+/**
+ * Utilitários para códigos de planta.
+ */
+public final class PlantCodes {
+
+    /**
+     * Ordena códigos pelo seu valor numérico sem convertê-los, o que aceita códigos
+     * de qualquer tamanho. Códigos com o mesmo valor ("7" e "007") são desempatados
+     * pelo texto original, mantendo a ordem total.
+     */
+    public static final Comparator<String> NUMERIC_ORDER = PlantCodes::compareNumeric;
+
+    private PlantCodes() {
+    }
+
+    private static int compareNumeric(String a, String b) {
+        int startA = firstSignificantDigit(a);
+        int startB = firstSignificantDigit(b);
+
+        int byLength = Integer.compare(a.length() - startA, b.length() - startB);
+        if (byLength != 0) {
+            return byLength;
+        }
+
+        for (int i = startA, j = startB; i < a.length(); i++, j++) {
+            int byDigit = Character.compare(a.charAt(i), b.charAt(j));
+            if (byDigit != 0) {
+                return byDigit;
+            }
+        }
+        return a.compareTo(b);
+    }
+
+    private static int firstSignificantDigit(String code) {
+        int i = 0;
+        while (i < code.length() - 1 && code.charAt(i) == '0') {
+            i++;
+        }
+        return i;
+    }
+}
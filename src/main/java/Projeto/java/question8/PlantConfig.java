@@ -1,7 +1,25 @@
 package Projeto.java.question8;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuração do sistema de gerenciamento de plantas.
@@ -10,26 +28,245 @@ import org.springframework.context.annotation.Configuration;
 public class PlantConfig {
     
     /**
-     * Cria o bean do repositório de plantas.
+     * Cria o bean do repositório de plantas conforme a propriedade {@code plant.repository.type}:
+     * {@code memory} (padrão), {@code offheap} ou {@code jdbc}, este no {@link DataSource} da
+     * aplicação (propriedades {@code spring.datasource.*}). Com {@code plant.repository.shards} maior que 1,
+     * os tipos em memória são particionados em vários repositórios por hash do código.
+     * Com {@code plant.repository.persistence.enabled},
+     * o repositório é envolvido por um log de escrita antecipada com snapshots periódicos.
+     * Com {@code plant.cache.enabled}, as buscas por código passam por um cache de leitura e,
+     * com {@code plant.metrics.repository.enabled}, as operações são medidas no Micrometer.
+     */
+    @Bean
+    public PlantRepository plantRepository(@Value("${plant.repository.type:memory}") String type,
+                                           @Value("${plant.repository.offheap.initial-capacity:1024}") int offHeapInitialCapacity,
+                                           @Value("${plant.repository.shards:1}") int shards,
+                                           @Value("${plant.repository.id-block-size:1024}") int idBlockSize,
+                                           @Value("${plant.repository.persistence.enabled:false}") boolean persistent,
+                                           @Value("${plant.repository.persistence.directory:data/plants}") String directory,
+                                           @Value("${plant.repository.persistence.fsync:true}") boolean fsync,
+                                           @Value("${plant.repository.persistence.snapshot-interval:5m}") Duration snapshotInterval,
+                                           @Value("${plant.cache.enabled:false}") boolean cached,
+                                           @Value("${plant.cache.maximum-size:10000}") long cacheMaximumSize,
+                                           @Value("${plant.cache.ttl:0s}") Duration cacheTtl,
+                                           @Value("${plant.metrics.repository.enabled:true}") boolean metered,
+                                           MeterRegistry meterRegistry,
+                                           ObjectProvider<DataSource> dataSource) {
+        PlantRepository repository;
+        if (shards > 1) {
+            if ("jdbc".equals(type)) {
+                throw new IllegalStateException("O repositório jdbc não é particionado; use plant.repository.shards=1");
+            }
+            List<PlantRepository> stores = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                stores.add(createStore(type, Math.max(16, offHeapInitialCapacity / shards), dataSource));
+            }
+            // Shards em processo respondem rápido demais para compensar consultas em paralelo
+            repository = new ShardedPlantRepository(stores, Runnable::run, idBlockSize);
+        } else {
+            repository = createStore(type, offHeapInitialCapacity, dataSource);
+        }
+        if (persistent) {
+            if (repository instanceof JdbcPlantRepository) {
+                throw new IllegalStateException("O repositório jdbc já é persistente; desative plant.repository.persistence.enabled");
+            }
+            repository = new DurablePlantRepository(repository, Paths.get(directory), fsync, snapshotInterval);
+        }
+        if (cached) {
+            CachingPlantRepository cachingRepository = new CachingPlantRepository(repository, cacheMaximumSize, cacheTtl);
+            CaffeineCacheMetrics.monitor(meterRegistry, cachingRepository.cache(), "plants");
+            repository = cachingRepository;
+        }
+        if (metered) {
+            repository = new MeteredPlantRepository(repository, meterRegistry);
+        }
+        return repository;
+    }
+
+    private PlantRepository createStore(String type, int offHeapInitialCapacity, ObjectProvider<DataSource> dataSource) {
+        switch (type) {
+            case "memory":
+                return new InMemoryPlantRepository();
+            case "offheap":
+                return new OffHeapPlantRepository(offHeapInitialCapacity);
+            case "jdbc":
+                JdbcPlantRepository jdbcRepository = new JdbcPlantRepository(dataSource.getObject());
+                jdbcRepository.createSchemaIfAbsent();
+                return jdbcRepository;
+            default:
+                throw new IllegalStateException("Tipo de repositório de plantas desconhecido: " + type);
+        }
+    }
+    
+    /**
+     * Cria o conversor HTTP do formato binário Smile, com as mesmas configurações do
+     * {@code ObjectMapper} JSON da aplicação.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(PlantController.newSmileFactory()).build());
+    }
+    
+    /**
+     * Cria o bean que conta as exceções do sistema de plantas por tipo.
+     */
+    @Bean
+    public PlantExceptionMetrics plantExceptionMetrics(MeterRegistry meterRegistry) {
+        return new PlantExceptionMetrics(meterRegistry);
+    }
+    
+    /**
+     * Registra o filtro de controle de admissão na frente de {@code /api/plantas}: cada cliente
+     * pode fazer {@code plant.admission.client-rate} requisições por segundo (0 desativa) com
+     * rajadas de {@code plant.admission.client-burst} (o cliente é o usuário reconhecido pelo
+     * token ou, sem ele, o endereço remoto), e cada classe de endpoint (leitura,
+     * escrita, busca) tem um limite de requisições simultâneas ajustado pela latência entre
+     * {@code plant.admission.min-limit} e {@code plant.admission.max-limit}.
+     *
+     * <p>O filtro só é registrado com {@code plant.admission.enabled=true}: atrás de um proxy,
+     * o endereço remoto é o do proxy e todos os clientes sem token dividiriam a mesma cota, a
+     * menos que {@code server.forward-headers-strategy} esteja configurado para resolvê-lo
+     * pelos cabeçalhos encaminhados.
+     */
+    @Bean
+    public FilterRegistrationBean<PlantAdmissionFilter> plantAdmissionFilter(
+            @Value("${plant.admission.enabled:false}") boolean enabled,
+            @Value("${plant.admission.client-rate:100}") double clientRate,
+            @Value("${plant.admission.client-burst:200}") int clientBurst,
+            @Value("${plant.admission.client-idle-timeout:10m}") Duration clientIdleTimeout,
+            @Value("${plant.admission.client-max-tracked:100000}") long clientMaxTracked,
+            @Value("${plant.admission.initial-limit:20}") int initialLimit,
+            @Value("${plant.admission.min-limit:4}") int minLimit,
+            @Value("${plant.admission.max-limit:200}") int maxLimit,
+            MeterRegistry meterRegistry, UserService userService) {
+        PlantAdmissionControl admissionControl = new PlantAdmissionControl(clientRate, clientBurst, clientIdleTimeout,
+                clientMaxTracked, initialLimit, minLimit, maxLimit, meterRegistry);
+        IdentityUserService identities = userService instanceof IdentityUserService ? (IdentityUserService) userService : null;
+        FilterRegistrationBean<PlantAdmissionFilter> registration =
+                new FilterRegistrationBean<>(new PlantAdmissionFilter(admissionControl, identities));
+        registration.addUrlPatterns(PlantAdmissionFilter.BASE_PATH, PlantAdmissionFilter.BASE_PATH + "/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+    
+    /**
+     * Cria o bean do serviço de usuários conforme {@code plant.users.type}: {@code simple}
+     * (padrão, usuário fixo) ou {@code identity}, que resolve o token de cada requisição no
+     * arquivo {@code plant.users.identity-file} (sem arquivo, em um repositório em memória vazio)
+     * e guarda os usuários resolvidos em cache, medido no Micrometer.
+     */
+    @Bean
+    public UserService userService(@Value("${plant.users.type:simple}") String type,
+                                   @Value("${plant.users.identity-file:}") String identityFile,
+                                   @Value("${plant.users.cache.ttl:10m}") Duration cacheTtl,
+                                   @Value("${plant.users.cache.negative-ttl:10s}") Duration cacheNegativeTtl,
+                                   @Value("${plant.users.cache.refresh-after:1m}") Duration cacheRefreshAfter,
+                                   @Value("${plant.users.cache.maximum-size:10000}") long cacheMaximumSize,
+                                   @Value("${plant.users.anonymous:anonimo}") String anonymousUsername,
+                                   MeterRegistry meterRegistry) {
+        switch (type) {
+            case "simple":
+                return new SimpleUserService();
+            case "identity":
+                IdentityStore store = identityFile.isEmpty()
+                        ? new InMemoryIdentityStore()
+                        : InMemoryIdentityStore.load(Paths.get(identityFile));
+                IdentityUserService userService = new IdentityUserService(store, cacheTtl, cacheNegativeTtl,
+                        cacheRefreshAfter, cacheMaximumSize, anonymousUsername);
+                CaffeineCacheMetrics.monitor(meterRegistry, userService.cache(), "users");
+                return userService;
+            default:
+                throw new IllegalStateException("Tipo de serviço de usuários desconhecido: " + type);
+        }
+    }
+    
+    /**
+     * Cria o bean do buffer com as últimas {@code plant.changes.capacity} alterações de plantas,
+     * transmitidas em {@code /api/plantas/changes}.
+     */
+    @Bean
+    public PlantChangeLog plantChangeLog(@Value("${plant.changes.capacity:4096}") int capacity) {
+        return new PlantChangeLog(capacity);
+    }
+    
+    /**
+     * Cria o bean da trilha de auditoria, gravada em lotes por uma thread de fundo em arquivos
+     * de até {@code plant.audit.max-file-size} no diretório {@code plant.audit.directory}.
+     * Os eventos pendentes, gravados e descartados são expostos no Micrometer.
+     */
+    @Bean
+    public PlantAuditTrail plantAuditTrail(@Value("${plant.audit.directory:data/audit}") String directory,
+                                           @Value("${plant.audit.queue-capacity:65536}") int queueCapacity,
+                                           @Value("${plant.audit.batch-size:512}") int batchSize,
+                                           @Value("${plant.audit.max-file-size:64MB}") DataSize maxFileSize,
+                                           MeterRegistry meterRegistry) {
+        PlantAuditTrail auditTrail = new PlantAuditTrail(Paths.get(directory), queueCapacity, batchSize, maxFileSize.toBytes());
+        Gauge.builder("plant.audit.pending", auditTrail, PlantAuditTrail::pendingCount)
+                .description("Eventos de auditoria aguardando gravação")
+                .register(meterRegistry);
+        FunctionCounter.builder("plant.audit.written", auditTrail, PlantAuditTrail::writtenCount)
+                .description("Eventos de auditoria gravados")
+                .register(meterRegistry);
+        FunctionCounter.builder("plant.audit.dropped", auditTrail, PlantAuditTrail::droppedCount)
+                .description("Eventos de auditoria descartados")
+                .register(meterRegistry);
+        return auditTrail;
+    }
+    
+    /**
+     * Cria o bean do cache do JSON já serializado das plantas, com até
+     * {@code plant.json-cache.maximum-size} plantas, exposto no Micrometer como {@code plant-json}.
+     */
+    @Bean
+    public PlantJsonCache plantJsonCache(ObjectMapper objectMapper,
+                                         @Value("${plant.json-cache.maximum-size:10000}") long maximumSize,
+                                         MeterRegistry meterRegistry) {
+        PlantJsonCache jsonCache = new PlantJsonCache(objectMapper, maximumSize);
+        CaffeineCacheMetrics.monitor(meterRegistry, jsonCache.cache(), "plant-json");
+        return jsonCache;
+    }
+    
+    /**
+     * Cria o bean das respostas de criações e atualizações feitas com {@code Idempotency-Key}:
+     * até {@code plant.idempotency.maximum-size} chaves, cada uma repetida por
+     * {@code plant.idempotency.ttl}, expostas no Micrometer como {@code plant-idempotency}.
+     */
+    @Bean
+    public PlantIdempotencyStore plantIdempotencyStore(@Value("${plant.idempotency.maximum-size:100000}") long maximumSize,
+                                                       @Value("${plant.idempotency.ttl:24h}") Duration ttl,
+                                                       MeterRegistry meterRegistry) {
+        PlantIdempotencyStore idempotencyStore = new PlantIdempotencyStore(maximumSize, ttl);
+        CaffeineCacheMetrics.monitor(meterRegistry, idempotencyStore.cache(), "plant-idempotency");
+        return idempotencyStore;
+    }
+    
+    /**
+     * Cria o bean do serviço de plantas, que publica as alterações no buffer de alterações
+     * e na trilha de auditoria e invalida o JSON em cache das plantas alteradas.
      */
     @Bean
-    public PlantRepository plantRepository() {
-        return new InMemoryPlantRepository();
+    public PlantService plantService(PlantRepository plantRepository, UserService userService, PlantChangeLog plantChangeLog,
+                                     PlantAuditTrail plantAuditTrail, PlantJsonCache plantJsonCache) {
+        return new PlantService(plantRepository, userService, plantChangeLog, plantAuditTrail, plantJsonCache);
     }
     
     /**
-     * Cria o bean do serviço de usuários.
+     * Cria o bean do repositório reativo sobre o repositório configurado. As chamadas
+     * bloqueantes rodam no scheduler elástico limitado do Reactor.
      */
     @Bean
-    public UserService userService() {
-        return new SimpleUserService();
+    public ReactivePlantRepository reactivePlantRepository(PlantRepository plantRepository) {
+        return new BlockingPlantRepositoryAdapter(plantRepository, Schedulers.boundedElastic());
     }
     
     /**
-     * Cria o bean do serviço de plantas.
+     * Cria o bean do serviço reativo de plantas, que publica e invalida como o serviço síncrono.
      */
     @Bean
-    public PlantService plantService(PlantRepository plantRepository, UserService userService) {
-        return new PlantService(plantRepository, userService);
+    public ReactivePlantService reactivePlantService(ReactivePlantRepository reactivePlantRepository, UserService userService,
+                                                     PlantChangeLog plantChangeLog, PlantAuditTrail plantAuditTrail,
+                                                     PlantJsonCache plantJsonCache) {
+        return new ReactivePlantService(reactivePlantRepository, userService, plantChangeLog, plantAuditTrail,
+                plantJsonCache);
     }
 }
\ No newline at end of file
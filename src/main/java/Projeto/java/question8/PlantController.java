@@ -1,73 +1,298 @@
 package Projeto.java.question8;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controlador REST para gerenciamento de plantas.
+ *
+ * <p>Além de JSON, as consultas, a exportação e a criação em lote aceitam o formato binário
+ * Smile ({@value #APPLICATION_SMILE_VALUE}), escolhido pelos cabeçalhos {@code Accept} e
+ * {@code Content-Type}: o mesmo modelo de dados do JSON, com nomes de campos e textos
+ * repetidos codificados como referências, mais compacto e mais barato de decodificar.
+ *
+ * <p>As respostas JSON de plantas são montadas com os fragmentos já serializados do
+ * {@link PlantJsonCache}; só as respostas Smile criam DTOs e passam pelo Jackson.
  */
 @RestController
 @RequestMapping("/api/plantas")
 public class PlantController {
     
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+    static final String SMILE_ETAG_SUFFIX = "-smile";
+    
+    private static final int EXPORT_BUFFER_SIZE = 8192;
+    private static final int SUGGESTION_LIMIT = 10;
+    private static final SmileFactory SMILE_FACTORY = newSmileFactory();
+    
     private final PlantService plantService;
+    private final ObjectMapper objectMapper;
+    private final PlantJsonCache jsonCache;
+    private final PlantIdempotencyStore idempotencyStore;
+    private final IdentityUserService identities;
     
-    public PlantController(PlantService plantService) {
+    public PlantController(PlantService plantService, ObjectMapper objectMapper, PlantJsonCache jsonCache,
+                           PlantIdempotencyStore idempotencyStore, UserService userService) {
         this.plantService = plantService;
+        this.objectMapper = objectMapper;
+        this.jsonCache = jsonCache;
+        this.idempotencyStore = idempotencyStore;
+        this.identities = userService instanceof IdentityUserService ? (IdentityUserService) userService : null;
     }
     
     /**
-     * Cria uma nova planta.
+     * Cria uma nova planta. Com {@code Idempotency-Key}, repetições da requisição recebem a
+     * resposta da primeira criação em vez de 409.
      */
     @PostMapping
-    public ResponseEntity<PlantDTO> createPlant(@RequestBody PlantDTO plantDTO) {
-        Plant plant = plantService.createPlant(plantDTO.toEntity());
-        return new ResponseEntity<>(PlantDTO.fromEntity(plant), HttpStatus.CREATED);
+    public ResponseEntity<PlantDTO> createPlant(@RequestBody PlantDTO plantDTO,
+                                                @RequestHeader(value = PlantIdempotencyStore.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                HttpServletRequest request) {
+        boolean smile = acceptsSmile(accept, MediaType.APPLICATION_JSON);
+        return idempotent("POST /api/plantas", request, idempotencyKey,
+                Arrays.asList(plantDTO.getCodigo(), plantDTO.getDescricao(), smile), () -> {
+                    Plant plant = plantService.createPlant(plantDTO.toEntity());
+                    return ResponseEntity.status(HttpStatus.CREATED)
+                            .eTag(etag(plant, smile))
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(PlantDTO.fromEntity(plant));
+                });
+    }
+    
+    /**
+     * Cria várias plantas a partir de um array JSON ou Smile, reportando os erros por item.
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<PlantBatchResultDTO> createPlants(@RequestBody List<PlantDTO> plantDTOs) {
+        List<Plant> plants = plantDTOs.stream()
+                .map(PlantDTO::toEntity)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(PlantBatchResultDTO.fromResult(plantService.createPlants(plants)));
+    }
+    
+    /**
+     * Cria várias plantas a partir de NDJSON (um objeto JSON por linha), lido incrementalmente.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<PlantBatchResultDTO> createPlantsFromNdjson(InputStream body) throws IOException {
+        List<Plant> plants = new ArrayList<>();
+        try (MappingIterator<PlantDTO> dtos = objectMapper.readerFor(PlantDTO.class).readValues(body)) {
+            while (dtos.hasNext()) {
+                plants.add(dtos.next().toEntity());
+            }
+        }
+        return ResponseEntity.ok(PlantBatchResultDTO.fromResult(plantService.createPlants(plants)));
     }
     
     /**
-     * Atualiza uma planta existente.
+     * Atualiza uma planta existente. Com {@code If-Match}, a atualização só ocorre se a
+     * planta ainda estiver na versão informada; caso contrário responde 412. Com
+     * {@code Idempotency-Key}, repetições da requisição recebem a resposta da primeira
+     * atualização sem alterar a planta de novo.
      */
     @PutMapping("/{code}")
-    public ResponseEntity<PlantDTO> updatePlant(@PathVariable String code, @RequestBody PlantDTO plantDTO) {
-        Plant plant = plantService.updatePlant(code, plantDTO.toEntity());
-        return ResponseEntity.ok(PlantDTO.fromEntity(plant));
+    public ResponseEntity<PlantDTO> updatePlant(@PathVariable String code, @RequestBody PlantDTO plantDTO,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                @RequestHeader(value = PlantIdempotencyStore.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                HttpServletRequest request) {
+        boolean smile = acceptsSmile(accept, MediaType.APPLICATION_JSON);
+        return idempotent("PUT /api/plantas/" + code, request, idempotencyKey,
+                Arrays.asList(plantDTO.getCodigo(), plantDTO.getDescricao(), ifMatch, smile), () -> {
+                    PlantTag expected = parseIfMatch(ifMatch);
+                    Plant plant = expected == null
+                            ? plantService.updatePlant(code, plantDTO.toEntity())
+                            : plantService.updatePlant(code, plantDTO.toEntity(), expected.id, expected.version);
+                    return ResponseEntity.ok()
+                            .eTag(etag(plant, smile))
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(PlantDTO.fromEntity(plant));
+                });
     }
     
     /**
-     * Busca uma planta pelo código.
+     * Busca uma planta pelo código. Com {@code If-None-Match} igual à versão atual,
+     * responde 304 sem converter nem serializar a planta; sem ele, o JSON vem do cache.
+     * O ETag da resposta Smile é outro, já que os bytes da representação são outros.
      */
     @GetMapping("/{code}")
-    public ResponseEntity<PlantDTO> getPlantByCode(@PathVariable String code) {
-        return plantService.findPlantByCode(code)
-                .map(plant -> ResponseEntity.ok(PlantDTO.fromEntity(plant)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getPlantByCode(@PathVariable String code, WebRequest request) {
+        Optional<Plant> plant = plantService.findPlantByCode(code);
+        if (plant.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        boolean smile = acceptsSmile(request);
+        String etag = etag(plant.get(), smile);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT);
+        return smile
+                ? response.body(PlantDTO.fromEntity(plant.get()))
+                : response.contentType(MediaType.APPLICATION_JSON).body(jsonCache.json(plant.get()));
     }
     
     /**
-     * Busca plantas pela descrição.
+     * Busca plantas pela descrição. Com {@code fuzzy}, tolera até esse número de edições
+     * (erros de digitação) na descrição inteira e ordena pela distância; sem ele, busca
+     * as descrições que contêm o texto.
      */
     @GetMapping("/search")
-    public ResponseEntity<List<PlantDTO>> searchPlantsByDescription(@RequestParam String description) {
-        List<PlantDTO> plants = plantService.findPlantsByDescription(description).stream()
-                .map(PlantDTO::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(plants);
+    public ResponseEntity<?> searchPlantsByDescription(@RequestParam String description,
+                                                       @RequestParam(required = false) Integer fuzzy,
+                                                       WebRequest request) {
+        boolean smile = acceptsSmile(request);
+        String etag = collectionEtag(smile);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        
+        List<Plant> plants = fuzzy == null
+                ? plantService.findPlantsByDescription(description)
+                : plantService.findPlantsByDescriptionSimilar(description, fuzzy);
+        return collectionResponse(etag, plants, smile);
     }
     
     /**
-     * Busca todas as plantas.
+     * Busca todas as plantas. O ETag é a revisão do repositório, então consultas repetidas
+     * sem alterações nos dados respondem 304 sem montar a lista.
      */
     @GetMapping
-    public ResponseEntity<List<PlantDTO>> getAllPlants() {
-        List<PlantDTO> plants = plantService.findAllPlants().stream()
-                .map(PlantDTO::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(plants);
+    public ResponseEntity<?> getAllPlants(WebRequest request) {
+        boolean smile = acceptsSmile(request);
+        String etag = collectionEtag(smile);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        
+        return collectionResponse(etag, plantService.findAllPlants(), smile);
+    }
+    
+    /**
+     * Busca uma página de plantas após o cursor informado, na ordem dos códigos.
+     * Uma página cheia traz o cursor da próxima; a última página pode vir vazia. Com
+     * {@code stream=true}, a requisição vai para a transmissão completa.
+     */
+    @GetMapping(params = {"limit", "stream!=true"})
+    public ResponseEntity<?> getPlantsPage(@RequestParam(required = false) String after,
+                                           @RequestParam int limit, WebRequest request) {
+        boolean smile = acceptsSmile(request);
+        String etag = collectionEtag(smile);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        
+        List<Plant> plants = plantService.findPlantsAfter(after, limit);
+        String nextCursor = plants.size() == limit ? plants.get(plants.size() - 1).getCodigo() : null;
+        if (smile) {
+            return collectionResponse(etag, new PlantPageDTO(toDtos(plants), nextCursor));
+        }
+        return jsonResponse(etag, jsonCache.jsonPage(plants, nextCursor));
+    }
+    
+    /**
+     * Busca plantas com código dentro do intervalo informado (inclusive), na ordem dos códigos.
+     */
+    @GetMapping("/range")
+    public ResponseEntity<?> getPlantsByCodeRange(@RequestParam String from,
+                                                  @RequestParam String to,
+                                                  @RequestParam(defaultValue = "" + PlantService.MAX_PAGE_SIZE) int limit,
+                                                  WebRequest request) {
+        boolean smile = acceptsSmile(request);
+        String etag = collectionEtag(smile);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        
+        return collectionResponse(etag, plantService.findPlantsByCodeRange(from, to, limit), smile);
+    }
+    
+    /**
+     * Sugere plantas cujo código começa com {@code prefix}, para preenchimento automático:
+     * até {@code limit} códigos, dos mais curtos para os mais longos.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestPlants(@RequestParam String prefix,
+                                           @RequestParam(defaultValue = "" + SUGGESTION_LIMIT) int limit,
+                                           WebRequest request) {
+        boolean smile = acceptsSmile(request);
+        String etag = collectionEtag(smile);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        
+        return collectionResponse(etag, plantService.suggestPlantsByCodePrefix(prefix, limit), smile);
+    }
+    
+    /**
+     * Transmite todas as plantas como um array JSON, escrevendo o fragmento de cada uma
+     * à medida que é lida do repositório, sem montar a lista completa em memória.
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllPlants() {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<Plant> plants = plantService.streamAllPlants();
+                 OutputStream target = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE)) {
+                jsonCache.writeArray(plants.iterator(), target);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+    
+    /**
+     * Exporta o catálogo em NDJSON, uma planta completa por linha, lendo do repositório
+     * à medida que escreve; o consumo de memória não depende do tamanho do catálogo.
+     * Se o cliente pedir Smile, escreve uma sequência de valores Smile no lugar das linhas.
+     * Com {@code modifiedSince}, só as plantas modificadas nesse instante ou depois.
+     * A resposta é comprimida com gzip quando o cliente aceita.
+     */
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportPlants(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime modifiedSince,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return export(modifiedSince, acceptEncoding, acceptsSmile(accept, MediaType.APPLICATION_NDJSON));
     }
     
     /**
@@ -79,6 +304,22 @@ public class PlantController {
         return ResponseEntity.noContent().build();
     }
     
+    /**
+     * Exclui as plantas de um array JSON de códigos, reportando os códigos não excluídos.
+     */
+    @DeleteMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PlantBatchResultDTO> deletePlants(@RequestBody List<String> codes) {
+        return ResponseEntity.ok(PlantBatchResultDTO.fromResult(plantService.deletePlants(codes)));
+    }
+    
+    /**
+     * Exclui as plantas com código entre {@code from} e {@code to} (inclusive).
+     */
+    @DeleteMapping(params = {"from", "to"})
+    public ResponseEntity<PlantBatchResultDTO> deletePlantsByCodeRange(@RequestParam String from, @RequestParam String to) {
+        return ResponseEntity.ok(PlantBatchResultDTO.fromResult(plantService.deletePlantsByCodeRange(from, to)));
+    }
+    
     /**
      * Manipulador de exceções para DuplicateCodeException.
      */
@@ -103,6 +344,22 @@ public class PlantController {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
     
+    /**
+     * Manipulador de exceções para VersionConflictException.
+     */
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<String> handleVersionConflictException(VersionConflictException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+    
+    /**
+     * Manipulador de exceções para IdempotencyKeyReuseException.
+     */
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<String> handleIdempotencyKeyReuseException(IdempotencyKeyReuseException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+    
     /**
      * Manipulador de exceções para UnauthorizedOperationException.
      */
@@ -110,4 +367,220 @@ public class PlantController {
     public ResponseEntity<String> handleUnauthorizedOperationException(UnauthorizedOperationException ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.FORBIDDEN);
     }
+    
+    /**
+     * Cria a fábrica Smile usada nas respostas binárias; além dos nomes de campos, os
+     * textos curtos repetidos (como os usuários de auditoria) viram referências.
+     */
+    static SmileFactory newSmileFactory() {
+        return SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+    }
+    
+    // Linhas NDJSON vêm dos fragmentos em cache; valores Smile são serializados e já são delimitados
+    private ResponseEntity<StreamingResponseBody> export(LocalDateTime modifiedSince, String acceptEncoding,
+                                                         boolean smile) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ObjectWriter writer = objectMapper.writerFor(PlantExportDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            // O Deflater do gzip só é criado depois da consulta e é liberado mesmo se ela falhar
+            try (Stream<Plant> plants = plantService.streamPlantsModifiedSince(modifiedSince);
+                 OutputStream target = gzip
+                         ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE)
+                         : new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE)) {
+                Iterator<Plant> iterator = plants.iterator();
+                if (smile) {
+                    try (JsonGenerator generator = SMILE_FACTORY.createGenerator(target)) {
+                        while (iterator.hasNext()) {
+                            writer.writeValue(generator, PlantExportDTO.fromEntity(iterator.next()));
+                        }
+                    }
+                } else {
+                    while (iterator.hasNext()) {
+                        target.write(jsonCache.exportJson(iterator.next()));
+                        target.write('\n');
+                    }
+                }
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(smile ? APPLICATION_SMILE : MediaType.APPLICATION_NDJSON)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
+    /**
+     * Se o cabeçalho {@code Accept-Encoding} aceita gzip: vale a qualidade de {@code gzip}
+     * (ou {@code x-gzip}) e, sem ela, a de {@code *}; {@code q=0} recusa, e um {@code q}
+     * inválido também.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double wildcard = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip, quality);
+            } else if (coding.equals("*")) {
+                wildcard = Math.max(wildcard, quality);
+            }
+        }
+        return (gzip >= 0 ? gzip : wildcard) > 0;
+    }
+    
+    // Sem chave, executa direto; com ela, a chave vale para o cliente e a operação. O formato
+    // negociado faz parte do conteúdo: a resposta guardada traz o ETag de um só formato
+    private <T> ResponseEntity<T> idempotent(String operation, HttpServletRequest request, String idempotencyKey,
+                                             Object fingerprint, Supplier<ResponseEntity<T>> write) {
+        if (idempotencyKey == null) {
+            return write.get();
+        }
+        return idempotencyStore.execute(operation + " " + clientOf(request), idempotencyKey, fingerprint, write);
+    }
+    
+    // O usuário resolvido, como no PlantAdmissionFilter; um token não resolvido entra só como
+    // resumo, para a credencial não ficar no cache; sem Authorization, o endereço de origem
+    private String clientOf(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null) {
+            return "addr:" + request.getRemoteAddr();
+        }
+        UserIdentity identity = identities == null ? null : identities.authenticate(authorization);
+        if (identity != null) {
+            return "user:" + identity.getUsername();
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(StandardCharsets.UTF_8));
+            return "token:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    // Id e versão: uma planta excluída e criada de novo volta à versão 1, mas com outro id
+    static String etag(Plant plant, boolean smile) {
+        return "\"" + plant.getId() + "-" + plant.getVersao() + (smile ? SMILE_ETAG_SUFFIX : "") + "\"";
+    }
+    
+    // Lida antes da consulta: dados alterados depois dela nunca recebem um ETag antigo
+    private String collectionEtag(boolean smile) {
+        return "\"" + plantService.getCollectionRevision() + (smile ? SMILE_ETAG_SUFFIX : "") + "\"";
+    }
+    
+    // Smile passa pelos DTOs e pelo conversor; JSON é montado com os fragmentos do cache
+    private ResponseEntity<?> collectionResponse(String etag, List<Plant> plants, boolean smile) {
+        return smile
+                ? collectionResponse(etag, toDtos(plants))
+                : jsonResponse(etag, jsonCache.jsonArray(plants));
+    }
+    
+    private static ResponseEntity<byte[]> jsonResponse(String etag, byte[] json) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+    
+    private static List<PlantDTO> toDtos(List<Plant> plants) {
+        return plants.stream()
+                .map(PlantDTO::fromEntity)
+                .collect(Collectors.toList());
+    }
+    
+    private static boolean acceptsSmile(WebRequest request) {
+        return acceptsSmile(request.getHeader(HttpHeaders.ACCEPT), MediaType.APPLICATION_JSON);
+    }
+    
+    /**
+     * Se o cabeçalho {@code Accept} prefere Smile ao formato JSON informado: cada formato
+     * recebe a qualidade da faixa mais específica que o inclui, e Smile só vence com
+     * qualidade maior que zero e maior que a do JSON. Sem cabeçalho, responde JSON.
+     */
+    static boolean acceptsSmile(String accept, MediaType json) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        double smile = quality(accepted, APPLICATION_SMILE);
+        return smile > 0 && smile > quality(accepted, json);
+    }
+    
+    private static double quality(List<MediaType> accepted, MediaType type) {
+        for (MediaType range : accepted) {
+            if (range.includes(type)) {
+                return range.getQualityValue();
+            }
+        }
+        return 0;
+    }
+    
+    private static <T> ResponseEntity<T> collectionResponse(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+    
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+    
+    // "*" ou ausência do cabeçalho aceitam qualquer versão; o ETag JSON e o Smile valem igualmente
+    static PlantTag parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim().replace("\"", "");
+        if (tag.endsWith(SMILE_ETAG_SUFFIX)) {
+            tag = tag.substring(0, tag.length() - SMILE_ETAG_SUFFIX.length());
+        }
+        int separator = tag.indexOf('-');
+        try {
+            return new PlantTag(Long.parseLong(tag.substring(0, separator)), Long.parseLong(tag.substring(separator + 1)));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new ValidationException("Cabeçalho If-Match inválido");
+        }
+    }
+    
+    /**
+     * Planta identificada por um ETag: a encarnação (id) e a versão.
+     */
+    static final class PlantTag {
+        
+        final long id;
+        final long version;
+        
+        PlantTag(long id, long version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
 }
\ No newline at end of file
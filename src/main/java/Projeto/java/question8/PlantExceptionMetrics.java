@@ -0,0 +1,46 @@
+package Projeto.java.question8;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conta as exceções {@link PlantException} lançadas pelos controladores, por tipo
+ * ({@code plant.exceptions}). Roda antes dos demais resolvedores e não trata a
+ * exceção, que continua sendo respondida pelos {@code @ExceptionHandler}.
+ */
+public class PlantExceptionMetrics implements HandlerExceptionResolver, Ordered {
+
+    static final String EXCEPTIONS = "plant.exceptions";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, Counter> counters = new ConcurrentHashMap<>();
+
+    public PlantExceptionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response,
+                                         Object handler, Exception ex) {
+        if (ex instanceof PlantException) {
+            counters.computeIfAbsent(ex.getClass(), type -> Counter.builder(EXCEPTIONS)
+                    .description("Exceções do sistema de plantas lançadas pelos controladores")
+                    .tag("type", type.getSimpleName())
+                    .register(registry)).increment();
+        }
+        return null;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
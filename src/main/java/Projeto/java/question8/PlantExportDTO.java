@@ -0,0 +1,98 @@
+package Projeto.java.question8;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de exportação do catálogo: a planta completa, com auditoria e versão, para
+ * consumidores que sincronizam o catálogo incrementalmente.
+ */
+public class PlantExportDTO {
+    private String codigo;
+    private String descricao;
+    private String criadoPor;
+    private LocalDateTime dataCriacao;
+    private String ultimaModificacaoPor;
+    private LocalDateTime dataUltimaModificacao;
+    private Long versao;
+
+    // Construtores
+    public PlantExportDTO() {
+    }
+
+    public PlantExportDTO(String codigo, String descricao, String criadoPor, LocalDateTime dataCriacao,
+                          String ultimaModificacaoPor, LocalDateTime dataUltimaModificacao, Long versao) {
+        this.codigo = codigo;
+        this.descricao = descricao;
+        this.criadoPor = criadoPor;
+        this.dataCriacao = dataCriacao;
+        this.ultimaModificacaoPor = ultimaModificacaoPor;
+        this.dataUltimaModificacao = dataUltimaModificacao;
+        this.versao = versao;
+    }
+
+    // Getters e setters
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public void setDescricao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getCriadoPor() {
+        return criadoPor;
+    }
+
+    public void setCriadoPor(String criadoPor) {
+        this.criadoPor = criadoPor;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public void setDataCriacao(LocalDateTime dataCriacao) {
+        this.dataCriacao = dataCriacao;
+    }
+
+    public String getUltimaModificacaoPor() {
+        return ultimaModificacaoPor;
+    }
+
+    public void setUltimaModificacaoPor(String ultimaModificacaoPor) {
+        this.ultimaModificacaoPor = ultimaModificacaoPor;
+    }
+
+    public LocalDateTime getDataUltimaModificacao() {
+        return dataUltimaModificacao;
+    }
+
+    public void setDataUltimaModificacao(LocalDateTime dataUltimaModificacao) {
+        this.dataUltimaModificacao = dataUltimaModificacao;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    /**
+     * Cria um DTO a partir de uma entidade Plant.
+     */
+    public static PlantExportDTO fromEntity(Plant plant) {
+        return new PlantExportDTO(plant.getCodigo(), plant.getDescricao(), plant.getCriadoPor(),
+                plant.getDataCriacao(), plant.getUltimaModificacaoPor(), plant.getDataUltimaModificacao(),
+                plant.getVersao());
+    }
+}
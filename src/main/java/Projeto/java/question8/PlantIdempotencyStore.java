@@ -0,0 +1,120 @@
+package Projeto.java.question8;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Respostas das escritas feitas com o cabeçalho {@value #IDEMPOTENCY_KEY}, para que a
+ * repetição de uma requisição (um cliente que tentou de novo após um timeout) receba a
+ * resposta da primeira execução em vez de um 409 ou de uma segunda atualização.
+ *
+ * <p>A primeira requisição de uma chave registra uma entrada em andamento e executa a
+ * operação; repetições simultâneas esperam essa execução e recebem a mesma resposta, e as
+ * posteriores a encontram no cache; as respostas repetidas trazem o cabeçalho
+ * {@value #REPLAYED}. O cache é limitado a {@code maximumSize} chaves e cada
+ * resposta expira {@code ttl} depois de registrada. Só respostas de sucesso são guardadas:
+ * se a operação lançar uma exceção, as requisições que esperavam recebem a mesma exceção e
+ * a chave é liberada para uma nova tentativa.
+ *
+ * <p>A chave vale para um cliente e uma operação; reutilizá-la com outro conteúdo lança
+ * {@link IdempotencyKeyReuseException}.
+ */
+public class PlantIdempotencyStore {
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String REPLAYED = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, Execution> executionsByKey;
+
+    /**
+     * @param maximumSize quantidade máxima de chaves guardadas
+     * @param ttl tempo durante o qual a resposta de uma chave é repetida
+     */
+    public PlantIdempotencyStore(long maximumSize, Duration ttl) {
+        this(maximumSize, ttl, Ticker.systemTicker());
+    }
+
+    PlantIdempotencyStore(long maximumSize, Duration ttl, Ticker ticker) {
+        this.executionsByKey = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Executa {@code operation} uma única vez por chave e devolve sua resposta a todas as
+     * requisições com a mesma chave.
+     *
+     * @param scope cliente e operação a que a chave pertence, como {@code "PUT /api/plantas/7 user:maria"}
+     * @param key valor do cabeçalho {@code Idempotency-Key}
+     * @param fingerprint conteúdo da requisição, comparado com o da primeira execução
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, Object fingerprint,
+                                         Supplier<ResponseEntity<T>> operation) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("A chave de idempotência deve ter de 1 a " + MAX_KEY_LENGTH + " caracteres");
+        }
+        String cacheKey = scope + '\n' + key;
+        Execution created = new Execution(fingerprint);
+        Execution execution = executionsByKey.get(cacheKey, k -> created);
+        if (!Objects.equals(execution.fingerprint, fingerprint)) {
+            throw new IdempotencyKeyReuseException("A chave de idempotência já foi usada com outra requisição");
+        }
+
+        if (execution != created) {
+            return replay(execution);
+        }
+        try {
+            ResponseEntity<T> response = operation.get();
+            created.response.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            executionsByKey.asMap().remove(cacheKey, created);
+            created.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Cache subjacente, para registro de métricas.
+     */
+    public Cache<String, ?> cache() {
+        return executionsByKey;
+    }
+
+    // A resposta guardada, marcada como repetida
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<T> replay(Execution execution) {
+        try {
+            ResponseEntity<T> response = (ResponseEntity<T>) execution.response.join();
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .header(REPLAYED, "true")
+                    .body(response.getBody());
+        } catch (CompletionException e) {
+            // A exceção da primeira execução, para que a repetição receba a mesma resposta de erro
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static final class Execution {
+
+        final Object fingerprint;
+        final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        Execution(Object fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package Projeto.java.question8;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cache das representações JSON já serializadas de cada planta: os bytes do
+ * {@link PlantDTO} e, quando exportada, do {@link PlantExportDTO}. Leituras repetidas de
+ * uma planta que não mudou copiam esses bytes para a resposta sem criar o DTO nem passar
+ * pelo Jackson, e as listas e a exportação são montadas concatenando os fragmentos.
+ *
+ * <p>Cada entrada guarda o id e a versão da planta serializada e só é usada para uma planta
+ * com o mesmo id e a mesma versão: como o id muda quando uma planta é excluída e criada de
+ * novo, e a versão muda a cada atualização, os bytes sempre correspondem à planta lida do
+ * repositório. Um fragmento gravado por uma leitura que disputou com uma escrita, ou antigo
+ * por causa de uma escrita de outra instância no mesmo banco, é substituído na próxima
+ * leitura em vez de ser respondido. O {@link PlantService} e o {@link ReactivePlantService}
+ * invalidam o código a cada escrita, para liberar as entradas que não serão mais usadas.
+ */
+public class PlantJsonCache {
+
+    private static final byte[] ARRAY_START = ascii("[");
+    private static final byte[] ARRAY_END = ascii("]");
+    private static final byte[] PAGE_START = ascii("{\"items\":[");
+    private static final byte[] PAGE_CURSOR = ascii("],\"nextCursor\":");
+    private static final byte[] OBJECT_END = ascii("}");
+
+    private final ObjectWriter cursorWriter;
+    private final ObjectWriter plantWriter;
+    private final ObjectWriter exportWriter;
+    private final Cache<String, Fragments> fragmentsByCode;
+
+    /**
+     * @param objectMapper o mesmo {@code ObjectMapper} das respostas JSON, para que os bytes sejam idênticos
+     * @param maximumSize quantidade máxima de plantas com fragmentos no cache
+     */
+    public PlantJsonCache(ObjectMapper objectMapper, long maximumSize) {
+        this.cursorWriter = objectMapper.writerFor(String.class);
+        this.plantWriter = objectMapper.writerFor(PlantDTO.class);
+        this.exportWriter = objectMapper.writerFor(PlantExportDTO.class);
+        this.fragmentsByCode = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * JSON do {@link PlantDTO} da planta. O array devolvido é compartilhado e não deve ser alterado.
+     */
+    public byte[] json(Plant plant) {
+        Fragments fragments = fragments(plant);
+        byte[] json = fragments.json;
+        if (json == null) {
+            json = serialize(plantWriter, PlantDTO.fromEntity(plant));
+            fragments.json = json;
+        }
+        return json;
+    }
+
+    /**
+     * JSON do {@link PlantExportDTO} da planta. O array devolvido é compartilhado e não deve ser alterado.
+     */
+    public byte[] exportJson(Plant plant) {
+        Fragments fragments = fragments(plant);
+        byte[] json = fragments.exportJson;
+        if (json == null) {
+            json = serialize(exportWriter, PlantExportDTO.fromEntity(plant));
+            fragments.exportJson = json;
+        }
+        return json;
+    }
+
+    /**
+     * Array JSON com os {@link PlantDTO} das plantas, igual ao que o Jackson produziria para a lista.
+     */
+    public byte[] jsonArray(List<Plant> plants) {
+        return concatenate(ARRAY_START, fragments(plants), ARRAY_END);
+    }
+
+    /**
+     * Página de plantas no formato do {@link PlantPageDTO}.
+     */
+    public byte[] jsonPage(List<Plant> plants, String nextCursor) {
+        // Mesmos campos, na mesma ordem, que o Jackson escreve para PlantPageDTO
+        byte[] end = concatenate(PAGE_CURSOR, new byte[][]{serialize(cursorWriter, nextCursor)}, OBJECT_END);
+        return concatenate(PAGE_START, fragments(plants), end);
+    }
+
+    /**
+     * Escreve um array JSON com os {@link PlantDTO} das plantas à medida que são lidas.
+     */
+    public void writeArray(Iterator<Plant> plants, OutputStream out) throws IOException {
+        out.write('[');
+        boolean first = true;
+        while (plants.hasNext()) {
+            if (!first) {
+                out.write(',');
+            }
+            out.write(json(plants.next()));
+            first = false;
+        }
+        out.write(']');
+    }
+
+    /**
+     * Remove os fragmentos da planta; chamado depois de cada escrita confirmada no repositório.
+     */
+    public void invalidate(String code) {
+        fragmentsByCode.invalidate(code);
+    }
+
+    /**
+     * Cache subjacente, para registro de métricas.
+     */
+    public Cache<String, ?> cache() {
+        return fragmentsByCode;
+    }
+
+    // Id e versão são lidos antes da serialização: se a planta mudar no meio, a entrada fica
+    // com os valores antigos e a próxima leitura da planta nova a substitui
+    private Fragments fragments(Plant plant) {
+        Long id = plant.getId();
+        Long version = plant.getVersao();
+        Fragments fragments = fragmentsByCode.getIfPresent(plant.getCodigo());
+        if (fragments == null || !Objects.equals(fragments.id, id) || !Objects.equals(fragments.version, version)) {
+            fragments = new Fragments(id, version);
+            fragmentsByCode.put(plant.getCodigo(), fragments);
+        }
+        return fragments;
+    }
+
+    private byte[][] fragments(List<Plant> plants) {
+        byte[][] fragments = new byte[plants.size()][];
+        for (int i = 0; i < fragments.length; i++) {
+            fragments[i] = json(plants.get(i));
+        }
+        return fragments;
+    }
+
+    // Fragmentos separados por vírgulas entre o início e o fim, num único array do tamanho exato
+    private static byte[] concatenate(byte[] start, byte[][] fragments, byte[] end) {
+        int length = start.length + end.length + Math.max(0, fragments.length - 1);
+        for (byte[] fragment : fragments) {
+            length += fragment.length;
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(start, 0, result, 0, start.length);
+        int position = start.length;
+        for (int i = 0; i < fragments.length; i++) {
+            if (i > 0) {
+                result[position++] = ',';
+            }
+            System.arraycopy(fragments[i], 0, result, position, fragments[i].length);
+            position += fragments[i].length;
+        }
+        System.arraycopy(end, 0, result, position, end.length);
+        return result;
+    }
+
+    private static byte[] serialize(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Serializações concorrentes da mesma versão produzem os mesmos bytes; a última gravação fica
+    private static final class Fragments {
+
+        final Long id;
+        final Long version;
+        volatile byte[] json;
+        volatile byte[] exportJson;
+
+        Fragments(Long id, Long version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package Projeto.java.question8;
+
+import java.util.List;
+
+/**
+ * DTO para uma página de plantas obtida por paginação por cursor.
+ * O cursor da próxima página é o código da última planta retornada.
+ */
+public class PlantPageDTO {
+    private List<PlantDTO> items;
+    private String nextCursor;
+
+    // Construtores
+    public PlantPageDTO() {
+    }
+
+    public PlantPageDTO(List<PlantDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters e setters
+    public List<PlantDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<PlantDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,7 +1,10 @@
 package Projeto.java.question8;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface para acesso aos dados de plantas.
@@ -9,10 +12,36 @@ import java.util.Optional;
 public interface PlantRepository {
     
     /**
-     * Salva uma planta no repositório.
+     * Salva uma planta no repositório, sobrescrevendo a de mesmo código.
+     * Uma planta sem versão recebe a versão seguinte à armazenada.
      */
     Plant save(Plant plant);
     
+    /**
+     * Insere a planta somente se ainda não existir outra com o mesmo código.
+     * A planta inserida recebe a versão 1.
+     *
+     * @return {@code true} se a planta foi inserida
+     */
+    boolean insertIfAbsent(Plant plant);
+    
+    /**
+     * Insere várias plantas em uma única operação, ignorando as de código já existente.
+     *
+     * @return as plantas efetivamente inseridas
+     */
+    List<Plant> insertAllIfAbsent(List<Plant> plants);
+    
+    /**
+     * Substitui a planta de mesmo código somente se a versão armazenada for a esperada e,
+     * quando a planta informada tem id, se a armazenada for a mesma encarnação (mesmo id):
+     * uma planta excluída e criada de novo recomeça na versão 1 com outro id.
+     * A planta armazenada recebe a versão seguinte.
+     *
+     * @return {@code true} se a planta foi substituída
+     */
+    boolean replaceIfVersion(Plant plant, long expectedVersion);
+    
     /**
      * Verifica se existe uma planta com o código especificado.
      */
@@ -28,13 +57,83 @@ public interface PlantRepository {
      */
     List<Plant> findByDescriptionContaining(String description);
     
+    /**
+     * Busca plantas cuja descrição está a no máximo {@code maxDistance} edições (distância de
+     * Levenshtein, sem distinção de maiúsculas/minúsculas) do texto informado, das mais próximas
+     * para as mais distantes e, no empate, na ordem numérica dos códigos. A implementação
+     * padrão percorre {@link #streamAll}.
+     */
+    default List<Plant> findByDescriptionSimilar(String description, int maxDistance) {
+        if (description == null || description.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try (Stream<Plant> plants = streamAll()) {
+            return EditDistance.rank(plants, description, maxDistance);
+        }
+    }
+    
     /**
      * Busca todas as plantas do repositório.
      */
     List<Plant> findAll();
     
+    /**
+     * Busca até {@code limit} plantas com código posterior a {@code afterCode},
+     * na ordem numérica dos códigos. Um {@code afterCode} nulo começa do início.
+     */
+    List<Plant> findAllAfter(String afterCode, int limit);
+    
+    /**
+     * Busca até {@code limit} plantas com código entre {@code fromCode} e {@code toCode}
+     * (inclusive), na ordem numérica dos códigos.
+     */
+    List<Plant> findByCodeRange(String fromCode, String toCode, int limit);
+    
+    /**
+     * Busca até {@code limit} plantas cujo código começa com {@code prefix}, na ordem numérica
+     * dos códigos (os mais curtos primeiro). A implementação padrão faz uma consulta
+     * {@link #findByCodeRange} por quantidade de dígitos após o prefixo.
+     */
+    default List<Plant> findByCodePrefix(String prefix, int limit) {
+        return PlantCodePrefixSearch.find(this, prefix, limit);
+    }
+    
+    /**
+     * Percorre todas as plantas na ordem dos códigos sem copiá-las para uma lista.
+     */
+    Stream<Plant> streamAll();
+    
+    /**
+     * Percorre, na ordem dos códigos, as plantas modificadas em {@code since} ou depois.
+     * A implementação padrão filtra {@link #streamAll()}.
+     */
+    default Stream<Plant> streamModifiedSince(LocalDateTime since) {
+        return streamAll().filter(plant -> plant.getDataUltimaModificacao() != null &&
+                !plant.getDataUltimaModificacao().isBefore(since));
+    }
+    
     /**
      * Remove uma planta do repositório.
      */
     void delete(Plant plant);
-}
\ No newline at end of file
+    
+    /**
+     * Remove as plantas com os códigos informados em uma única operação, ignorando os
+     * inexistentes.
+     *
+     * @return as plantas efetivamente removidas, com o último estado armazenado
+     */
+    List<Plant> deleteAll(List<String> codes);
+    
+    /**
+     * Quantidade de plantas armazenadas.
+     */
+    long count();
+    
+    /**
+     * Contador que avança a cada alteração do repositório. Ele só é incrementado depois
+     * que a alteração fica visível, de modo que um valor lido antes de uma consulta
+     * nunca é mais novo que os dados retornados por ela.
+     */
+    long modificationCount();
+}
@@ -1,27 +1,51 @@
 package Projeto.java.question8;
 
-import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
-@Service
 public class PlantService {
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BULK_DELETE = 100_000;
+    static final int MAX_EDIT_DISTANCE = 3;
+
+    private static final Pattern NUMERIC_CODE = Pattern.compile("\\d+");
+
     private final PlantRepository plantRepository;
     private final UserService userService;
+    private final PlantChangeLog changeLog;
+    private final PlantAuditTrail auditTrail;
+    private final PlantJsonCache jsonCache;
+    // Distingue contadores de instâncias diferentes, que recomeçam após reinício
+    private final String revisionEpoch = Long.toString(System.currentTimeMillis(), 36);
 
     public PlantService(PlantRepository plantRepository, UserService userService) {
+        this(plantRepository, userService, null, null);
+    }
+
+    public PlantService(PlantRepository plantRepository, UserService userService, PlantChangeLog changeLog,
+                        PlantAuditTrail auditTrail) {
+        this(plantRepository, userService, changeLog, auditTrail, null);
+    }
+
+    /**
+     * @param changeLog onde publicar as criações, atualizações e exclusões; nulo para não publicar
+     * @param auditTrail onde registrar as mesmas operações com o usuário responsável; nulo para não auditar
+     * @param jsonCache cache de JSON serializado cujas plantas alteradas são invalidadas; nulo se não houver
+     */
+    public PlantService(PlantRepository plantRepository, UserService userService, PlantChangeLog changeLog,
+                        PlantAuditTrail auditTrail, PlantJsonCache jsonCache) {
         this.plantRepository = plantRepository;
         this.userService = userService;
+        this.changeLog = changeLog;
+        this.auditTrail = auditTrail;
+        this.jsonCache = jsonCache;
     }
 
     public Plant createPlant(Plant plant) {
         validatePlant(plant);
 
-        if (plantRepository.existsByCode(plant.getCodigo())) {
-            throw new DuplicateCodeException("Uma planta com este código já existe");
-        }
-
         // Definir informações de auditoria
         String currentUser = userService.getCurrentUsername();
         LocalDateTime now = LocalDateTime.now();
@@ -31,41 +55,226 @@ public class PlantService {
         plant.setUltimaModificacaoPor(currentUser);
         plant.setDataUltimaModificacao(now);
 
-        return plantRepository.save(plant);
+        // A inserção condicional garante a unicidade mesmo com criações simultâneas
+        if (!plantRepository.insertIfAbsent(plant)) {
+            throw new DuplicateCodeException("Uma planta com este código já existe");
+        }
+        publish(PlantChangeEvent.Type.CREATED, plant, currentUser);
+        return plant;
     }
 
-    public Plant updatePlant(String code, Plant plant) {
-        validatePlant(plant);
+    /**
+     * Cria várias plantas de uma vez. Itens inválidos ou com código já existente (no
+     * repositório ou repetido no próprio lote) são reportados sem interromper o lote.
+     */
+    public PlantBatchResult createPlants(List<Plant> plants) {
+        List<Plant> accepted = new ArrayList<>(plants.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(plants.size());
+        List<PlantBatchResult.ItemError> errors = new ArrayList<>();
+        Set<String> codesInBatch = new HashSet<>();
 
-        Plant existingPlant = plantRepository.findByCode(code)
-                .orElseThrow(() -> new ResourceNotFoundException("Planta não encontrada"));
+        for (int i = 0; i < plants.size(); i++) {
+            Plant plant = plants.get(i);
+            String error = validationError(plant);
+            if (error == null && !codesInBatch.add(plant.getCodigo())) {
+                error = "Código repetido no lote";
+            }
 
-        // Não permitir alteração do código
-        if (!existingPlant.getCodigo().equals(plant.getCodigo())) {
-            throw new ValidationException("O código da planta não pode ser alterado");
+            if (error != null) {
+                errors.add(new PlantBatchResult.ItemError(i, plant.getCodigo(), error));
+            } else {
+                accepted.add(plant);
+                acceptedIndexes.add(i);
+            }
         }
 
-        existingPlant.setDescricao(plant.getDescricao());
-
-        // Atualizar informações de auditoria
+        // Informações de auditoria obtidas uma única vez para todo o lote
         String currentUser = userService.getCurrentUsername();
         LocalDateTime now = LocalDateTime.now();
+        for (Plant plant : accepted) {
+            plant.setCriadoPor(currentUser);
+            plant.setDataCriacao(now);
+            plant.setUltimaModificacaoPor(currentUser);
+            plant.setDataUltimaModificacao(now);
+        }
+
+        // A inserção condicional em lote também detecta os códigos já existentes no repositório
+        List<Plant> inserted = plantRepository.insertAllIfAbsent(accepted);
+        for (Plant plant : inserted) {
+            publish(PlantChangeEvent.Type.CREATED, plant, currentUser);
+        }
+        Set<Plant> insertedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        insertedSet.addAll(inserted);
+        for (int a = 0; a < accepted.size(); a++) {
+            Plant plant = accepted.get(a);
+            if (!insertedSet.contains(plant)) {
+                errors.add(new PlantBatchResult.ItemError(acceptedIndexes.get(a), plant.getCodigo(),
+                        "Uma planta com este código já existe"));
+            }
+        }
+        errors.sort(Comparator.comparingInt(PlantBatchResult.ItemError::getIndex));
+
+        return new PlantBatchResult(inserted, errors);
+    }
 
-        existingPlant.setUltimaModificacaoPor(currentUser);
-        existingPlant.setDataUltimaModificacao(now);
+    public Plant updatePlant(String code, Plant plant) {
+        return updatePlant(code, plant, null);
+    }
 
-        return plantRepository.save(existingPlant);
+    public Plant updatePlant(String code, Plant plant, Long expectedVersion) {
+        return updatePlant(code, plant, null, expectedVersion);
     }
 
+    /**
+     * Atualiza uma planta com controle de concorrência otimista. Com {@code expectedVersion}
+     * a atualização só ocorre se a planta ainda estiver nessa versão e, com {@code expectedId},
+     * se ainda for a mesma encarnação (não excluída e criada de novo); sem eles, a atualização
+     * é reaplicada sobre a versão mais recente caso outra operação tenha vencido a disputa.
+     */
+    public Plant updatePlant(String code, Plant plant, Long expectedId, Long expectedVersion) {
+        validatePlant(plant);
+
+        String currentUser = userService.getCurrentUsername();
+
+        while (true) {
+            Plant existingPlant = plantRepository.findByCode(code)
+                    .orElseThrow(() -> new ResourceNotFoundException("Planta não encontrada"));
+
+            // Não permitir alteração do código
+            if (!existingPlant.getCodigo().equals(plant.getCodigo())) {
+                throw new ValidationException("O código da planta não pode ser alterado");
+            }
+
+            if ((expectedVersion != null && !expectedVersion.equals(existingPlant.getVersao()))
+                    || (expectedId != null && !expectedId.equals(existingPlant.getId()))) {
+                throw new VersionConflictException("A planta foi alterada por outra operação");
+            }
+
+            // Alterar uma cópia, que leva o id: a substituição falha se a planta for recriada no meio
+            Plant updatedPlant = new Plant(existingPlant);
+            updatedPlant.setDescricao(plant.getDescricao());
+
+            // Atualizar informações de auditoria
+            updatedPlant.setUltimaModificacaoPor(currentUser);
+            updatedPlant.setDataUltimaModificacao(LocalDateTime.now());
+
+            if (plantRepository.replaceIfVersion(updatedPlant, existingPlant.getVersao())) {
+                publish(PlantChangeEvent.Type.UPDATED, updatedPlant, currentUser);
+                return updatedPlant;
+            }
+            if (expectedVersion != null || expectedId != null) {
+                throw new VersionConflictException("A planta foi alterada por outra operação");
+            }
+        }
+    }
+
+    /**
+     * Exclui uma planta. Entre exclusões simultâneas do mesmo código, só a que de fato
+     * removeu a planta publica a exclusão; as demais recebem {@link ResourceNotFoundException}.
+     */
     public void deletePlant(String code) {
-        if (!userService.isCurrentUserAdmin()) {
-            throw new UnauthorizedOperationException("Apenas administradores podem excluir plantas");
+        checkCanDelete();
+
+        if (deleteAll(List.of(code)).isEmpty()) {
+            throw new ResourceNotFoundException("Planta não encontrada");
+        }
+    }
+
+    /**
+     * Exclui várias plantas de uma vez, verificando a permissão uma única vez. Códigos
+     * inválidos, inexistentes ou repetidos no lote são reportados sem interromper o lote.
+     */
+    public PlantBatchResult deletePlants(List<String> codes) {
+        checkCanDelete();
+        if (codes.size() > MAX_BULK_DELETE) {
+            throw new ValidationException("Não é possível excluir mais de " + MAX_BULK_DELETE + " plantas por vez");
+        }
+
+        List<String> accepted = new ArrayList<>(codes.size());
+        List<PlantBatchResult.ItemError> errors = new ArrayList<>();
+        Set<String> codesInBatch = new HashSet<>();
+        for (int i = 0; i < codes.size(); i++) {
+            String code = codes.get(i);
+            String error = codeValidationError(code);
+            if (error == null && !codesInBatch.add(code)) {
+                error = "Código repetido no lote";
+            }
+
+            if (error != null) {
+                errors.add(new PlantBatchResult.ItemError(i, code, error));
+            } else {
+                accepted.add(code);
+            }
+        }
+
+        List<Plant> deleted = deleteAll(accepted);
+        Set<String> deletedCodes = new HashSet<>();
+        for (Plant plant : deleted) {
+            deletedCodes.add(plant.getCodigo());
+        }
+        for (int i = 0; i < codes.size(); i++) {
+            String code = codes.get(i);
+            // Só a primeira ocorrência de cada código válido chegou ao repositório
+            if (codesInBatch.remove(code) && !deletedCodes.contains(code)) {
+                errors.add(new PlantBatchResult.ItemError(i, code, "Planta não encontrada"));
+            }
+        }
+        errors.sort(Comparator.comparingInt(PlantBatchResult.ItemError::getIndex));
+
+        return new PlantBatchResult(deleted, errors);
+    }
+
+    /**
+     * Exclui as plantas com código entre {@code fromCode} e {@code toCode} (inclusive),
+     * até {@value #MAX_BULK_DELETE} por vez.
+     */
+    public PlantBatchResult deletePlantsByCodeRange(String fromCode, String toCode) {
+        checkCanDelete();
+        validateCode(fromCode);
+        validateCode(toCode);
+
+        List<Plant> plants = plantRepository.findByCodeRange(fromCode, toCode, MAX_BULK_DELETE + 1);
+        if (plants.size() > MAX_BULK_DELETE) {
+            throw new ValidationException("O intervalo contém mais de " + MAX_BULK_DELETE + " plantas");
+        }
+        List<String> codes = new ArrayList<>(plants.size());
+        for (Plant plant : plants) {
+            codes.add(plant.getCodigo());
         }
 
-        Plant plant = plantRepository.findByCode(code)
-                .orElseThrow(() -> new ResourceNotFoundException("Planta não encontrada"));
+        List<Plant> deleted = deleteAll(codes);
+        // Plantas do intervalo removidas por outra operação entre a consulta e a exclusão
+        List<PlantBatchResult.ItemError> errors = new ArrayList<>();
+        if (deleted.size() < codes.size()) {
+            Set<String> deletedCodes = new HashSet<>();
+            for (Plant plant : deleted) {
+                deletedCodes.add(plant.getCodigo());
+            }
+            for (int i = 0; i < codes.size(); i++) {
+                if (!deletedCodes.contains(codes.get(i))) {
+                    errors.add(new PlantBatchResult.ItemError(i, codes.get(i), "Planta não encontrada"));
+                }
+            }
+        }
+        return new PlantBatchResult(deleted, errors);
+    }
 
-        plantRepository.delete(plant);
+    private List<Plant> deleteAll(List<String> codes) {
+        if (codes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Plant> deleted = plantRepository.deleteAll(codes);
+        String currentUser = userService.getCurrentUsername();
+        for (Plant plant : deleted) {
+            publish(PlantChangeEvent.Type.DELETED, plant, currentUser);
+        }
+        return deleted;
+    }
+
+    private void checkCanDelete() {
+        if (!userService.isCurrentUserAdmin()) {
+            throw new UnauthorizedOperationException("Apenas administradores podem excluir plantas");
+        }
     }
 
     public Optional<Plant> findPlantByCode(String code) {
@@ -76,21 +285,119 @@ public class PlantService {
         return plantRepository.findByDescriptionContaining(description);
     }
 
+    /**
+     * Busca plantas cuja descrição está a no máximo {@code maxDistance} edições do texto
+     * informado (até {@value #MAX_EDIT_DISTANCE}), das mais próximas para as mais distantes.
+     */
+    public List<Plant> findPlantsByDescriptionSimilar(String description, int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_EDIT_DISTANCE) {
+            throw new ValidationException("A distância de edição deve estar entre 0 e " + MAX_EDIT_DISTANCE);
+        }
+
+        return plantRepository.findByDescriptionSimilar(description, maxDistance);
+    }
+
     public List<Plant> findAllPlants() {
         return plantRepository.findAll();
     }
 
+    public List<Plant> findPlantsAfter(String afterCode, int limit) {
+        validateLimit(limit);
+
+        return plantRepository.findAllAfter(afterCode, limit);
+    }
+
+    public List<Plant> findPlantsByCodeRange(String fromCode, String toCode, int limit) {
+        validateLimit(limit);
+        validateCode(fromCode);
+        validateCode(toCode);
+
+        return plantRepository.findByCodeRange(fromCode, toCode, limit);
+    }
+
+    /**
+     * Sugere até {@code limit} plantas cujo código começa com {@code prefix}, dos códigos
+     * mais curtos para os mais longos.
+     */
+    public List<Plant> suggestPlantsByCodePrefix(String prefix, int limit) {
+        validateLimit(limit);
+        validateCode(prefix);
+
+        return plantRepository.findByCodePrefix(prefix, limit);
+    }
+
+    /**
+     * Identifica a revisão atual do conjunto de plantas, para uso como ETag de coleções.
+     * Deve ser lida antes da consulta cujo resultado ela identifica.
+     */
+    public String getCollectionRevision() {
+        return revisionEpoch + "-" + plantRepository.modificationCount();
+    }
+
+    public Stream<Plant> streamAllPlants() {
+        return plantRepository.streamAll();
+    }
+
+    /**
+     * Percorre as plantas modificadas em {@code since} ou depois; sem {@code since}, todas.
+     */
+    public Stream<Plant> streamPlantsModifiedSince(LocalDateTime since) {
+        return since == null ? plantRepository.streamAll() : plantRepository.streamModifiedSince(since);
+    }
+
+    private void publish(PlantChangeEvent.Type type, Plant plant, String user) {
+        if (jsonCache != null) {
+            jsonCache.invalidate(plant.getCodigo());
+        }
+        if (changeLog != null) {
+            changeLog.publish(type, plant);
+        }
+        if (auditTrail != null) {
+            auditTrail.record(new PlantAuditEvent(LocalDateTime.now(), type, plant.getCodigo(), user,
+                    plant.getVersao(), plant.getDescricao()));
+        }
+    }
+
     private void validatePlant(Plant plant) {
-        if (plant.getCodigo() == null || plant.getCodigo().isEmpty()) {
-            throw new ValidationException("O código da planta é obrigatório");
+        String error = validationError(plant);
+        if (error != null) {
+            throw new ValidationException(error);
         }
+    }
+
+    private void validateCode(String code) {
+        String error = codeValidationError(code);
+        if (error != null) {
+            throw new ValidationException(error);
+        }
+    }
 
-        if (!plant.getCodigo().matches("\\d+")) {
-            throw new ValidationException("O código da planta deve conter apenas caracteres numéricos");
+    static String validationError(Plant plant) {
+        String error = codeValidationError(plant.getCodigo());
+        if (error != null) {
+            return error;
         }
 
         if (plant.getDescricao() != null && plant.getDescricao().length() > 10) {
-            throw new ValidationException("A descrição da planta não pode exceder 10 caracteres");
+            return "A descrição da planta não pode exceder 10 caracteres";
+        }
+        return null;
+    }
+
+    static String codeValidationError(String code) {
+        if (code == null || code.isEmpty()) {
+            return "O código da planta é obrigatório";
+        }
+
+        if (!NUMERIC_CODE.matcher(code).matches()) {
+            return "O código da planta deve conter apenas caracteres numéricos";
+        }
+        return null;
+    }
+
+    private void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("O limite deve estar entre 1 e " + MAX_PAGE_SIZE);
         }
     }
 }
@@ -0,0 +1,15 @@
+package Projeto.java.question8;
+
+/**
+ * Exceção lançada quando o armazenamento persistente das plantas falha.
+ */
+public class PlantStorageException extends PlantException {
+
+    public PlantStorageException(String message) {
+        super(message);
+    }
+
+    public PlantStorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
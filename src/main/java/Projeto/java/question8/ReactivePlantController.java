@@ -0,0 +1,99 @@
+package Projeto.java.question8;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controlador REST não bloqueante para plantas. As respostas são {@link Mono}/{@link Flux}:
+ * a thread da requisição é liberada enquanto o repositório trabalha, e as listagens
+ * são enviadas em NDJSON à medida que o cliente consome, sem montar a lista em memória.
+ */
+@RestController
+@RequestMapping("/api/reactive/plantas")
+public class ReactivePlantController {
+
+    private final ReactivePlantService plantService;
+
+    public ReactivePlantController(ReactivePlantService plantService) {
+        this.plantService = plantService;
+    }
+
+    /**
+     * Cria uma nova planta.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<PlantDTO>> createPlant(@RequestBody PlantDTO plantDTO,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean smile = PlantController.acceptsSmile(accept, MediaType.APPLICATION_JSON);
+        return plantService.createPlant(plantDTO.toEntity())
+                .map(plant -> ResponseEntity.status(HttpStatus.CREATED)
+                        .eTag(PlantController.etag(plant, smile))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(PlantDTO.fromEntity(plant)));
+    }
+
+    /**
+     * Atualiza uma planta existente, respeitando {@code If-Match} como no controlador síncrono.
+     */
+    @PutMapping("/{code}")
+    public Mono<ResponseEntity<PlantDTO>> updatePlant(@PathVariable String code, @RequestBody PlantDTO plantDTO,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean smile = PlantController.acceptsSmile(accept, MediaType.APPLICATION_JSON);
+        return Mono.defer(() -> {
+                    PlantController.PlantTag expected = PlantController.parseIfMatch(ifMatch);
+                    return expected == null
+                            ? plantService.updatePlant(code, plantDTO.toEntity(), null)
+                            : plantService.updatePlant(code, plantDTO.toEntity(), expected.id, expected.version);
+                })
+                .map(plant -> ResponseEntity.ok()
+                        .eTag(PlantController.etag(plant, smile))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(PlantDTO.fromEntity(plant)));
+    }
+
+    /**
+     * Busca uma planta pelo código.
+     */
+    @GetMapping("/{code}")
+    public Mono<ResponseEntity<PlantDTO>> getPlantByCode(@PathVariable String code,
+                                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean smile = PlantController.acceptsSmile(accept, MediaType.APPLICATION_JSON);
+        return plantService.findPlantByCode(code)
+                .map(plant -> ResponseEntity.ok()
+                        .eTag(PlantController.etag(plant, smile))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(PlantDTO.fromEntity(plant)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Busca plantas por descrição, enviando uma planta por linha.
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PlantDTO> searchPlantsByDescription(@RequestParam String description) {
+        return plantService.findPlantsByDescription(description).map(PlantDTO::fromEntity);
+    }
+
+    /**
+     * Lista todas as plantas na ordem dos códigos, uma por linha.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PlantDTO> getAllPlants() {
+        return plantService.findAllPlants().map(PlantDTO::fromEntity);
+    }
+
+    /**
+     * Exclui uma planta.
+     */
+    @DeleteMapping("/{code}")
+    public Mono<ResponseEntity<Void>> deletePlant(@PathVariable String code) {
+        return plantService.deletePlant(code)
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
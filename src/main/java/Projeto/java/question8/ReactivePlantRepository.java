@@ -0,0 +1,50 @@
+package Projeto.java.question8;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Contrato não bloqueante de acesso aos dados de plantas. As operações só são
+ * executadas na assinatura e as consultas de várias plantas respeitam a demanda
+ * do assinante.
+ */
+public interface ReactivePlantRepository {
+
+    /**
+     * Insere a planta somente se ainda não existir outra com o mesmo código.
+     */
+    Mono<Boolean> insertIfAbsent(Plant plant);
+
+    /**
+     * Substitui a planta de mesmo código somente se a versão armazenada for a esperada.
+     */
+    Mono<Boolean> replaceIfVersion(Plant plant, long expectedVersion);
+
+    /**
+     * Busca uma planta pelo código; vazio se não existir.
+     */
+    Mono<Plant> findByCode(String code);
+
+    /**
+     * Busca plantas que contenham a descrição especificada.
+     */
+    Flux<Plant> findByDescriptionContaining(String description);
+
+    /**
+     * Percorre todas as plantas na ordem dos códigos.
+     */
+    Flux<Plant> findAll();
+
+    /**
+     * Remove uma planta do repositório.
+     */
+    Mono<Void> delete(Plant plant);
+
+    /**
+     * Remove as plantas com os códigos informados, ignorando os inexistentes, e emite as
+     * plantas efetivamente removidas, como {@link PlantRepository#deleteAll(List)}.
+     */
+    Flux<Plant> deleteAll(List<String> codes);
+}
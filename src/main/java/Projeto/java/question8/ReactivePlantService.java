@@ -0,0 +1,153 @@
+package Projeto.java.question8;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Serviço de plantas não bloqueante, com as mesmas regras do {@link PlantService}
+ * sobre um {@link ReactivePlantRepository}. Os erros de negócio são emitidos como
+ * sinais de erro com as exceções de {@link PlantException}.
+ */
+public class ReactivePlantService {
+
+    private final ReactivePlantRepository plantRepository;
+    private final UserService userService;
+    private final PlantChangeLog changeLog;
+    private final PlantAuditTrail auditTrail;
+    private final PlantJsonCache jsonCache;
+
+    public ReactivePlantService(ReactivePlantRepository plantRepository, UserService userService) {
+        this(plantRepository, userService, null, null);
+    }
+
+    public ReactivePlantService(ReactivePlantRepository plantRepository, UserService userService,
+                                PlantChangeLog changeLog, PlantAuditTrail auditTrail) {
+        this(plantRepository, userService, changeLog, auditTrail, null);
+    }
+
+    /**
+     * @param changeLog onde publicar as criações, atualizações e exclusões; nulo para não publicar
+     * @param auditTrail onde registrar as mesmas operações com o usuário responsável; nulo para não auditar
+     * @param jsonCache cache de JSON serializado cujas plantas alteradas são invalidadas; nulo se não houver
+     */
+    public ReactivePlantService(ReactivePlantRepository plantRepository, UserService userService,
+                                PlantChangeLog changeLog, PlantAuditTrail auditTrail, PlantJsonCache jsonCache) {
+        this.plantRepository = plantRepository;
+        this.userService = userService;
+        this.changeLog = changeLog;
+        this.auditTrail = auditTrail;
+        this.jsonCache = jsonCache;
+    }
+
+    public Mono<Plant> createPlant(Plant plant) {
+        return Mono.defer(() -> {
+            String error = PlantService.validationError(plant);
+            if (error != null) {
+                return Mono.error(new ValidationException(error));
+            }
+
+            String currentUser = userService.getCurrentUsername();
+            LocalDateTime now = LocalDateTime.now();
+            plant.setCriadoPor(currentUser);
+            plant.setDataCriacao(now);
+            plant.setUltimaModificacaoPor(currentUser);
+            plant.setDataUltimaModificacao(now);
+
+            return plantRepository.insertIfAbsent(plant)
+                    .flatMap(inserted -> inserted
+                            ? Mono.just(plant)
+                            : Mono.error(new DuplicateCodeException("Uma planta com este código já existe")))
+                    .doOnNext(created -> publish(PlantChangeEvent.Type.CREATED, created, currentUser));
+        });
+    }
+
+    public Mono<Plant> updatePlant(String code, Plant plant, Long expectedVersion) {
+        return updatePlant(code, plant, null, expectedVersion);
+    }
+
+    /**
+     * Atualiza uma planta com controle de concorrência otimista, como em
+     * {@link PlantService#updatePlant(String, Plant, Long, Long)}: sem {@code expectedVersion}
+     * e {@code expectedId}, a atualização é refeita sobre a versão mais recente até vencer a disputa.
+     */
+    public Mono<Plant> updatePlant(String code, Plant plant, Long expectedId, Long expectedVersion) {
+        return Mono.defer(() -> {
+            String error = PlantService.validationError(plant);
+            if (error != null) {
+                return Mono.error(new ValidationException(error));
+            }
+            String currentUser = userService.getCurrentUsername();
+
+            return plantRepository.findByCode(code)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Planta não encontrada")))
+                    .flatMap(existingPlant -> {
+                        if (!existingPlant.getCodigo().equals(plant.getCodigo())) {
+                            return Mono.error(new ValidationException("O código da planta não pode ser alterado"));
+                        }
+                        if ((expectedVersion != null && !expectedVersion.equals(existingPlant.getVersao()))
+                                || (expectedId != null && !expectedId.equals(existingPlant.getId()))) {
+                            return Mono.error(new VersionConflictException("A planta foi alterada por outra operação"));
+                        }
+
+                        Plant updatedPlant = new Plant(existingPlant);
+                        updatedPlant.setDescricao(plant.getDescricao());
+                        updatedPlant.setUltimaModificacaoPor(currentUser);
+                        updatedPlant.setDataUltimaModificacao(LocalDateTime.now());
+
+                        return plantRepository.replaceIfVersion(updatedPlant, existingPlant.getVersao())
+                                .flatMap(replaced -> {
+                                    if (replaced) {
+                                        return Mono.just(updatedPlant);
+                                    }
+                                    return expectedVersion != null || expectedId != null
+                                            ? Mono.error(new VersionConflictException("A planta foi alterada por outra operação"))
+                                            : Mono.empty();
+                                });
+                    })
+                    .repeatWhenEmpty(Integer.MAX_VALUE, attempts -> attempts)
+                    .doOnNext(updated -> publish(PlantChangeEvent.Type.UPDATED, updated, currentUser));
+        });
+    }
+
+    public Mono<Void> deletePlant(String code) {
+        return Mono.defer(() -> {
+            if (!userService.isCurrentUserAdmin()) {
+                return Mono.error(new UnauthorizedOperationException("Apenas administradores podem excluir plantas"));
+            }
+            String currentUser = userService.getCurrentUsername();
+            // Só publica o que esta chamada removeu: uma exclusão simultânea que perdeu a disputa responde 404
+            return plantRepository.deleteAll(List.of(code))
+                    .doOnNext(plant -> publish(PlantChangeEvent.Type.DELETED, plant, currentUser))
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Planta não encontrada")))
+                    .then();
+        });
+    }
+
+    private void publish(PlantChangeEvent.Type type, Plant plant, String user) {
+        if (jsonCache != null) {
+            jsonCache.invalidate(plant.getCodigo());
+        }
+        if (changeLog != null) {
+            changeLog.publish(type, plant);
+        }
+        if (auditTrail != null) {
+            auditTrail.record(new PlantAuditEvent(LocalDateTime.now(), type, plant.getCodigo(), user,
+                    plant.getVersao(), plant.getDescricao()));
+        }
+    }
+
+    public Mono<Plant> findPlantByCode(String code) {
+        return plantRepository.findByCode(code);
+    }
+
+    public Flux<Plant> findPlantsByDescription(String description) {
+        return plantRepository.findByDescriptionContaining(description);
+    }
+
+    public Flux<Plant> findAllPlants() {
+        return plantRepository.findAll();
+    }
+}
@@ -0,0 +1,416 @@
+package Projeto.java.question8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Repositório de plantas particionado: distribui as plantas entre vários repositórios
+ * (shards) por hash consistente do código, de modo que cada shard tem seus próprios
+ * mapas, índices e contadores e as escritas de códigos diferentes não disputam entre si.
+ *
+ * <p>Os shards são quaisquer {@link PlantRepository}, em processo ou clientes de nós
+ * remotos. Cada shard ocupa {@value #VIRTUAL_NODES} pontos do anel de hash; acrescentar
+ * um shard ao fim da lista move só a fração de códigos que passa a ser dele.
+ *
+ * <p>Operações por código vão direto ao shard dono. Listagens, buscas por descrição e
+ * contagens consultam todos os shards pelo {@code scatterExecutor} e combinam os resultados
+ * na ordem numérica dos códigos; com {@code Runnable::run}, as consultas são sequenciais.
+ *
+ * <p>Os ids são únicos entre os shards sem uma sequência compartilhada por inserção: cada
+ * shard reserva faixas de {@code idBlockSize} ids de um contador global e as consome
+ * localmente.
+ */
+public class ShardedPlantRepository implements PlantRepository, Closeable {
+
+    static final int VIRTUAL_NODES = 128;
+
+    private final List<PlantRepository> shards;
+    private final Executor scatterExecutor;
+    private final int[] ringHashes;
+    private final int[] ringShards;
+    private final IdBlock[] idBlocks;
+    private final AtomicLong nextIdBlock = new AtomicLong(1);
+    private final int idBlockSize;
+
+    public ShardedPlantRepository(List<? extends PlantRepository> shards, Executor scatterExecutor, int idBlockSize) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("É necessário ao menos um shard");
+        }
+        if (idBlockSize < 1) {
+            throw new IllegalArgumentException("Tamanho de bloco de ids inválido: " + idBlockSize);
+        }
+        this.shards = List.copyOf(shards);
+        this.scatterExecutor = scatterExecutor;
+        this.idBlockSize = idBlockSize;
+        this.idBlocks = new IdBlock[shards.size()];
+        for (int i = 0; i < idBlocks.length; i++) {
+            idBlocks[i] = new IdBlock();
+        }
+
+        // Anel ordenado por hash; cada posição guarda o hash (32 bits altos) e o shard
+        long[] ring = new long[shards.size() * VIRTUAL_NODES];
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                ring[shard * VIRTUAL_NODES + node] = ((long) hash("shard-" + shard + "#" + node) << 32) | shard;
+            }
+        }
+        Arrays.sort(ring);
+        this.ringHashes = new int[ring.length];
+        this.ringShards = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            ringHashes[i] = (int) (ring[i] >> 32);
+            ringShards[i] = (int) ring[i];
+        }
+    }
+
+    @Override
+    public Plant save(Plant plant) {
+        int shard = shardIndex(plant.getCodigo());
+        assignId(shard, plant);
+        return shards.get(shard).save(plant);
+    }
+
+    @Override
+    public boolean insertIfAbsent(Plant plant) {
+        int shard = shardIndex(plant.getCodigo());
+        assignId(shard, plant);
+        return shards.get(shard).insertIfAbsent(plant);
+    }
+
+    @Override
+    public List<Plant> insertAllIfAbsent(List<Plant> plants) {
+        Map<Integer, List<Plant>> plantsByShard = new HashMap<>();
+        for (Plant plant : plants) {
+            int shard = shardIndex(plant.getCodigo());
+            assignId(shard, plant);
+            plantsByShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(plant);
+        }
+
+        List<CompletableFuture<List<Plant>>> batches = new ArrayList<>(plantsByShard.size());
+        plantsByShard.forEach((shard, batch) -> batches.add(
+                CompletableFuture.supplyAsync(() -> shards.get(shard).insertAllIfAbsent(batch), scatterExecutor)));
+        Set<Plant> inserted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CompletableFuture<List<Plant>> batch : batches) {
+            inserted.addAll(batch.join());
+        }
+
+        // Mantém a ordem do lote original
+        return plants.stream()
+                .filter(inserted::contains)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean replaceIfVersion(Plant plant, long expectedVersion) {
+        return shardFor(plant.getCodigo()).replaceIfVersion(plant, expectedVersion);
+    }
+
+    @Override
+    public boolean existsByCode(String code) {
+        return code != null && shardFor(code).existsByCode(code);
+    }
+
+    @Override
+    public Optional<Plant> findByCode(String code) {
+        return code == null ? Optional.empty() : shardFor(code).findByCode(code);
+    }
+
+    @Override
+    public List<Plant> findByDescriptionContaining(String description) {
+        List<Plant> plants = gather(shard -> shard.findByDescriptionContaining(description)).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        plants.sort(Comparator.comparing(Plant::getCodigo, PlantCodes.NUMERIC_ORDER));
+        return plants;
+    }
+
+    @Override
+    public List<Plant> findByDescriptionSimilar(String description, int maxDistance) {
+        if (description == null || description.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Cada partição já filtra pela distância; aqui só se reordenam os resultados juntos
+        return EditDistance.rank(gather(shard -> shard.findByDescriptionSimilar(description, maxDistance)).stream()
+                .flatMap(List::stream), description, maxDistance);
+    }
+
+    @Override
+    public List<Plant> findAll() {
+        return merge(gather(PlantRepository::findAll), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Plant> findAllAfter(String afterCode, int limit) {
+        return merge(gather(shard -> shard.findAllAfter(afterCode, limit)), limit);
+    }
+
+    @Override
+    public List<Plant> findByCodeRange(String fromCode, String toCode, int limit) {
+        return merge(gather(shard -> shard.findByCodeRange(fromCode, toCode, limit)), limit);
+    }
+
+    @Override
+    public List<Plant> findByCodePrefix(String prefix, int limit) {
+        return merge(gather(shard -> shard.findByCodePrefix(prefix, limit)), limit);
+    }
+
+    @Override
+    public Stream<Plant> streamAll() {
+        return mergeStreams(PlantRepository::streamAll);
+    }
+
+    @Override
+    public Stream<Plant> streamModifiedSince(LocalDateTime since) {
+        return mergeStreams(shard -> shard.streamModifiedSince(since));
+    }
+
+    @Override
+    public void delete(Plant plant) {
+        if (plant != null && plant.getCodigo() != null) {
+            shardFor(plant.getCodigo()).delete(plant);
+        }
+    }
+
+    @Override
+    public List<Plant> deleteAll(List<String> codes) {
+        Map<Integer, List<String>> codesByShard = new HashMap<>();
+        for (String code : codes) {
+            if (code != null) {
+                codesByShard.computeIfAbsent(shardIndex(code), s -> new ArrayList<>()).add(code);
+            }
+        }
+
+        List<CompletableFuture<List<Plant>>> batches = new ArrayList<>(codesByShard.size());
+        codesByShard.forEach((shard, batch) -> batches.add(
+                CompletableFuture.supplyAsync(() -> shards.get(shard).deleteAll(batch), scatterExecutor)));
+        Map<String, Plant> removed = new HashMap<>();
+        for (CompletableFuture<List<Plant>> batch : batches) {
+            for (Plant plant : batch.join()) {
+                removed.put(plant.getCodigo(), plant);
+            }
+        }
+
+        // Mantém a ordem dos códigos pedidos
+        List<Plant> ordered = new ArrayList<>(removed.size());
+        for (String code : codes) {
+            Plant plant = code == null ? null : removed.remove(code);
+            if (plant != null) {
+                ordered.add(plant);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (PlantRepository shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    // A soma de contadores que só crescem também só cresce
+    @Override
+    public long modificationCount() {
+        long count = 0;
+        for (PlantRepository shard : shards) {
+            count += shard.modificationCount();
+        }
+        return count;
+    }
+
+    /**
+     * Fecha os shards que exigirem fechamento.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (PlantRepository shard : shards) {
+            if (shard instanceof Closeable) {
+                try {
+                    ((Closeable) shard).close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Quantidade de shards.
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Índice do shard dono do código.
+     */
+    int shardIndex(String code) {
+        int position = Arrays.binarySearch(ringHashes, hash(code));
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return ringShards[position == ringHashes.length ? 0 : position];
+    }
+
+    PlantRepository shardFor(String code) {
+        return shards.get(shardIndex(code));
+    }
+
+    private <T> List<T> gather(Function<PlantRepository, T> query) {
+        if (shards.size() == 1) {
+            return List.of(query.apply(shards.get(0)));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (PlantRepository shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    // Intercala listas já ordenadas pelo código, parando em limit
+    private static List<Plant> merge(List<List<Plant>> sortedLists, int limit) {
+        if (sortedLists.size() == 1) {
+            List<Plant> only = sortedLists.get(0);
+            return only.size() <= limit ? only : new ArrayList<>(only.subList(0, limit));
+        }
+        List<Iterator<Plant>> iterators = new ArrayList<>(sortedLists.size());
+        int total = 0;
+        for (List<Plant> list : sortedLists) {
+            iterators.add(list.iterator());
+            total += list.size();
+        }
+        List<Plant> merged = new ArrayList<>(Math.min(total, limit));
+        Iterator<Plant> iterator = new MergingIterator(iterators);
+        while (merged.size() < limit && iterator.hasNext()) {
+            merged.add(iterator.next());
+        }
+        return merged;
+    }
+
+    private Stream<Plant> mergeStreams(Function<PlantRepository, Stream<Plant>> source) {
+        if (shards.size() == 1) {
+            return source.apply(shards.get(0));
+        }
+        List<Stream<Plant>> streams = new ArrayList<>(shards.size());
+        try {
+            for (PlantRepository shard : shards) {
+                streams.add(source.apply(shard));
+            }
+        } catch (RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+        List<Iterator<Plant>> iterators = streams.stream().map(Stream::iterator).collect(Collectors.toList());
+        Spliterator<Plant> merged = Spliterators.spliteratorUnknownSize(new MergingIterator(iterators),
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(merged, false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    private void assignId(int shard, Plant plant) {
+        if (plant.getId() == null) {
+            plant.setId(idBlocks[shard].next());
+        } else {
+            // Plantas restauradas trazem seu id; nenhum bloco volta a emiti-lo
+            long id = plant.getId();
+            nextIdBlock.accumulateAndGet(id + 1, Math::max);
+            for (IdBlock block : idBlocks) {
+                block.skipPast(id);
+            }
+        }
+    }
+
+    // Hash estável entre JVMs (String.hashCode é especificado), com a mistura final do MurmurHash3
+    static int hash(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Faixa de ids reservada por um shard; só é sincronizada entre as escritas do próprio shard.
+     */
+    private final class IdBlock {
+        private long next;
+        private long end;
+
+        synchronized long next() {
+            if (next == end) {
+                next = nextIdBlock.getAndAdd(idBlockSize);
+                end = next + idBlockSize;
+            }
+            return next++;
+        }
+
+        synchronized void skipPast(long id) {
+            if (next <= id && id < end) {
+                next = id + 1;
+            }
+        }
+    }
+
+    private static final class MergingIterator implements Iterator<Plant> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(
+                (a, b) -> PlantCodes.NUMERIC_ORDER.compare(a.plant.getCodigo(), b.plant.getCodigo()));
+
+        MergingIterator(List<Iterator<Plant>> iterators) {
+            for (Iterator<Plant> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Plant next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            Plant plant = head.plant;
+            if (head.iterator.hasNext()) {
+                head.plant = head.iterator.next();
+                heads.add(head);
+            }
+            return plant;
+        }
+    }
+
+    private static final class Head {
+        private Plant plant;
+        private final Iterator<Plant> iterator;
+
+        Head(Plant plant, Iterator<Plant> iterator) {
+            this.plant = plant;
+            this.iterator = iterator;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package Projeto.java.question8;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice invertido de trigramas sobre as descrições das plantas.
+ * Responde buscas por substring sem distinção de maiúsculas/minúsculas
+ * intersectando as listas de códigos de cada trigrama da consulta.
+ */
+public class TrigramIndex {
+
+    static final int GRAM_SIZE = 3;
+
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    private final Map<String, String> indexedDescriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Indexa (ou reindexa) a descrição associada ao código.
+     */
+    public synchronized void index(String code, String description) {
+        String normalized = normalize(description);
+        String previous = normalized == null
+                ? indexedDescriptions.remove(code)
+                : indexedDescriptions.put(code, normalized);
+
+        if (Objects.equals(previous, normalized)) {
+            return;
+        }
+        if (previous != null) {
+            removePostings(code, previous);
+        }
+        if (normalized != null) {
+            addPostings(code, normalized);
+        }
+    }
+
+    /**
+     * Remove o código do índice.
+     */
+    public synchronized void remove(String code) {
+        String previous = indexedDescriptions.remove(code);
+        if (previous != null) {
+            removePostings(code, previous);
+        }
+    }
+
+    /**
+     * Retorna os códigos cujas descrições contêm o texto informado.
+     * Consultas menores que um trigrama são resolvidas por varredura.
+     */
+    public List<String> search(String query) {
+        String normalized = normalize(query);
+        if (normalized == null || normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        if (normalized.length() < GRAM_SIZE) {
+            return scan(normalized);
+        }
+
+        List<Set<String>> lists = new ArrayList<>();
+        for (String gram : grams(normalized)) {
+            Set<String> codes = postings.get(gram);
+            if (codes == null) {
+                return Collections.emptyList();
+            }
+            lists.add(codes);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<String> result = new ArrayList<>();
+        Set<String> smallest = lists.get(0);
+        for (String code : smallest) {
+            if (containsInAll(lists, code) && matches(code, normalized)) {
+                result.add(code);
+            }
+        }
+        return result;
+    }
+
+    private List<String> scan(String normalized) {
+        List<String> result = new ArrayList<>();
+        indexedDescriptions.forEach((code, description) -> {
+            if (description.contains(normalized)) {
+                result.add(code);
+            }
+        });
+        return result;
+    }
+
+    private boolean containsInAll(List<Set<String>> lists, String code) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(code)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Os trigramas só garantem candidatos; a confirmação é feita na descrição indexada
+    private boolean matches(String code, String normalized) {
+        String description = indexedDescriptions.get(code);
+        return description != null && description.contains(normalized);
+    }
+
+    private void addPostings(String code, String normalized) {
+        for (String gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(code);
+        }
+    }
+
+    private void removePostings(String code, String normalized) {
+        for (String gram : grams(normalized)) {
+            postings.computeIfPresent(gram, (g, codes) -> {
+                codes.remove(code);
+                return codes.isEmpty() ? null : codes;
+            });
+        }
+    }
+
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+}
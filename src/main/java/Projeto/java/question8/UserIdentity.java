@@ -0,0 +1,38 @@
+package Projeto.java.question8;
+
+import java.util.Set;
+
+/**
+ * Usuário resolvido por um {@link IdentityStore}: nome e papéis.
+ */
+public final class UserIdentity {
+
+    /**
+     * Papel que autoriza as operações administrativas, como a exclusão de plantas.
+     */
+    public static final String ADMIN_ROLE = "ADMIN";
+
+    private final String username;
+    private final Set<String> roles;
+
+    public UserIdentity(String username, Set<String> roles) {
+        this.username = username;
+        this.roles = Set.copyOf(roles);
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    public boolean isAdmin() {
+        return hasRole(ADMIN_ROLE);
+    }
+}
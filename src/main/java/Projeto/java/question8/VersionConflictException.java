@@ -0,0 +1,16 @@
+package Projeto.java.question8;
+
+/**
+ * Exceção lançada quando a planta foi alterada por outra operação desde a versão
+ * informada pelo cliente.
+ */
+public class VersionConflictException extends PlantException {
+    
+    public VersionConflictException(String message) {
+        super(message);
+    }
+    
+    public VersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,308 @@
+package Projeto.java.question8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Log de escrita antecipada (write-ahead log) em segmentos numerados por geração.
+ * Cada registro é gravado como [tamanho][crc32][conteúdo].
+ *
+ * <p>As escritas usam commit em grupo: {@link #append} apenas acumula o registro em
+ * memória e {@link #sync} grava e sincroniza (fsync) de uma só vez tudo o que foi
+ * acumulado até então, liberando todas as threads cujos registros entraram no lote.
+ *
+ * <p>A gravação no arquivo é feita por uma thread própria, que quem chama {@link #sync}
+ * espera sem poder ser interrompido: a interrupção de uma thread de requisição (um
+ * cliente que desconectou) fecharia o {@link FileChannel} no meio da escrita.
+ *
+ * <p>Se a gravação de um lote falhar, o arquivo é truncado de volta ao fim do último lote
+ * gravado (quando possível) e o log passa a recusar {@link #append}, {@link #sync} e
+ * {@link #rotate}: registros posteriores a um lote perdido ou incompleto não seriam
+ * recuperados, já que a leitura para no primeiro registro inválido.
+ */
+public class WriteAheadLog implements Closeable {
+
+    static final String SEGMENT_PREFIX = "wal-";
+    static final String SEGMENT_SUFFIX = ".log";
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final SegmentOpener opener;
+    private final Object appendLock = new Object();
+    private final Object flushLock = new Object();
+
+    private FileChannel channel;
+    private long generation;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private long appendedLsn;
+    private volatile long durableLsn;
+    private volatile PlantStorageException failure;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "plant-wal-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteAheadLog(Path directory, long generation, boolean fsync) {
+        this(directory, generation, fsync, segment -> FileChannel.open(segment,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    WriteAheadLog(Path directory, long generation, boolean fsync, SegmentOpener opener) {
+        this.directory = directory;
+        this.generation = generation;
+        this.fsync = fsync;
+        this.opener = opener;
+        this.channel = openSegment(generation);
+    }
+
+    /**
+     * Abre o arquivo de um segmento para gravação no final.
+     */
+    interface SegmentOpener {
+        FileChannel open(Path segment) throws IOException;
+    }
+
+    /**
+     * Acumula um registro no lote atual e devolve seu número de sequência (LSN).
+     */
+    public long append(byte[] payload) {
+        synchronized (appendLock) {
+            checkNotFailed();
+            int needed = HEADER_SIZE + payload.length;
+            if (pending.remaining() < needed) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            pending.putInt(payload.length);
+            pending.putInt(checksum(payload));
+            pending.put(payload);
+            return ++appendedLsn;
+        }
+    }
+
+    /**
+     * Garante que o registro com o LSN informado (e todos os anteriores) está em disco.
+     */
+    public void sync(long lsn) {
+        if (durableLsn >= lsn) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (durableLsn >= lsn) {
+                return;
+            }
+            checkNotFailed();
+            flushPending();
+        }
+    }
+
+    /**
+     * Encerra o segmento atual e passa a gravar em um novo, devolvendo sua geração.
+     */
+    public long rotate() {
+        synchronized (flushLock) {
+            synchronized (appendLock) {
+                checkNotFailed();
+                flushPending();
+                closeChannel();
+                generation++;
+                channel = openSegment(generation);
+                return generation;
+            }
+        }
+    }
+
+    /**
+     * Lança {@link PlantStorageException} se o log já falhou e não aceita mais registros.
+     */
+    public void checkWritable() {
+        checkNotFailed();
+    }
+
+    /**
+     * Maior LSN já gravado (e sincronizado, se {@code fsync}) em disco.
+     */
+    public long durableLsn() {
+        return durableLsn;
+    }
+
+    public long getGeneration() {
+        synchronized (appendLock) {
+            return generation;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (flushLock) {
+            synchronized (appendLock) {
+                try {
+                    if (failure == null) {
+                        flushPending();
+                    }
+                    closeChannel();
+                } finally {
+                    writer.shutdown();
+                }
+            }
+        }
+    }
+
+    // Deve ser chamado com flushLock; appendLock é retido apenas para trocar os buffers
+    private void flushPending() {
+        ByteBuffer batch;
+        long batchLsn;
+        synchronized (appendLock) {
+            batch = pending;
+            pending = spare;
+            spare = batch;
+            batchLsn = appendedLsn;
+        }
+
+        batch.flip();
+        try {
+            awaitUninterruptibly(writer.submit(() -> write(batch)));
+        } finally {
+            batch.clear();
+        }
+        durableLsn = batchLsn;
+    }
+
+    // Executado na thread de gravação
+    private Void write(ByteBuffer batch) {
+        long start = -1;
+        try {
+            start = channel.size();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            return null;
+        } catch (IOException e) {
+            failure = new PlantStorageException("Falha ao gravar o log de plantas", e);
+            truncate(start);
+            throw failure;
+        }
+    }
+
+    private static void awaitUninterruptibly(Future<?> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    task.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new PlantStorageException("Falha ao gravar o log de plantas", e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Descarta o lote parcialmente gravado, para não deixar um registro incompleto no segmento
+    private void truncate(long size) {
+        if (size < 0 || !channel.isOpen()) {
+            return;
+        }
+        try {
+            channel.truncate(size);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new PlantStorageException("O log de plantas está indisponível após uma falha de gravação", failure);
+        }
+    }
+
+    private FileChannel openSegment(long segmentGeneration) {
+        try {
+            return opener.open(segmentPath(directory, segmentGeneration));
+        } catch (IOException e) {
+            throw new PlantStorageException("Falha ao abrir o log de plantas", e);
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new PlantStorageException("Falha ao fechar o log de plantas", e);
+        }
+    }
+
+    /**
+     * Caminho do segmento de log da geração informada.
+     */
+    static Path segmentPath(Path directory, long generation) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, generation, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Grava um registro com o mesmo enquadramento do log.
+     */
+    static void writeRecord(FileChannel target, byte[] payload) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        while (record.hasRemaining()) {
+            target.write(record);
+        }
+    }
+
+    /**
+     * Lê os registros válidos do arquivo, parando no primeiro registro incompleto ou
+     * corrompido, e devolve o tamanho da parte válida.
+     */
+    static long readRecords(Path file, Consumer<byte[]> consumer) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (content.remaining() >= HEADER_SIZE) {
+            int start = content.position();
+            int length = content.getInt();
+            int crc = content.getInt();
+            if (length < 0 || length > content.remaining()) {
+                return start;
+            }
+            byte[] payload = new byte[length];
+            content.get(payload);
+            if (checksum(payload) != crc) {
+                return start;
+            }
+            consumer.accept(payload);
+        }
+        return content.position();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
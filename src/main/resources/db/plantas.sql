@@ -0,0 +1,23 @@
+CREATE TABLE IF NOT EXISTS plantas (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    codigo VARCHAR(64) NOT NULL,
+    ordem VARCHAR(128) NOT NULL,
+    descricao VARCHAR(10),
+    criado_por VARCHAR(255),
+    data_criacao TIMESTAMP,
+    ultima_modificacao_por VARCHAR(255),
+    data_ultima_modificacao TIMESTAMP,
+    versao BIGINT NOT NULL,
+    CONSTRAINT uk_plantas_codigo UNIQUE (codigo)
+);
+
+CREATE INDEX IF NOT EXISTS idx_plantas_ordem ON plantas (ordem);
+
+-- Revisão do conjunto de plantas, incrementada na mesma transação de cada escrita;
+-- compartilhada por todas as instâncias que usam o banco
+CREATE TABLE IF NOT EXISTS plantas_revisao (
+    id INT PRIMARY KEY,
+    revisao BIGINT NOT NULL
+);
+
+INSERT INTO plantas_revisao (id, revisao) SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM plantas_revisao WHERE id = 1);
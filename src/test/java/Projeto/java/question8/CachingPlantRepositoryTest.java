@@ -0,0 +1,73 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Testes do Repositório de Plantas com Cache")
+class CachingPlantRepositoryTest {
+
+    private InMemoryPlantRepository delegate;
+    private CachingPlantRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        delegate = spy(new InMemoryPlantRepository());
+        repository = new CachingPlantRepository(delegate, 100, Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Deve atender buscas repetidas pelo cache, inclusive ausências")
+    void shouldServeRepeatedLookupsFromCache() {
+        repository.save(new Plant("1", "Rosa"));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(repository.findByCode("1").orElseThrow().getDescricao(), is("Rosa"));
+            assertThat(repository.findByCode("2").isPresent(), is(false));
+        }
+        assertThat(repository.existsByCode("1"), is(true));
+        assertThat(repository.existsByCode("2"), is(false));
+
+        verify(delegate, times(1)).findByCode("1");
+        verify(delegate, times(1)).findByCode("2");
+        verify(delegate, never()).existsByCode(anyString());
+        assertThat(repository.stats().hitCount(), is(10L));
+        assertThat(repository.stats().missCount(), is(2L));
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache nas escritas")
+    void shouldInvalidateOnWrites() {
+        assertThat(repository.findByCode("1").isPresent(), is(false));
+
+        repository.insertIfAbsent(new Plant("1", "Rosa"));
+        assertThat(repository.findByCode("1").orElseThrow().getDescricao(), is("Rosa"));
+
+        Plant changed = new Plant("1", "Ipê");
+        assertThat(repository.replaceIfVersion(changed, 1L), is(true));
+        assertThat(repository.findByCode("1").orElseThrow().getDescricao(), is("Ipê"));
+
+        repository.delete(changed);
+        assertThat(repository.findByCode("1").isPresent(), is(false));
+        assertThat(repository.existsByCode("1"), is(false));
+    }
+
+    @Test
+    @DisplayName("Deve manter o cache dentro do tamanho máximo")
+    void shouldBoundCacheSize() {
+        CachingPlantRepository bounded = new CachingPlantRepository(delegate, 10, Duration.ZERO);
+        for (int i = 0; i < 200; i++) {
+            bounded.findByCode(String.valueOf(i));
+        }
+        bounded.cache().cleanUp();
+
+        assertThat(bounded.cache().estimatedSize(), is(lessThanOrEqualTo(10L)));
+        assertThat(bounded.stats().evictionCount(), is(greaterThan(0L)));
+    }
+}
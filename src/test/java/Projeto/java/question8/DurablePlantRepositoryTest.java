@@ -0,0 +1,330 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Testes do Repositório Persistente de Plantas")
+class DurablePlantRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve recuperar plantas e a sequência de ids após reinício")
+    void shouldRecoverPlantsAndIdSequenceAfterRestart() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6000);
+        try (DurablePlantRepository repository = open()) {
+            Plant plant = new Plant("1", "Cacto");
+            plant.setCriadoPor("maria");
+            plant.setDataCriacao(now);
+            repository.save(plant);
+            repository.save(new Plant("2", "Samambaia"));
+            repository.delete(new Plant("1", null));
+            repository.save(new Plant("1", "Orquídea"));
+        }
+
+        try (DurablePlantRepository repository = open()) {
+            assertThat(codes(repository.findAll()), contains("1", "2"));
+            assertThat(repository.findByCode("1").orElseThrow().getDescricao(), is("Orquídea"));
+            assertThat(repository.findByCode("2").orElseThrow().getId(), is(2L));
+
+            Plant created = repository.save(new Plant("3", null));
+            assertThat(created.getId(), is(4L));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recuperar a partir do snapshot mais o final do log")
+    void shouldRecoverFromSnapshotPlusLogTail() throws IOException {
+        try (DurablePlantRepository repository = open()) {
+            for (int i = 1; i <= 100; i++) {
+                repository.save(new Plant(String.valueOf(i), "p" + i));
+            }
+            repository.snapshot();
+            repository.delete(new Plant("50", null));
+            repository.save(new Plant("101", "novo"));
+        }
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(f -> f.getFileName().toString()).collect(Collectors.toList()),
+                    containsInAnyOrder(
+                            "snapshot-00000000000000000002.dat",
+                            "wal-00000000000000000002.log"));
+        }
+
+        try (DurablePlantRepository repository = open()) {
+            assertThat(repository.findAll(), hasSize(100));
+            assertThat(repository.existsByCode("50"), is(false));
+            assertThat(repository.findByCode("101").orElseThrow().getDescricao(), is("novo"));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve descartar registro incompleto no final do log")
+    void shouldDiscardTornRecordAtLogTail() throws IOException {
+        try (DurablePlantRepository repository = open()) {
+            repository.save(new Plant("1", "Cacto"));
+        }
+        Path segment = WriteAheadLog.segmentPath(directory, 1);
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (DurablePlantRepository repository = open()) {
+            assertThat(codes(repository.findAll()), contains("1"));
+        }
+        assertThat(Files.size(segment), is(lessThan(100L)));
+    }
+
+    @Test
+    @DisplayName("Deve recusar novas escritas depois de uma falha ao gravar o log")
+    void shouldRejectWritesAfterLogWriteFailure() throws IOException {
+        FailingChannel[] channel = new FailingChannel[1];
+        WriteAheadLog log = new WriteAheadLog(directory, 1, true, segment -> channel[0] = new FailingChannel(segment));
+        log.sync(log.append(new byte[]{1}));
+
+        long lost = log.append(new byte[]{2});
+        channel[0].failing = true;
+        assertThrows(PlantStorageException.class, () -> log.sync(lost));
+        channel[0].failing = false;
+
+        assertThrows(PlantStorageException.class, () -> log.sync(lost));
+        assertThrows(PlantStorageException.class, () -> log.append(new byte[]{3}));
+        assertThrows(PlantStorageException.class, log::rotate);
+        assertThat(log.durableLsn(), is(1L));
+        log.close();
+
+        List<byte[]> recovered = new ArrayList<>();
+        WriteAheadLog.readRecords(WriteAheadLog.segmentPath(directory, 1), recovered::add);
+        assertThat(recovered.size(), is(1));
+    }
+
+    @Test
+    @DisplayName("Deve desfazer na memória as alterações que não chegaram ao disco e recusar as seguintes")
+    void shouldRollBackUnsyncedChangesWhenLogFails() {
+        FailingChannel[] channel = new FailingChannel[1];
+        try (DurablePlantRepository repository = new DurablePlantRepository(new InMemoryPlantRepository(), directory,
+                Duration.ofHours(1), generation -> new WriteAheadLog(directory, generation, true,
+                        segment -> channel[0] = new FailingChannel(segment)))) {
+            repository.save(new Plant("1", "Cacto"));
+            repository.save(new Plant("2", "Ipê"));
+
+            channel[0].failing = true;
+            Plant changed = new Plant(repository.findByCode("1").orElseThrow());
+            changed.setDescricao("Alterado");
+            assertThrows(PlantStorageException.class, () -> repository.replaceIfVersion(changed, 1));
+            assertThat(repository.findByCode("1").orElseThrow().getDescricao(), is("Cacto"));
+            channel[0].failing = false;
+
+            long modifications = repository.modificationCount();
+            assertThrows(PlantStorageException.class, () -> repository.insertIfAbsent(new Plant("3", "Rosa")));
+            assertThrows(PlantStorageException.class, () -> repository.deleteAll(List.of("2")));
+            assertThat(repository.modificationCount(), is(modifications));
+            assertThat(codes(repository.findAll()), contains("1", "2"));
+        }
+
+        try (DurablePlantRepository repository = open()) {
+            assertThat(codes(repository.findAll()), contains("1", "2"));
+            assertThat(repository.findByCode("1").orElseThrow().getDescricao(), is("Cacto"));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve continuar gravando depois que um cliente desconecta durante uma escrita reativa")
+    void shouldSurviveClientDisconnectDuringReactiveWrite() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        InMemoryPlantRepository store = new InMemoryPlantRepository() {
+            @Override
+            public boolean insertIfAbsent(Plant plant) {
+                if (plant.getCodigo().equals("1")) {
+                    entered.countDown();
+                    // Espera sem atender a interrupção, como uma escrita já em andamento
+                    while (true) {
+                        try {
+                            release.await();
+                            break;
+                        } catch (InterruptedException e) {
+                            interrupted.set(true);
+                        }
+                    }
+                    Thread.currentThread().interrupt();
+                }
+                return super.insertIfAbsent(plant);
+            }
+        };
+        ExecutorService requests = Executors.newSingleThreadExecutor();
+        try (DurablePlantRepository repository = new DurablePlantRepository(store, directory, true, Duration.ofHours(1))) {
+            ReactivePlantService service = new ReactivePlantService(
+                    new BlockingPlantRepositoryAdapter(repository, Schedulers.fromExecutorService(requests)),
+                    new SimpleUserService());
+
+            Disposable request = service.createPlant(new Plant("1", "Cacto")).subscribe();
+            assertThat(entered.await(5, TimeUnit.SECONDS), is(true));
+            request.dispose();
+            release.countDown();
+            requests.shutdown();
+            assertThat(requests.awaitTermination(5, TimeUnit.SECONDS), is(true));
+            assertThat(interrupted.get(), is(true));
+
+            repository.save(new Plant("2", "Ipê"));
+        }
+
+        try (DurablePlantRepository repository = open()) {
+            assertThat(codes(repository.findAll()), contains("1", "2"));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recuperar exclusões em lote após reinício")
+    void shouldRecoverBulkDeletesAfterRestart() {
+        try (DurablePlantRepository repository = open()) {
+            for (int i = 1; i <= 10; i++) {
+                repository.save(new Plant(String.valueOf(i), "p" + i));
+            }
+            assertThat(codes(repository.deleteAll(List.of("3", "4", "11", "5"))), contains("3", "4", "5"));
+        }
+
+        try (DurablePlantRepository repository = open()) {
+            assertThat(codes(repository.findAll()), contains("1", "2", "6", "7", "8", "9", "10"));
+        }
+    }
+
+    private DurablePlantRepository open() {
+        return new DurablePlantRepository(new InMemoryPlantRepository(), directory, true, Duration.ofHours(1));
+    }
+
+    private List<String> codes(List<Plant> plants) {
+        return plants.stream().map(Plant::getCodigo).collect(Collectors.toList());
+    }
+
+    // Canal de segmento que, enquanto failing, grava normalmente mas falha ao sincronizar
+    private static final class FailingChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        volatile boolean failing;
+
+        FailingChannel(Path segment) throws IOException {
+            delegate = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failing) {
+                throw new IOException("Falha simulada ao sincronizar");
+            }
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
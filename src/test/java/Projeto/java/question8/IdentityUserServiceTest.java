@@ -0,0 +1,154 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Testes do Serviço de Usuários com Repositório de Identidades")
+class IdentityUserServiceTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private InMemoryIdentityStore store;
+    private IdentityUserService userService;
+
+    @BeforeEach
+    void setUp() {
+        store = spy(new InMemoryIdentityStore());
+        store.put("t-maria", new UserIdentity("maria", Set.of(UserIdentity.ADMIN_ROLE)));
+        store.put("t-joao", new UserIdentity("joao", Set.of()));
+        userService = new IdentityUserService(store, Duration.ofMinutes(10), Duration.ofSeconds(10),
+                Duration.ofMinutes(1), 100, "anonimo", Runnable::run, nanos::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Deve resolver o token da requisição uma vez e reutilizá-lo nas seguintes")
+    void shouldResolveTokenOnceAcrossRequests() {
+        for (int i = 0; i < 3; i++) {
+            request("Bearer t-maria");
+            assertThat(userService.getCurrentUsername(), is("maria"));
+            assertThat(userService.isCurrentUserAdmin(), is(true));
+        }
+        request("bearer t-joao");
+        assertThat(userService.getCurrentUsername(), is("joao"));
+        assertThat(userService.isCurrentUserAdmin(), is(false));
+
+        verify(store, times(1)).findByToken("t-maria");
+        verify(store, times(1)).findByToken("t-joao");
+    }
+
+    @Test
+    @DisplayName("Deve tratar como anônimo quem não se identifica")
+    void shouldFallBackToAnonymous() {
+        assertThat(userService.getCurrentUsername(), is("anonimo"));
+
+        request(null);
+        assertThat(userService.getCurrentUsername(), is("anonimo"));
+        request("Basic dXN1YXJpbzpzZW5oYQ==");
+        assertThat(userService.getCurrentUsername(), is("anonimo"));
+        request("Bearer desconhecido");
+        assertThat(userService.getCurrentUsername(), is("anonimo"));
+        assertThat(userService.isCurrentUserAdmin(), is(false));
+        verify(store, times(1)).findByToken(anyString());
+    }
+
+    @Test
+    @DisplayName("Deve renovar o token em segundo plano e expirá-lo após o ttl")
+    void shouldRefreshAheadAndExpire() {
+        assertThat(userService.resolve("t-maria").isAdmin(), is(true));
+        store.put("t-maria", new UserIdentity("maria", Set.of()));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertThat(userService.resolve("t-maria").isAdmin(), is(true));
+        verify(store, times(1)).findByToken("t-maria");
+
+        // Passado refreshAfter, a leitura ainda recebe o valor anterior e dispara a renovação
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertThat(userService.resolve("t-maria").isAdmin(), is(true));
+        assertThat(userService.resolve("t-maria").isAdmin(), is(false));
+        verify(store, times(2)).findByToken("t-maria");
+
+        store.remove("t-maria");
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        assertThat(userService.resolve("t-maria").getUsername(), is("anonimo"));
+        verify(store, times(3)).findByToken("t-maria");
+    }
+
+    @Test
+    @DisplayName("Deve guardar tokens não reconhecidos por pouco tempo")
+    void shouldExpireUnknownTokensSooner() {
+        assertThat(userService.authenticate("Bearer desconhecido"), is(nullValue()));
+        assertThat(userService.resolve("t-joao").getUsername(), is("joao"));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(userService.authenticate("Bearer desconhecido"), is(nullValue()));
+        verify(store, times(1)).findByToken("desconhecido");
+
+        // O token passou a existir: depois da expiração curta, a consulta o reconhece
+        store.put("desconhecido", new UserIdentity("novo", Set.of()));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertThat(userService.authenticate("Bearer desconhecido").getUsername(), is("novo"));
+        assertThat(userService.resolve("t-joao").getUsername(), is("joao"));
+        verify(store, times(2)).findByToken("desconhecido");
+        verify(store, times(1)).findByToken("t-joao");
+    }
+
+    @Test
+    @DisplayName("Deve descartar um token revogado na hora, sem esperar a renovação")
+    void shouldEvictRevokedTokenImmediately() {
+        assertThat(userService.resolve("t-maria").getUsername(), is("maria"));
+        store.remove("t-maria");
+
+        assertThat(userService.resolve("t-maria").getUsername(), is("anonimo"));
+        assertThat(userService.cache().getIfPresent("t-maria"), is(Optional.empty()));
+        verify(store, times(2)).findByToken("t-maria");
+    }
+
+    @Test
+    @DisplayName("Deve carregar usuários e papéis de um arquivo")
+    void shouldLoadIdentitiesFromFile(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("usuarios.properties");
+        Files.write(file, String.join("\n",
+                "# token=usuario:papeis",
+                "t-ana=ana:ADMIN, AUDITOR",
+                "t-bia=bia").getBytes(StandardCharsets.UTF_8));
+
+        InMemoryIdentityStore loaded = InMemoryIdentityStore.load(file);
+
+        UserIdentity ana = loaded.findByToken("t-ana").orElseThrow();
+        assertThat(ana.getUsername(), is("ana"));
+        assertThat(ana.getRoles(), containsInAnyOrder("ADMIN", "AUDITOR"));
+        assertThat(ana.isAdmin(), is(true));
+        assertThat(loaded.findByToken("t-bia").orElseThrow().getRoles(), is(empty()));
+        assertThat(loaded.findByToken("t-ana ").isPresent(), is(false));
+    }
+
+    private static void request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
@@ -0,0 +1,251 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Testes do Repositório de Plantas em Memória")
+class InMemoryPlantRepositoryTest {
+
+    private final InMemoryPlantRepository repository = new InMemoryPlantRepository();
+
+    @Test
+    @DisplayName("Deve buscar por descrição sem distinguir maiúsculas e minúsculas")
+    void shouldSearchDescriptionIgnoringCase() {
+        repository.save(new Plant("1", "Rosa Azul"));
+        repository.save(new Plant("2", "ROSEIRA"));
+        repository.save(new Plant("3", "Tulipa"));
+
+        assertThat(codes(repository.findByDescriptionContaining("rOs")), containsInAnyOrder("1", "2"));
+        assertThat(codes(repository.findByDescriptionContaining("azul")), contains("1"));
+        assertThat(repository.findByDescriptionContaining("violeta"), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve buscar consultas curtas por varredura")
+    void shouldSearchShortQueries() {
+        repository.save(new Plant("1", "Ipê"));
+        repository.save(new Plant("2", "Pinheiro"));
+        repository.save(new Plant("3", null));
+
+        assertThat(codes(repository.findByDescriptionContaining("p")), containsInAnyOrder("1", "2"));
+        assertThat(codes(repository.findByDescriptionContaining("PÊ")), contains("1"));
+    }
+
+    @Test
+    @DisplayName("Não deve retornar candidatos que só compartilham trigramas")
+    void shouldNotReturnTrigramOnlyMatches() {
+        repository.save(new Plant("1", "abcxbcd"));
+
+        assertThat(repository.findByDescriptionContaining("abcd"), is(empty()));
+        assertThat(codes(repository.findByDescriptionContaining("xbcd")), contains("1"));
+    }
+
+    @Test
+    @DisplayName("Deve manter o índice atualizado após alteração e exclusão")
+    void shouldKeepIndexUpToDateAfterUpdateAndDelete() {
+        Plant plant = repository.save(new Plant("1", "Cacto"));
+
+        plant.setDescricao("Samambaia");
+        repository.save(plant);
+
+        assertThat(repository.findByDescriptionContaining("cacto"), is(empty()));
+        assertThat(codes(repository.findByDescriptionContaining("mamba")), contains("1"));
+
+        repository.delete(plant);
+
+        assertThat(repository.findByDescriptionContaining("mamba"), is(empty()));
+        assertThat(repository.findByDescriptionContaining("a"), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve buscar descrições com erros de digitação ordenadas pela distância")
+    void shouldFindSimilarDescriptionsRankedByDistance() {
+        repository.save(new Plant("1", "Rosa"));
+        repository.save(new Plant("2", "ROSAS"));
+        repository.save(new Plant("3", "Prosa"));
+        repository.save(new Plant("4", "Lírio"));
+        repository.save(new Plant("5", "rosa"));
+        repository.save(new Plant("6", null));
+
+        assertThat(codes(repository.findByDescriptionSimilar("rossa", 1)), contains("1", "5"));
+        assertThat(codes(repository.findByDescriptionSimilar("rossa", 2)), contains("1", "5", "2", "3"));
+        assertThat(codes(repository.findByDescriptionSimilar("rsoa", 2)), contains("1", "5"));
+        assertThat(codes(repository.findByDescriptionSimilar("Rosa", 0)), contains("1", "5"));
+        assertThat(codes(repository.findByDescriptionSimilar("lirio", 1)), contains("4"));
+        assertThat(repository.findByDescriptionSimilar("", 3), is(empty()));
+
+        Plant plant = repository.findByCode("1").orElseThrow();
+        plant.setDescricao("Cacto");
+        repository.save(plant);
+        repository.deleteAll(List.of("2"));
+
+        assertThat(codes(repository.findByDescriptionSimilar("rossa", 1)), contains("5"));
+        assertThat(codes(repository.findByDescriptionSimilar("cactos", 1)), contains("1"));
+    }
+
+    @Test
+    @DisplayName("Deve encontrar pelo índice as mesmas descrições que a comparação com todas")
+    void shouldMatchBruteForceLevenshtein() {
+        SplittableRandom random = new SplittableRandom(42);
+        Map<String, String> descriptions = new HashMap<>();
+        for (int i = 1; i <= 3000; i++) {
+            String description = randomDescription(random);
+            repository.save(new Plant(String.valueOf(i), description));
+            descriptions.put(String.valueOf(i), description);
+        }
+        // Exclusões liberam posições do índice, reaproveitadas pelas inserções seguintes
+        for (int i = 1; i <= 3000; i++) {
+            if (i % 3 == 0) {
+                continue;
+            }
+            repository.deleteAll(List.of(String.valueOf(i)));
+            descriptions.remove(String.valueOf(i));
+        }
+        for (int i = 3001; i <= 4000; i++) {
+            String description = randomDescription(random);
+            repository.save(new Plant(String.valueOf(i), description));
+            descriptions.put(String.valueOf(i), description);
+        }
+
+        for (int q = 0; q < 200; q++) {
+            String query = randomDescription(random);
+            int maxDistance = q % 4;
+            Set<String> expected = new HashSet<>();
+            descriptions.forEach((code, description) -> {
+                if (levenshtein(query, description) <= maxDistance) {
+                    expected.add(code);
+                }
+            });
+
+            List<String> found = codes(repository.findByDescriptionSimilar(query, maxDistance));
+            assertThat(query, new HashSet<>(found), is(expected));
+            for (int i = 1; i < found.size(); i++) {
+                assertThat(levenshtein(query, descriptions.get(found.get(i - 1))),
+                        is(lessThanOrEqualTo(levenshtein(query, descriptions.get(found.get(i))))));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve paginar por cursor na ordem numérica dos códigos")
+    void shouldPageByCursorInNumericCodeOrder() {
+        for (String code : List.of("10", "9", "100", "2", "007", "7")) {
+            repository.save(new Plant(code, null));
+        }
+
+        assertThat(codes(repository.findAllAfter(null, 3)), contains("2", "007", "7"));
+        assertThat(codes(repository.findAllAfter("7", 3)), contains("9", "10", "100"));
+        assertThat(repository.findAllAfter("100", 3), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve buscar plantas por intervalo numérico de códigos")
+    void shouldFindPlantsByNumericCodeRange() {
+        for (String code : List.of("5", "12", "40", "99", "100", "1000")) {
+            repository.save(new Plant(code, null));
+        }
+
+        assertThat(codes(repository.findByCodeRange("12", "100", 10)), contains("12", "40", "99", "100"));
+        assertThat(codes(repository.findByCodeRange("6", "1000", 2)), contains("12", "40"));
+        assertThat(repository.findByCodeRange("100", "12", 10), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todas as plantas em ordem de código")
+    void shouldStreamAllPlantsInCodeOrder() {
+        repository.save(new Plant("30", null));
+        repository.save(new Plant("4", null));
+        repository.save(new Plant("200", null));
+
+        assertThat(repository.streamAll().map(Plant::getCodigo).collect(Collectors.toList()),
+                contains("4", "30", "200"));
+    }
+
+    @Test
+    @DisplayName("Deve excluir em lote ignorando códigos inexistentes")
+    void shouldDeleteAllIgnoringMissingCodes() {
+        for (int i = 1; i <= 5; i++) {
+            repository.save(new Plant(String.valueOf(i), "Rosa " + i));
+        }
+        long modifications = repository.modificationCount();
+
+        List<Plant> removed = repository.deleteAll(Arrays.asList("4", "9", "2", null, "4"));
+
+        assertThat(codes(removed), contains("4", "2"));
+        assertThat(removed.get(0).getDescricao(), is("Rosa 4"));
+        assertThat(codes(repository.findAll()), contains("1", "3", "5"));
+        assertThat(codes(repository.findByDescriptionContaining("rosa")), containsInAnyOrder("1", "3", "5"));
+        assertThat(repository.modificationCount(), is(greaterThan(modifications)));
+
+        modifications = repository.modificationCount();
+        assertThat(repository.deleteAll(List.of("2", "7")), is(empty()));
+        assertThat(repository.modificationCount(), is(modifications));
+    }
+
+    @Test
+    @DisplayName("Deve sugerir códigos por prefixo dos mais curtos para os mais longos")
+    void shouldSuggestCodesByPrefixShortestFirst() {
+        for (String code : List.of("1", "12", "120", "1234", "129", "13", "2", "012", "0012", "00", "0", "1200000")) {
+            repository.save(new Plant(code, null));
+        }
+
+        assertThat(codes(repository.findByCodePrefix("12", 10)), contains("12", "120", "129", "1234", "1200000"));
+        assertThat(codes(repository.findByCodePrefix("12", 3)), contains("12", "120", "129"));
+        assertThat(codes(repository.findByCodePrefix("1", 4)), contains("1", "12", "13", "120"));
+        assertThat(codes(repository.findByCodePrefix("01", 10)), contains("012"));
+        assertThat(codes(repository.findByCodePrefix("00", 10)), contains("00", "0012"));
+        assertThat(codes(repository.findByCodePrefix("0", 10)), contains("0", "00", "0012", "012"));
+        assertThat(repository.findByCodePrefix("3", 10), is(empty()));
+        assertThat(repository.findByCodePrefix("1201", 10), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve completar o limite de sugestões ignorando zeros à esquerda no intervalo")
+    void shouldFillSuggestionLimitPastLeadingZeroCodes() {
+        for (int i = 0; i < 20; i++) {
+            repository.save(new Plant("0" + (500 + i), null));
+        }
+        repository.save(new Plant("5", null));
+        repository.save(new Plant("519", null));
+        repository.save(new Plant("5190", null));
+
+        assertThat(codes(repository.findByCodePrefix("5", 3)), contains("5", "519", "5190"));
+        assertThat(codes(repository.findByCodePrefix("05", 2)), contains("0500", "0501"));
+    }
+
+    // Alfabeto pequeno para que haja muitas descrições a poucas edições umas das outras
+    private static String randomDescription(SplittableRandom random) {
+        char[] chars = new char[random.nextInt(1, 11)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = "abcdeÁ".charAt(random.nextInt(6));
+        }
+        return new String(chars);
+    }
+
+    private static int levenshtein(String a, String b) {
+        a = a.toLowerCase(Locale.ROOT);
+        b = b.toLowerCase(Locale.ROOT);
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                } else {
+                    d[i][j] = Math.min(d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+                            Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private List<String> codes(List<Plant> plants) {
+        return plants.stream().map(Plant::getCodigo).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,249 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@DisplayName("Testes do Repositório JDBC de Plantas")
+class JdbcPlantRepositoryTest {
+
+    private final EmbeddedDatabase database = newDatabase();
+    private final JdbcPlantRepository repository = newRepository(database);
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    static EmbeddedDatabase newDatabase() {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+    }
+
+    static JdbcPlantRepository newRepository(EmbeddedDatabase database) {
+        JdbcPlantRepository repository = new JdbcPlantRepository(database);
+        repository.createSchemaIfAbsent();
+        return repository;
+    }
+
+    @Test
+    @DisplayName("Deve preservar todos os atributos e controlar a versão")
+    void shouldRoundTripAttributesAndVersion() {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123456000);
+        Plant plant = new Plant("00123", "Ipê Roxo");
+        plant.setCriadoPor("maria");
+        plant.setDataCriacao(created);
+
+        assertThat(repository.insertIfAbsent(plant), is(true));
+        assertThat(repository.insertIfAbsent(new Plant("00123", "Outra")), is(false));
+
+        Plant found = repository.findByCode("00123").orElseThrow();
+        assertThat(found.getId(), is(plant.getId()));
+        assertThat(found.getDescricao(), is("Ipê Roxo"));
+        assertThat(found.getCriadoPor(), is("maria"));
+        assertThat(found.getDataCriacao(), is(created));
+        assertThat(found.getVersao(), is(1L));
+
+        assertThat(repository.replaceIfVersion(new Plant("00123", "Nova"), 2L), is(false));
+        assertThat(repository.replaceIfVersion(new Plant("00123", "Nova"), 1L), is(true));
+        assertThat(repository.save(new Plant("00123", "Salva")).getVersao(), is(3L));
+        assertThat(repository.findByCode("00123").orElseThrow().getDescricao(), is("Salva"));
+
+        repository.delete(found);
+        assertThat(repository.existsByCode("00123"), is(false));
+        assertThat(repository.modificationCount(), is(4L));
+    }
+
+    @Test
+    @DisplayName("Deve ordenar e paginar os códigos pelo valor numérico no banco")
+    void shouldPageInNumericOrder() {
+        for (String code : List.of("100", "9", "010", "10", "2", "0")) {
+            repository.save(new Plant(code, "p"));
+        }
+
+        assertThat(codes(repository.findAll()), contains("0", "2", "9", "010", "10", "100"));
+        assertThat(codes(repository.findAllAfter("9", 2)), contains("010", "10"));
+        assertThat(codes(repository.findByCodeRange("2", "10", 10)), contains("2", "9", "010", "10"));
+        try (Stream<Plant> plants = repository.streamAll()) {
+            assertThat(plants.count(), is(6L));
+        }
+        assertThat(repository.count(), is(6L));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar no banco as plantas modificadas desde um instante")
+    void shouldStreamPlantsModifiedSince() {
+        LocalDateTime since = LocalDateTime.of(2024, 5, 1, 0, 0);
+        for (int i = 1; i <= 4; i++) {
+            Plant plant = new Plant(String.valueOf(i), "p");
+            plant.setDataUltimaModificacao(since.plusHours(i - 2));
+            repository.save(plant);
+        }
+
+        try (Stream<Plant> plants = repository.streamModifiedSince(since)) {
+            assertThat(codes(plants.collect(Collectors.toList())), contains("2", "3", "4"));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve buscar descrições no banco ignorando maiúsculas e curingas do LIKE")
+    void shouldSearchDescriptionsInSql() {
+        repository.save(new Plant("1", "Rosa"));
+        repository.save(new Plant("2", "ROSADO"));
+        repository.save(new Plant("3", "100%"));
+        repository.save(new Plant("4", "1000"));
+
+        assertThat(codes(repository.findByDescriptionContaining("ros")), contains("1", "2"));
+        assertThat(codes(repository.findByDescriptionContaining("0%")), contains("3"));
+        assertThat(repository.findByDescriptionContaining("_"), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve inserir em lote ignorando códigos existentes e repetidos")
+    void shouldBatchInsertSkippingExistingCodes() {
+        repository.save(new Plant("5", "Existente"));
+        List<Plant> plants = Stream.iterate(1, i -> i + 1).limit(1200)
+                .map(i -> new Plant(String.valueOf(i), "p" + i))
+                .collect(Collectors.toList());
+        plants.add(new Plant("7", "Repetida"));
+
+        List<Plant> inserted = repository.insertAllIfAbsent(plants);
+
+        assertThat(inserted, hasSize(1199));
+        assertThat(inserted.stream().allMatch(plant -> plant.getId() != null && plant.getVersao() == 1L), is(true));
+        assertThat(repository.count(), is(1200L));
+        assertThat(repository.findByCode("5").orElseThrow().getDescricao(), is("Existente"));
+        assertThat(repository.findByCode("7").orElseThrow().getDescricao(), is("p7"));
+        assertThat(repository.findByCode("1200").orElseThrow().getId(), is(inserted.get(1198).getId()));
+    }
+
+    @Test
+    @DisplayName("Deve excluir em lote acima do tamanho de um lote de comandos")
+    void shouldDeleteAllAcrossChunks() {
+        List<Plant> plants = new ArrayList<>();
+        for (int i = 1; i <= 1200; i++) {
+            plants.add(new Plant(String.valueOf(i), "p" + i));
+        }
+        repository.insertAllIfAbsent(plants);
+        List<String> codes = new ArrayList<>();
+        for (int i = 1200; i >= 2; i -= 2) {
+            codes.add(String.valueOf(i));
+        }
+        codes.add("4");
+        codes.add("5000");
+
+        List<Plant> removed = repository.deleteAll(codes);
+
+        assertThat(removed.size(), is(600));
+        assertThat(removed.stream().allMatch(plant -> plant.getVersao() == 1L && plant.getDescricao() != null), is(true));
+        assertThat(repository.count(), is(600L));
+        assertThat(repository.existsByCode("600"), is(false));
+        assertThat(repository.existsByCode("599"), is(true));
+    }
+
+    @Test
+    @DisplayName("Deve sugerir códigos por prefixo com consultas pelo índice de ordem")
+    void shouldSuggestCodesByPrefix() {
+        for (String code : List.of("3", "30", "31", "300", "3999", "4", "03")) {
+            repository.insertIfAbsent(new Plant(code, null));
+        }
+
+        assertThat(codes(repository.findByCodePrefix("3", 10)), contains("3", "30", "31", "300", "3999"));
+        assertThat(codes(repository.findByCodePrefix("3", 2)), contains("3", "30"));
+        assertThat(codes(repository.findByCodePrefix("03", 10)), contains("03"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar descrições com erros de digitação filtrando pelo tamanho no banco")
+    void shouldFindSimilarDescriptions() {
+        repository.insertIfAbsent(new Plant("1", "Girassol"));
+        repository.insertIfAbsent(new Plant("2", "girasol"));
+        repository.insertIfAbsent(new Plant("3", "Girassóis"));
+        repository.insertIfAbsent(new Plant("4", null));
+
+        assertThat(codes(repository.findByDescriptionSimilar("girasol", 1)), contains("2", "1"));
+        assertThat(codes(repository.findByDescriptionSimilar("GIRASSOIS", 2)), contains("3", "1"));
+        assertThat(repository.findByDescriptionSimilar("gi", 1), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve mudar a revisão das listagens com escritas de outra instância no mesmo banco")
+    void shouldShareModificationCountAcrossInstances() {
+        JdbcPlantRepository other = newRepository(database);
+        PlantService service = new PlantService(repository, new SimpleUserService());
+        PlantService otherService = new PlantService(other, new SimpleUserService());
+
+        String revision = service.getCollectionRevision();
+        otherService.createPlant(new Plant("1", "Rosa"));
+        assertThat(service.getCollectionRevision(), is(not(revision)));
+
+        revision = service.getCollectionRevision();
+        otherService.updatePlant("1", new Plant("1", "Rosada"));
+        assertThat(service.getCollectionRevision(), is(not(revision)));
+
+        revision = service.getCollectionRevision();
+        other.deleteAll(List.of("1", "2"));
+        assertThat(service.getCollectionRevision(), is(not(revision)));
+
+        revision = service.getCollectionRevision();
+        other.deleteAll(List.of("1"));
+        other.insertIfAbsent(new Plant("1", null));
+        other.insertIfAbsent(new Plant("1", null));
+        long afterInsert = repository.modificationCount();
+        other.replaceIfVersion(new Plant("1", "x"), 7);
+        assertThat(repository.modificationCount(), is(afterInsert));
+        assertThat(service.getCollectionRevision(), is(not(revision)));
+    }
+
+    @Test
+    @DisplayName("Deve avançar o identity após ids explícitos e não repetir a gravação com id já usado")
+    void shouldAdvanceIdentityAfterExplicitIds() {
+        Plant restored = new Plant("1", "Rosa");
+        restored.setId(5L);
+        repository.save(restored);
+
+        Plant generated = new Plant("2", "Ipê");
+        assertThat(repository.insertIfAbsent(generated), is(true));
+        assertThat(generated.getId(), is(greaterThan(5L)));
+
+        Plant sameId = new Plant("3", "Cacto");
+        sameId.setId(5L);
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(DuplicateKeyException.class, () -> repository.save(sameId)));
+        Plant sameIdInsert = new Plant("3", "Cacto");
+        sameIdInsert.setId(5L);
+        assertThrows(DuplicateKeyException.class, () -> repository.insertIfAbsent(sameIdInsert));
+        assertThat(repository.insertIfAbsent(new Plant("1", "Outra")), is(false));
+
+        // Um id explícito abaixo do maior conhecido não faz o identity voltar
+        repository.deleteAll(List.of("2"));
+        Plant old = new Plant("4", "Antiga");
+        old.setId(3L);
+        repository.save(old);
+        Plant next = new Plant("5", "Nova");
+        repository.insertIfAbsent(next);
+        assertThat(next.getId(), is(greaterThan(generated.getId())));
+    }
+
+    private static List<String> codes(List<Plant> plants) {
+        return plants.stream().map(Plant::getCodigo).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,161 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Testes do Repositório Compacto de Plantas")
+class OffHeapPlantRepositoryTest {
+
+    private final OffHeapPlantRepository repository = new OffHeapPlantRepository(16);
+
+    @Test
+    @DisplayName("Deve preservar todos os atributos da planta")
+    void shouldRoundTripAllAttributes() {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123456789);
+        Plant plant = new Plant("00123", "Ipê Roxo");
+        plant.setCriadoPor("maria");
+        plant.setDataCriacao(created);
+        plant.setUltimaModificacaoPor("joao");
+        plant.setDataUltimaModificacao(created.plusDays(1));
+
+        repository.save(plant);
+        Plant found = repository.findByCode("00123").orElseThrow();
+
+        assertThat(found.getId(), is(plant.getId()));
+        assertThat(found.getCodigo(), is("00123"));
+        assertThat(found.getDescricao(), is("Ipê Roxo"));
+        assertThat(found.getCriadoPor(), is("maria"));
+        assertThat(found.getDataCriacao(), is(created));
+        assertThat(found.getUltimaModificacaoPor(), is("joao"));
+        assertThat(found.getDataUltimaModificacao(), is(created.plusDays(1)));
+        assertThat(repository.existsByCode("123"), is(false));
+    }
+
+    @Test
+    @DisplayName("Deve sobrescrever, excluir e reaproveitar registros")
+    void shouldOverwriteDeleteAndReuseRecords() {
+        repository.save(new Plant("1", "Cacto"));
+        repository.save(new Plant("1", null));
+
+        assertThat(repository.findByCode("1").orElseThrow().getDescricao(), is(nullValue()));
+        assertThat(repository.size(), is(1));
+
+        repository.delete(new Plant("1", null));
+        assertThat(repository.findByCode("1").isPresent(), is(false));
+        assertThat(repository.size(), is(0));
+
+        for (int i = 0; i < 1000; i++) {
+            repository.save(new Plant(String.valueOf(i), "p" + i));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            repository.delete(new Plant(String.valueOf(i), null));
+        }
+
+        assertThat(repository.size(), is(500));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(repository.existsByCode(String.valueOf(i)), is(i % 2 == 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve listar, paginar e buscar intervalos na ordem numérica dos códigos")
+    void shouldKeepNumericCodeOrder() {
+        for (String code : List.of("10", "9", "100", "2", "007", "7", "0", "00")) {
+            repository.save(new Plant(code, null));
+        }
+
+        assertThat(codes(repository.findAll()), contains("0", "00", "2", "007", "7", "9", "10", "100"));
+        assertThat(codes(repository.findAll()),
+                is(List.of("0", "00", "2", "007", "7", "9", "10", "100").stream()
+                        .sorted(PlantCodes.NUMERIC_ORDER).collect(Collectors.toList())));
+        assertThat(codes(repository.findAllAfter("007", 3)), contains("7", "9", "10"));
+        assertThat(codes(repository.findByCodeRange("3", "99", 10)), contains("007", "7", "9", "10"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar por descrição sem distinguir maiúsculas e minúsculas")
+    void shouldSearchDescriptionIgnoringCase() {
+        repository.save(new Plant("1", "Rosa Azul"));
+        repository.save(new Plant("2", "ROSEIRA"));
+        repository.save(new Plant("3", null));
+
+        assertThat(codes(repository.findByDescriptionContaining("rOs")), containsInAnyOrder("1", "2"));
+        assertThat(repository.findByDescriptionContaining("violeta"), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar códigos maiores que o suportado")
+    void shouldRejectCodesBeyondSupportedSize() {
+        assertThrows(ValidationException.class,
+                () -> repository.save(new Plant("123456789012345678", null)));
+    }
+
+    @Test
+    @DisplayName("Deve excluir em lote e reaproveitar os registros liberados")
+    void shouldDeleteAllAndReuseRecords() {
+        for (int i = 0; i < 100; i++) {
+            repository.save(new Plant(String.valueOf(i), "p" + i));
+        }
+        List<String> evens = new ArrayList<>();
+        for (int i = 0; i < 100; i += 2) {
+            evens.add(String.valueOf(i));
+        }
+        evens.add("abc");
+        evens.add("1000");
+
+        List<Plant> removed = repository.deleteAll(evens);
+
+        assertThat(removed.size(), is(50));
+        assertThat(removed.get(1).getCodigo(), is("2"));
+        assertThat(removed.get(1).getDescricao(), is("p2"));
+        assertThat(repository.size(), is(50));
+        assertThat(repository.existsByCode("2"), is(false));
+        assertThat(repository.existsByCode("3"), is(true));
+
+        long capacity = repository.offHeapBytes();
+        for (int i = 0; i < 100; i += 2) {
+            repository.save(new Plant(String.valueOf(i), "n" + i));
+        }
+        assertThat(repository.offHeapBytes(), is(capacity));
+        assertThat(repository.findByCode("2").orElseThrow().getDescricao(), is("n2"));
+    }
+
+    @Test
+    @DisplayName("Deve sugerir códigos por prefixo na ordem numérica")
+    void shouldSuggestCodesByPrefix() {
+        for (String code : List.of("7", "70", "705", "71", "7000", "8", "07")) {
+            repository.save(new Plant(code, null));
+        }
+
+        assertThat(codes(repository.findByCodePrefix("7", 10)), contains("7", "70", "71", "705", "7000"));
+        assertThat(codes(repository.findByCodePrefix("70", 2)), contains("70", "705"));
+        assertThat(codes(repository.findByCodePrefix("0", 10)), contains("07"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar descrições com erros de digitação direto nos registros")
+    void shouldFindSimilarDescriptions() {
+        repository.save(new Plant("1", "Orquídea"));
+        repository.save(new Plant("2", "orquidea"));
+        repository.save(new Plant("3", "Orquídeas"));
+        repository.save(new Plant("4", null));
+        repository.save(new Plant("5", "Bromélia"));
+
+        assertThat(codes(repository.findByDescriptionSimilar("orquídea", 1)), contains("1", "2", "3"));
+        assertThat(codes(repository.findByDescriptionSimilar("ORQIDEA", 2)), contains("2", "1"));
+        assertThat(repository.findByDescriptionSimilar("bromeliaceae", 3), is(empty()));
+    }
+
+    private List<String> codes(List<Plant> plants) {
+        return plants.stream().map(Plant::getCodigo).collect(Collectors.toList());
+    }
+}
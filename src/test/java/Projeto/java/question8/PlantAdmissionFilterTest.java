@@ -0,0 +1,162 @@
+package Projeto.java.question8;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Testes do Controle de Admissão")
+class PlantAdmissionFilterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    @DisplayName("Deve recusar com 429 e Retry-After o cliente que esgota seu balde")
+    void shouldRejectClientOverRate() throws Exception {
+        PlantAdmissionFilter filter = new PlantAdmissionFilter(new PlantAdmissionControl(2, 2, Duration.ofMinutes(1),
+                1000, 20, 4, 200, new SimpleMeterRegistry(), nanos::get), identities());
+
+        assertThat(perform(filter, "GET", "/api/plantas/1", "Bearer a").getStatus(), is(200));
+        assertThat(perform(filter, "POST", "/api/plantas", "Bearer a").getStatus(), is(200));
+        MockHttpServletResponse rejected = perform(filter, "GET", "/api/plantas/1", "Bearer a");
+        assertThat(rejected.getStatus(), is(429));
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER), is("1"));
+        assertThat(rejected.getContentAsString(), is("Limite de requisições do cliente excedido"));
+
+        assertThat(perform(filter, "GET", "/api/plantas/1", "Bearer b").getStatus(), is(200));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(perform(filter, "GET", "/api/plantas/1", "Bearer a").getStatus(), is(200));
+        assertThat(perform(filter, "GET", "/api/plantas/1", "Bearer a").getStatus(), is(429));
+    }
+
+    @Test
+    @DisplayName("Deve identificar pelo endereço o cliente com token não reconhecido")
+    void shouldKeyUnrecognizedTokensOnRemoteAddress() throws Exception {
+        PlantAdmissionFilter filter = new PlantAdmissionFilter(new PlantAdmissionControl(2, 2, Duration.ofMinutes(1),
+                1000, 20, 4, 200, new SimpleMeterRegistry(), nanos::get), identities());
+
+        assertThat(perform(filter, "GET", "/api/plantas/1", "Bearer x1").getStatus(), is(200));
+        assertThat(perform(filter, "GET", "/api/plantas/1", "Bearer x2").getStatus(), is(200));
+        assertThat(perform(filter, "GET", "/api/plantas/1", "Bearer x3").getStatus(), is(429));
+        assertThat(perform(filter, "GET", "/api/plantas/1", null).getStatus(), is(429));
+        assertThat(perform(filter, "GET", "/api/plantas/1", "Bearer a").getStatus(), is(200));
+    }
+
+    @Test
+    @DisplayName("Deve recusar com 503 acima do limite da classe sem afetar as demais classes")
+    void shouldRejectOverConcurrencyLimitPerEndpointClass() throws Exception {
+        PlantAdmissionControl control = new PlantAdmissionControl(0, 0, Duration.ofMinutes(1), 1000, 4, 4, 200,
+                new SimpleMeterRegistry(), nanos::get);
+        PlantAdmissionFilter filter = new PlantAdmissionFilter(control);
+        List<PlantAdmissionControl.Admission> inFlight = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            inFlight.add(control.admit("outro", PlantAdmissionControl.EndpointClass.READ));
+        }
+
+        MockHttpServletResponse rejected = perform(filter, "GET", "/api/plantas/1", null);
+        assertThat(rejected.getStatus(), is(503));
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER), is("1"));
+        assertThat(perform(filter, "GET", "/api/plantas/search", null).getStatus(), is(200));
+        assertThat(perform(filter, "DELETE", "/api/plantas/1", null).getStatus(), is(200));
+        assertThat(perform(filter, "GET", "/api/plantas/changes", null).getStatus(), is(200));
+
+        inFlight.get(0).complete();
+        assertThat(perform(filter, "GET", "/api/plantas/1", null).getStatus(), is(200));
+    }
+
+    @Test
+    @DisplayName("Deve classificar os endpoints em leitura, escrita e busca")
+    void shouldClassifyEndpoints() {
+        assertThat(PlantAdmissionFilter.classify("GET", "/api/plantas"), is(PlantAdmissionControl.EndpointClass.READ));
+        assertThat(PlantAdmissionFilter.classify("GET", "/api/plantas/7/audit"), is(PlantAdmissionControl.EndpointClass.READ));
+        assertThat(PlantAdmissionFilter.classify("GET", "/api/plantas/suggest"), is(PlantAdmissionControl.EndpointClass.SEARCH));
+        assertThat(PlantAdmissionFilter.classify("PUT", "/api/plantas/7"), is(PlantAdmissionControl.EndpointClass.WRITE));
+        assertThat(PlantAdmissionFilter.classify("GET", "/api/plantas/changes"), is(nullValue()));
+        assertThat(PlantAdmissionFilter.classify("GET", "/api/plantasx"), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Deve classificar pelo caminho decodificado, sem parâmetros de segmento")
+    void shouldClassifyDecodedPath() throws Exception {
+        PlantAdmissionControl control = new PlantAdmissionControl(0, 0, Duration.ofMinutes(1), 1000, 4, 4, 200,
+                new SimpleMeterRegistry(), nanos::get);
+        PlantAdmissionFilter filter = new PlantAdmissionFilter(control);
+        for (int i = 0; i < 4; i++) {
+            control.admit("outro", PlantAdmissionControl.EndpointClass.SEARCH);
+        }
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/plantas;x=1/%73earch");
+        request.setServletPath("/api/plantas/search");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        assertThat(response.getStatus(), is(503));
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite quando a latência sobe com demanda no limite e voltar a subir depois")
+    void shouldAdaptLimitToLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 200, 10);
+        long millisecond = TimeUnit.MILLISECONDS.toNanos(1);
+
+        window(limit, millisecond, 20);
+        int afterHealthyWindow = limit.limit();
+        assertThat(afterHealthyWindow, is(greaterThanOrEqualTo(20)));
+
+        for (int i = 0; i < 20; i++) {
+            window(limit, 10 * millisecond, limit.limit());
+        }
+        int afterOverload = limit.limit();
+        assertThat(afterOverload, is(lessThan(afterHealthyWindow / 2)));
+
+        // Sem demanda perto do limite, a latência baixa não faz o limite crescer
+        for (int i = 0; i < 10; i++) {
+            window(limit, millisecond, 1);
+        }
+        assertThat(limit.limit(), is(lessThanOrEqualTo(afterOverload)));
+
+        for (int i = 0; i < 10; i++) {
+            window(limit, millisecond, limit.limit());
+        }
+        assertThat(limit.limit(), is(greaterThan(afterOverload)));
+    }
+
+    private static void window(AdaptiveConcurrencyLimit limit, long latencyNanos, int inFlight) {
+        for (int i = 0; i < 10; i++) {
+            limit.sample(latencyNanos, inFlight);
+        }
+    }
+
+    private static IdentityUserService identities() {
+        InMemoryIdentityStore store = new InMemoryIdentityStore();
+        store.put("a", new UserIdentity("ana", Set.of()));
+        store.put("b", new UserIdentity("bruno", Set.of()));
+        return new IdentityUserService(store, Duration.ofMinutes(10), Duration.ofSeconds(10), Duration.ofMinutes(1),
+                100, "anonimo");
+    }
+
+    private static MockHttpServletResponse perform(PlantAdmissionFilter filter, String method, String uri,
+                                                   String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setServletPath(uri);
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
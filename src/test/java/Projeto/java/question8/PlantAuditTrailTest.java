@@ -0,0 +1,162 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@DisplayName("Testes da Trilha de Auditoria de Plantas")
+class PlantAuditTrailTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve registrar criação, atualização e exclusão com usuário e versão")
+    void shouldRecordServiceOperations() {
+        PlantAuditTrail auditTrail = new PlantAuditTrail(directory, 1024, 64, 1 << 20);
+        PlantService plantService = new PlantService(new InMemoryPlantRepository(), new SimpleUserService(), null, auditTrail);
+
+        plantService.createPlant(new Plant("1", "Rosa"));
+        plantService.createPlant(new Plant("2", "Ipê"));
+        plantService.updatePlant("1", new Plant("1", "Rosada"));
+        plantService.deletePlant("1");
+        auditTrail.close();
+
+        List<PlantAuditEvent> events = auditTrail.find("1", null, null);
+        assertThat(events.stream().map(PlantAuditEvent::getOperacao).collect(Collectors.toList()), contains(
+                PlantChangeEvent.Type.CREATED, PlantChangeEvent.Type.UPDATED, PlantChangeEvent.Type.DELETED));
+        assertThat(events.get(1).getUsuario(), is("usuario_sistema"));
+        assertThat(events.get(1).getVersao(), is(2L));
+        assertThat(events.get(1).getDescricao(), is("Rosada"));
+        assertThat(auditTrail.find("2", null, null), hasSize(1));
+        assertThat(auditTrail.writtenCount(), is(4L));
+
+        assertThat(auditTrail.record(events.get(0)), is(false));
+        assertThat(auditTrail.droppedCount(), is(1L));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por período e continuar entre arquivos rotacionados e reaberturas")
+    void shouldQueryTimeRangeAcrossRotatedFiles() throws IOException {
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        PlantAuditTrail auditTrail = new PlantAuditTrail(directory, 1024, 10, 512);
+        for (int i = 0; i < 60; i++) {
+            auditTrail.record(new PlantAuditEvent(start.plusMinutes(i), PlantChangeEvent.Type.UPDATED,
+                    String.valueOf(i % 3), "ana", (long) i, "d" + i));
+        }
+        auditTrail.close();
+
+        PlantAuditTrail reopened = new PlantAuditTrail(directory, 1024, 10, 512);
+        reopened.record(new PlantAuditEvent(start.plusMinutes(60), PlantChangeEvent.Type.DELETED, "0", "ana", 60L, null));
+        reopened.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count(), is(greaterThan(2L)));
+        }
+        assertThat(reopened.find("0", null, null), hasSize(21));
+        List<PlantAuditEvent> range = reopened.find("0", start.plusMinutes(30), start.plusMinutes(45));
+        assertThat(range.stream().map(PlantAuditEvent::getVersao).collect(Collectors.toList()),
+                contains(30L, 33L, 36L, 39L, 42L, 45L));
+        assertThat(reopened.find("0", start.plusHours(2), null), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve pular pelo índice os arquivos com eventos só antes ou só depois do período")
+    void shouldSkipFilesOutsideRangeByIndex() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+        PlantAuditTrail auditTrail = new PlantAuditTrail(directory, 1024, 10, 512);
+        for (int i = 0; i < 60; i++) {
+            auditTrail.record(new PlantAuditEvent(start.plusMinutes(i), PlantChangeEvent.Type.UPDATED,
+                    "0", "ana", (long) i, "d" + i));
+        }
+        auditTrail.close();
+
+        List<Path> logs;
+        try (Stream<Path> files = Files.list(directory)) {
+            logs = files.filter(file -> file.toString().endsWith(PlantAuditTrail.FILE_SUFFIX)).sorted().collect(Collectors.toList());
+        }
+        assertThat(logs.size(), is(greaterThan(2)));
+        for (Path log : logs) {
+            assertThat(Files.exists(Path.of(log.toString().replace(PlantAuditTrail.FILE_SUFFIX, PlantAuditTrail.INDEX_SUFFIX))), is(true));
+        }
+        // Um evento do período acrescentado ao primeiro e ao último arquivo só apareceria se eles fossem lidos
+        String inRange = "{\"dataHora\":\"" + start.plusMinutes(30) + "\",\"operacao\":\"DELETED\",\"codigo\":\"0\"}\n";
+        Files.writeString(logs.get(0), inRange, StandardOpenOption.APPEND);
+        Files.writeString(logs.get(logs.size() - 1), inRange, StandardOpenOption.APPEND);
+
+        List<PlantAuditEvent> range = auditTrail.find("0", start.plusMinutes(25), start.plusMinutes(35));
+        assertThat(range.stream().map(PlantAuditEvent::getVersao).collect(Collectors.toList()),
+                contains(25L, 26L, 27L, 28L, 29L, 30L, 31L, 32L, 33L, 34L, 35L));
+    }
+
+    @Test
+    @DisplayName("Deve gravar todo evento aceito mesmo com registros simultâneos ao encerramento")
+    void shouldWriteEveryAcceptedEventWhenClosing() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            PlantAuditTrail auditTrail = new PlantAuditTrail(directory.resolve("r" + round), 1 << 16, 64, 1 << 20);
+            AtomicLong accepted = new AtomicLong();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < 4; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        if (auditTrail.record(new PlantAuditEvent(LocalDateTime.now(), PlantChangeEvent.Type.CREATED,
+                                "1", "ana", 1L, null))) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            auditTrail.close();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+
+            assertThat(auditTrail.writtenCount(), is(accepted.get()));
+            assertThat(auditTrail.find("1", null, null), hasSize((int) accepted.get()));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve expor a auditoria de uma planta pela API")
+    void shouldServeAuditTrailOverHttp() throws Exception {
+        PlantAuditTrail auditTrail = new PlantAuditTrail(directory, 1024, 64, 1 << 20);
+        auditTrail.record(new PlantAuditEvent(LocalDateTime.of(2024, 5, 1, 10, 0), PlantChangeEvent.Type.CREATED,
+                "7", "ana", 1L, "Ipê"));
+        auditTrail.close();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new PlantAuditController(auditTrail, new SimpleUserService())).build();
+
+        mockMvc.perform(get("/api/plantas/7/audit").param("from", "2024-05-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].operacao").value("CREATED"))
+                .andExpect(jsonPath("$[0].usuario").value("ana"));
+        mockMvc.perform(get("/api/plantas/7/audit")
+                        .param("from", "2024-05-02T00:00:00")
+                        .param("to", "2024-05-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+}
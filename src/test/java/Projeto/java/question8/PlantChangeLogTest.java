@@ -0,0 +1,229 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@DisplayName("Testes do Fluxo de Alterações de Plantas")
+class PlantChangeLogTest {
+
+    @Test
+    @DisplayName("Deve publicar criações, atualizações e exclusões do serviço em ordem")
+    void shouldPublishServiceMutationsInOrder() {
+        PlantChangeLog changeLog = new PlantChangeLog(16);
+        PlantService plantService = new PlantService(new InMemoryPlantRepository(), new SimpleUserService(), changeLog, null);
+
+        plantService.createPlant(new Plant("1", "Rosa"));
+        plantService.updatePlant("1", new Plant("1", "Rosada"));
+        plantService.createPlants(List.of(new Plant("2", "Ipê"), new Plant("1", "Repetida")));
+        plantService.deletePlant("2");
+
+        List<PlantChangeEvent> events = changeLog.read(1, 100);
+        assertThat(events.stream().map(PlantChangeEvent::getSequence).collect(Collectors.toList()), contains(1L, 2L, 3L, 4L));
+        assertThat(events.stream().map(PlantChangeEvent::getType).collect(Collectors.toList()), contains(
+                PlantChangeEvent.Type.CREATED, PlantChangeEvent.Type.UPDATED,
+                PlantChangeEvent.Type.CREATED, PlantChangeEvent.Type.DELETED));
+        assertThat(events.get(1).getPlant().getDescricao(), is("Rosada"));
+        assertThat(events.get(1).getPlant().getVersao(), is(2L));
+        assertThat(changeLog.read(4, 100), hasSize(1));
+        assertThat(changeLog.read(5, 100), is(empty()));
+    }
+
+    @Test
+    @DisplayName("Deve reter só os últimos eventos e retomar do mais antigo retido")
+    void shouldOverwriteOldestEvents() {
+        PlantChangeLog changeLog = new PlantChangeLog(5);
+        assertThat(changeLog.capacity(), is(8));
+        for (int i = 1; i <= 20; i++) {
+            changeLog.publish(PlantChangeEvent.Type.CREATED, new Plant(String.valueOf(i), "p"));
+        }
+
+        List<PlantChangeEvent> events = changeLog.read(3, 100);
+        assertThat(events, hasSize(8));
+        assertThat(events.get(0).getSequence(), is(13L));
+        assertThat(events.get(7).getPlant().getCodigo(), is("20"));
+        assertThat(changeLog.lastSequence(), is(20L));
+    }
+
+    @Test
+    @DisplayName("Deve entregar sequências contíguas com publicações simultâneas")
+    void shouldKeepSequencesContiguousUnderConcurrentPublishers() throws Exception {
+        PlantChangeLog changeLog = new PlantChangeLog(1 << 16);
+        int threads = 8;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    changeLog.publish(PlantChangeEvent.Type.UPDATED, new Plant("1", "p"));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+
+        List<Long> sequences = new ArrayList<>();
+        long next = 1;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (next <= threads * perThread && System.nanoTime() < deadline) {
+            for (PlantChangeEvent event : changeLog.read(next, 1000)) {
+                sequences.add(event.getSequence());
+                next = event.getSequence() + 1;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(sequences, hasSize(threads * perThread));
+        for (int i = 0; i < sequences.size(); i++) {
+            assertThat(sequences.get(i), is(i + 1L));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve transmitir as alterações como Server-Sent Events a partir do Last-Event-ID")
+    void shouldStreamChangesAsServerSentEvents() throws Exception {
+        PlantChangeLog changeLog = new PlantChangeLog(16);
+        PlantService plantService = new PlantService(new InMemoryPlantRepository(), new SimpleUserService(), changeLog, null);
+        plantService.createPlant(new Plant("1", "Rosa"));
+        plantService.createPlant(new Plant("2", "Ipê"));
+
+        try (PlantChangeController controller = new PlantChangeController(changeLog, Duration.ofMillis(10),
+                Duration.ofMinutes(1), Duration.ofSeconds(10), 1)) {
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+            MockHttpServletResponse response = mockMvc.perform(get("/api/plantas/changes")
+                            .header("Last-Event-ID", "1"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn().getResponse();
+
+            plantService.updatePlant("2", new Plant("2", "Ipê Roxo"));
+
+            String epoch = changeLog.epoch();
+            String body = awaitContent(response, "id:" + epoch + "-3");
+            assertThat(body, not(containsString("-1\n")));
+            assertThat(body, containsString("id:" + epoch + "-2\nevent:created\ndata:{\"codigo\":\"2\",\"descricao\":\"Ipê\""));
+            assertThat(body, containsString("id:" + epoch + "-3\nevent:updated\ndata:{\"codigo\":\"2\",\"descricao\":\"Ipê Roxo\""));
+            assertThat(response.getContentType(), startsWith("text/event-stream"));
+
+            MockHttpServletResponse resumed = mockMvc.perform(get("/api/plantas/changes")
+                            .header("Last-Event-ID", epoch + "-2"))
+                    .andReturn().getResponse();
+            assertThat(awaitContent(resumed, "-3\n"), not(containsString("-2\n")));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve sinalizar reinício para um Last-Event-ID de outra época ou além da última sequência")
+    void shouldSignalResetForUnknownLastEventId() throws Exception {
+        PlantChangeLog changeLog = new PlantChangeLog(16);
+        changeLog.publish(PlantChangeEvent.Type.CREATED, new Plant("1", "Rosa"));
+        changeLog.publish(PlantChangeEvent.Type.CREATED, new Plant("2", "Ipê"));
+
+        try (PlantChangeController controller = new PlantChangeController(changeLog, Duration.ofMillis(10),
+                Duration.ofMinutes(1), Duration.ofSeconds(10), 1)) {
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+            for (String lastEventId : List.of("outra-7", "7", changeLog.epoch() + "-7")) {
+                MockHttpServletResponse response = mockMvc.perform(get("/api/plantas/changes")
+                                .header("Last-Event-ID", lastEventId))
+                        .andReturn().getResponse();
+
+                String body = awaitContent(response, "-2\n");
+                assertThat(body, startsWith("event:gap\ndata:{\"reinicio\":true}"));
+                assertThat(body, containsString("id:" + changeLog.epoch() + "-1\nevent:created"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve desconectar um assinante lento sem atrasar os demais")
+    void shouldDropSlowSubscriberWithoutStallingOthers() throws Exception {
+        PlantChangeLog changeLog = new PlantChangeLog(16);
+        CountDownLatch release = new CountDownLatch(1);
+        Filter slowClient = (request, response, chain) -> {
+            if (((HttpServletRequest) request).getHeader("X-Lento") == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            chain.doFilter(request, new HttpServletResponseWrapper((HttpServletResponse) response) {
+                @Override
+                public ServletOutputStream getOutputStream() {
+                    return new ServletOutputStream() {
+                        @Override
+                        public void write(int b) throws IOException {
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                throw new IOException(e);
+                            }
+                        }
+
+                        @Override
+                        public boolean isReady() {
+                            return false;
+                        }
+
+                        @Override
+                        public void setWriteListener(WriteListener writeListener) {
+                        }
+                    };
+                }
+            });
+        };
+
+        try (PlantChangeController controller = new PlantChangeController(changeLog, Duration.ofMillis(10),
+                Duration.ofMinutes(1), Duration.ofMillis(200), 1)) {
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).addFilters(slowClient).build();
+            MvcResult slow = mockMvc.perform(get("/api/plantas/changes").header("X-Lento", "1")).andReturn();
+            MockHttpServletResponse fast = mockMvc.perform(get("/api/plantas/changes")).andReturn().getResponse();
+
+            changeLog.publish(PlantChangeEvent.Type.CREATED, new Plant("1", "Rosa"));
+            assertThat(awaitContent(fast, "-1\n"), containsString("event:created"));
+
+            // Depois do prazo de envio do assinante lento, o outro continua sendo atendido
+            Thread.sleep(400);
+            changeLog.publish(PlantChangeEvent.Type.CREATED, new Plant("2", "Ipê"));
+            assertThat(awaitContent(fast, "-2\n"), containsString("-2\nevent:created"));
+
+            release.countDown();
+            assertThat(slow.getAsyncResult(5000), is(instanceOf(IOException.class)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = response.getContentAsString(StandardCharsets.UTF_8);
+        while (!body.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            body = response.getContentAsString(StandardCharsets.UTF_8);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,169 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Testes de Concorrência do Serviço de Plantas")
+class PlantConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    static Stream<Arguments> repositories() {
+        return Stream.of(
+                Arguments.of("memória", (Supplier<PlantRepository>) InMemoryPlantRepository::new),
+                Arguments.of("fora do heap", (Supplier<PlantRepository>) OffHeapPlantRepository::new),
+                Arguments.of("particionado", (Supplier<PlantRepository>) () -> new ShardedPlantRepository(
+                        List.of(new InMemoryPlantRepository(), new InMemoryPlantRepository(), new InMemoryPlantRepository()),
+                        Runnable::run, 8)),
+                Arguments.of("jdbc", (Supplier<PlantRepository>) () ->
+                        JdbcPlantRepositoryTest.newRepository(JdbcPlantRepositoryTest.newDatabase())));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositories")
+    @DisplayName("Deve aceitar apenas uma criação por código sob disputa")
+    void shouldAcceptSingleCreatePerCodeUnderContention(String name, Supplier<PlantRepository> repositories) throws Exception {
+        PlantService plantService = new PlantService(repositories.get(), new SimpleUserService());
+        int codes = 200;
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int code = 0; code < codes; code++) {
+                try {
+                    plantService.createPlant(new Plant(String.valueOf(code), "p"));
+                    created.incrementAndGet();
+                } catch (DuplicateCodeException e) {
+                    duplicates.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(created.get(), is(codes));
+        assertThat(duplicates.get(), is(codes * (THREADS - 1)));
+        assertThat(plantService.findAllPlants(), hasSize(codes));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositories")
+    @DisplayName("Não deve perder atualizações simultâneas da mesma planta")
+    void shouldNotLoseConcurrentUpdates(String name, Supplier<PlantRepository> repositories) throws Exception {
+        PlantService plantService = new PlantService(repositories.get(), new SimpleUserService());
+        plantService.createPlant(new Plant("1", "inicial"));
+        int updatesPerThread = 500;
+
+        runConcurrently(() -> {
+            for (int i = 0; i < updatesPerThread; i++) {
+                plantService.updatePlant("1", new Plant("1", "v" + i));
+            }
+        });
+
+        Plant plant = plantService.findPlantByCode("1").orElseThrow();
+        assertThat(plant.getVersao(), is(1L + THREADS * updatesPerThread));
+        assertThat(plant.getDescricao(), startsWith("v"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositories")
+    @DisplayName("Deve rejeitar atualização com versão esperada desatualizada")
+    void shouldRejectUpdateWithStaleExpectedVersion(String name, Supplier<PlantRepository> repositories) throws Exception {
+        PlantService plantService = new PlantService(repositories.get(), new SimpleUserService());
+        plantService.createPlant(new Plant("1", "inicial"));
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                plantService.updatePlant("1", new Plant("1", "nova"), 1L);
+                winners.incrementAndGet();
+            } catch (VersionConflictException e) {
+                conflicts.incrementAndGet();
+            }
+        });
+
+        assertThat(winners.get(), is(1));
+        assertThat(conflicts.get(), is(THREADS - 1));
+        assertThat(plantService.findPlantByCode("1").orElseThrow().getVersao(), is(2L));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositories")
+    @DisplayName("Deve recusar substituir uma planta recriada com a versão da planta excluída")
+    void shouldNotReplaceRecreatedPlantWithStaleCopy(String name, Supplier<PlantRepository> repositories) {
+        PlantRepository repository = repositories.get();
+        PlantService plantService = new PlantService(repository, new SimpleUserService());
+        Plant deleted = plantService.createPlant(new Plant("1", "antiga"));
+        plantService.deletePlant("1");
+        Plant recreated = plantService.createPlant(new Plant("1", "nova"));
+        assertThat(recreated.getId(), is(not(deleted.getId())));
+        assertThat(recreated.getVersao(), is(deleted.getVersao()));
+
+        // Cópia lida antes da exclusão, como a de uma atualização que perdeu a disputa
+        Plant stale = new Plant(deleted);
+        stale.setDescricao("alterada");
+        assertThat(repository.replaceIfVersion(stale, deleted.getVersao()), is(false));
+        assertThat(repository.findByCode("1").orElseThrow().getDescricao(), is("nova"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositories")
+    @DisplayName("Deve publicar uma única exclusão por código entre exclusões simultâneas")
+    void shouldPublishSingleDeletePerCodeUnderContention(String name, Supplier<PlantRepository> repositories) throws Exception {
+        PlantChangeLog changeLog = new PlantChangeLog(1024);
+        PlantService plantService = new PlantService(repositories.get(), new SimpleUserService(), changeLog, null);
+        int codes = 50;
+        for (int code = 0; code < codes; code++) {
+            plantService.createPlant(new Plant(String.valueOf(code), "p"));
+        }
+        AtomicInteger deleted = new AtomicInteger();
+        AtomicInteger notFound = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int code = 0; code < codes; code++) {
+                try {
+                    plantService.deletePlant(String.valueOf(code));
+                    deleted.incrementAndGet();
+                } catch (ResourceNotFoundException e) {
+                    notFound.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(deleted.get(), is(codes));
+        assertThat(notFound.get(), is(codes * (THREADS - 1)));
+        assertThat(changeLog.read(codes + 1, 1024), hasSize(codes));
+        assertThat(plantService.findAllPlants(), is(empty()));
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package Projeto.java.question8;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@DisplayName("Testes do Controlador de Plantas")
+class PlantControllerTest {
+
+    private final AtomicInteger serializations = new AtomicInteger();
+    private PlantRepository repository;
+    private PlantService plantService;
+    private PlantJsonCache jsonCache;
+    private ObjectMapper objectMapper;
+    private ObjectMapper smileMapper;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        smileMapper = Jackson2ObjectMapperBuilder.json().factory(PlantController.newSmileFactory()).build();
+        jsonCache = new PlantJsonCache(objectMapper, 1000);
+        repository = new InMemoryPlantRepository();
+        plantService = new PlantService(repository, new SimpleUserService(), null, null, jsonCache);
+        MappingJackson2HttpMessageConverter countingConverter = new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                serializations.incrementAndGet();
+                super.writeInternal(object, type, outputMessage);
+            }
+        };
+        mockMvc = MockMvcBuilders.standaloneSetup(new PlantController(plantService, objectMapper, jsonCache,
+                        new PlantIdempotencyStore(1000, Duration.ofMinutes(1)), new SimpleUserService()))
+                .setMessageConverters(new ByteArrayHttpMessageConverter(), countingConverter,
+                        new MappingJackson2SmileHttpMessageConverter(smileMapper))
+                .build();
+
+        for (int i = 1; i <= 50; i++) {
+            plantService.createPlant(new Plant(String.valueOf(i), "Planta " + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 sem serializar a planta quando o ETag não mudou")
+    void shouldAnswerNotModifiedForUnchangedPlant() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/api/plantas/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-1\""))
+                .andReturn().getResponse();
+        long cacheRequests = jsonCache.cache().stats().requestCount();
+
+        MockHttpServletResponse poll = mockMvc.perform(get("/api/plantas/7")
+                        .header(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse();
+
+        assertThat(first.getContentAsByteArray().length, is(greaterThan(0)));
+        assertThat(poll.getContentAsByteArray().length, is(0));
+        assertThat(jsonCache.cache().stats().requestCount(), is(cacheRequests));
+        assertThat(serializations.get(), is(0));
+
+        plantService.updatePlant("7", new Plant("7", "Alterada"));
+
+        mockMvc.perform(get("/api/plantas/7")
+                        .header(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-2\""))
+                .andExpect(jsonPath("$.descricao").value("Alterada"));
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 para a lista enquanto o repositório não muda")
+    void shouldAnswerNotModifiedForUnchangedCollection() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/api/plantas"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(50)))
+                .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        int serializationsAfterFirstPoll = serializations.get();
+
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletResponse poll = mockMvc.perform(get("/api/plantas")
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andReturn().getResponse();
+            assertThat(poll.getContentAsByteArray().length, is(0));
+        }
+        assertThat(first.getContentAsByteArray().length, is(greaterThan(1000)));
+        assertThat(serializations.get(), is(serializationsAfterFirstPoll));
+
+        plantService.deletePlant("50");
+
+        mockMvc.perform(get("/api/plantas").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$", hasSize(49)));
+    }
+
+    @Test
+    @DisplayName("Deve buscar descrições com erros de digitação quando fuzzy é informado")
+    void shouldSearchDescriptionsWithTypos() throws Exception {
+        plantService.createPlant(new Plant("901", "Hortênsia"));
+        plantService.createPlant(new Plant("902", "Hortensias"));
+
+        mockMvc.perform(get("/api/plantas/search").param("description", "hortensia"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].codigo", contains("902")));
+        mockMvc.perform(get("/api/plantas/search").param("description", "hortensia").param("fuzzy", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$[*].codigo", contains("901", "902")));
+        mockMvc.perform(get("/api/plantas/search").param("description", "hortensia").param("fuzzy", "4"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve sugerir plantas por prefixo do código")
+    void shouldSuggestPlantsByCodePrefix() throws Exception {
+        mockMvc.perform(get("/api/plantas/suggest").param("prefix", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$", hasSize(10)))
+                .andExpect(jsonPath("$[0].codigo").value("1"))
+                .andExpect(jsonPath("$[1].codigo").value("10"))
+                .andExpect(jsonPath("$[9].codigo").value("18"));
+
+        mockMvc.perform(get("/api/plantas/suggest").param("prefix", "4").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].codigo", contains("4", "40", "41")));
+
+        mockMvc.perform(get("/api/plantas/suggest").param("prefix", "x"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/plantas/suggest").param("prefix", "1").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve excluir em lote por lista de códigos e por intervalo")
+    void shouldDeletePlantsByListAndRange() throws Exception {
+        mockMvc.perform(delete("/api/plantas")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"3\", \"99\", \"4\", \"x\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].codigo").value("99"))
+                .andExpect(jsonPath("$.errors[0].message").value("Planta não encontrada"))
+                .andExpect(jsonPath("$.errors[1].index").value(3));
+
+        mockMvc.perform(delete("/api/plantas").param("from", "1").param("to", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(8))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        assertThat(plantService.findPlantsAfter(null, 5).get(0).getCodigo(), is("11"));
+        mockMvc.perform(delete("/api/plantas").param("from", "a").param("to", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve responder 412 quando If-Match não corresponde à versão atual")
+    void shouldAnswerPreconditionFailedOnStaleIfMatch() throws Exception {
+        mockMvc.perform(put("/api/plantas/3")
+                        .header(HttpHeaders.IF_MATCH, "\"3-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"codigo\":\"3\",\"descricao\":\"Nova\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-2\""));
+
+        mockMvc.perform(put("/api/plantas/3")
+                        .header(HttpHeaders.IF_MATCH, "\"3-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"codigo\":\"3\",\"descricao\":\"Outra\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("Deve mudar o ETag quando a planta é excluída e criada de novo")
+    void shouldChangeEtagWhenPlantIsRecreated() throws Exception {
+        String oldEtag = mockMvc.perform(get("/api/plantas/7"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        plantService.deletePlant("7");
+        plantService.createPlant(new Plant("7", "Recriada"));
+
+        mockMvc.perform(get("/api/plantas/7").header(HttpHeaders.IF_NONE_MATCH, oldEtag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(oldEtag)))
+                .andExpect(jsonPath("$.descricao").value("Recriada"));
+        mockMvc.perform(put("/api/plantas/7")
+                        .header(HttpHeaders.IF_MATCH, oldEtag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"codigo\":\"7\",\"descricao\":\"Outra\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("Deve responder com o JSON em cache igual ao do Jackson e renová-lo quando a planta muda")
+    void shouldServeCachedJsonFragments() throws Exception {
+        byte[] single = mockMvc.perform(get("/api/plantas/7"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(single, is(objectMapper.writeValueAsBytes(new PlantDTO("7", "Planta 7"))));
+
+        long hits = jsonCache.cache().stats().hitCount();
+        byte[] range = mockMvc.perform(get("/api/plantas/range").param("from", "6").param("to", "8"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(range, is(objectMapper.writeValueAsBytes(List.of(
+                new PlantDTO("6", "Planta 6"), new PlantDTO("7", "Planta 7"), new PlantDTO("8", "Planta 8")))));
+        assertThat(jsonCache.cache().stats().hitCount(), is(hits + 1));
+
+        byte[] page = mockMvc.perform(get("/api/plantas").param("after", "48").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(page, is(objectMapper.writeValueAsBytes(new PlantPageDTO(
+                List.of(new PlantDTO("49", "Planta 49"), new PlantDTO("50", "Planta 50")), "50"))));
+        byte[] lastPage = mockMvc.perform(get("/api/plantas").param("after", "50").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(lastPage, is(objectMapper.writeValueAsBytes(new PlantPageDTO(List.of(), null))));
+
+        plantService.updatePlant("7", new Plant("7", "Ipê \"roxo\""));
+        mockMvc.perform(get("/api/plantas/7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descricao").value("Ipê \"roxo\""));
+        mockMvc.perform(get("/api/plantas/search").param("description", "roxo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].codigo", contains("7")));
+
+        plantService.deletePlant("7");
+        mockMvc.perform(get("/api/plantas/7")).andExpect(status().isNotFound());
+
+        // Excluída e recriada sem passar pela invalidação, como por outra instância no mesmo banco
+        mockMvc.perform(get("/api/plantas/8")).andExpect(jsonPath("$.descricao").value("Planta 8"));
+        PlantService otherInstance = new PlantService(repository, new SimpleUserService());
+        otherInstance.deletePlant("8");
+        otherInstance.createPlant(new Plant("8", "Recriada"));
+        mockMvc.perform(get("/api/plantas/8")).andExpect(jsonPath("$.descricao").value("Recriada"));
+        mockMvc.perform(get("/api/plantas/range").param("from", "6").param("to", "8"))
+                .andExpect(jsonPath("$[*].codigo", contains("6", "8")));
+    }
+
+    @Test
+    @DisplayName("Deve repetir a resposta de criações e atualizações com a mesma Idempotency-Key")
+    void shouldReplayWritesWithSameIdempotencyKey() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "chave-1").content("{\"codigo\":\"60\",\"descricao\":\"Nova\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse();
+        String created = first.getContentAsString();
+        String createdEtag = first.getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "chave-1").content("{\"codigo\":\"60\",\"descricao\":\"Nova\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(header().string(HttpHeaders.ETAG, createdEtag))
+                .andExpect(content().json(created));
+
+        // Outra requisição com a mesma chave, ou a mesma chave de outro cliente, não é repetição
+        mockMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "chave-1").content("{\"codigo\":\"61\",\"descricao\":\"Outra\"}"))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "chave-1").header(HttpHeaders.AUTHORIZATION, "Bearer outro")
+                        .content("{\"codigo\":\"60\",\"descricao\":\"Nova\"}"))
+                .andExpect(status().isConflict());
+
+        String updatedEtag = createdEtag.replace("-1\"", "-2\"");
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(put("/api/plantas/60").contentType(MediaType.APPLICATION_JSON)
+                            .header("Idempotency-Key", "chave-2").header(HttpHeaders.IF_MATCH, createdEtag)
+                            .content("{\"codigo\":\"60\",\"descricao\":\"Alterada\"}"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, updatedEtag));
+        }
+        assertThat(plantService.findPlantByCode("60").get().getVersao(), is(2L));
+
+        mockMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "").content("{\"codigo\":\"62\",\"descricao\":\"Nova\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve separar as chaves de idempotência por usuário resolvido e por formato da resposta")
+    void shouldScopeIdempotencyKeysByPrincipalAndFormat() throws Exception {
+        InMemoryIdentityStore store = new InMemoryIdentityStore();
+        store.put("t-maria", new UserIdentity("maria", Set.of()));
+        store.put("t-maria-2", new UserIdentity("maria", Set.of()));
+        store.put("t-joao", new UserIdentity("joao", Set.of()));
+        MockMvc identityMvc = MockMvcBuilders.standaloneSetup(new PlantController(plantService, objectMapper, jsonCache,
+                        new PlantIdempotencyStore(1000, Duration.ofMinutes(1)),
+                        new IdentityUserService(store, Duration.ofMinutes(10), Duration.ofSeconds(10),
+                                Duration.ofMinutes(1), 100, "anonimo")))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper),
+                        new MappingJackson2SmileHttpMessageConverter(smileMapper))
+                .build();
+
+        String body = "{\"codigo\":\"70\",\"descricao\":\"Nova\"}";
+        identityMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "chave").header(HttpHeaders.AUTHORIZATION, "Bearer t-maria").content(body))
+                .andExpect(status().isCreated());
+        // Outro token do mesmo usuário repete a resposta; outro usuário não compartilha a chave
+        identityMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "chave").header(HttpHeaders.AUTHORIZATION, "Bearer t-maria-2").content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+        identityMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "chave").header(HttpHeaders.AUTHORIZATION, "Bearer t-joao").content(body))
+                .andExpect(status().isConflict());
+
+        // A repetição pedindo Smile receberia o ETag da resposta JSON
+        identityMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .accept(PlantController.APPLICATION_SMILE)
+                        .header("Idempotency-Key", "chave").header(HttpHeaders.AUTHORIZATION, "Bearer t-maria").content(body))
+                .andExpect(status().isUnprocessableEntity());
+
+        // Clientes anônimos de endereços diferentes não compartilham a chave
+        identityMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "anonima").content("{\"codigo\":\"71\",\"descricao\":\"Nova\"}"))
+                .andExpect(status().isCreated());
+        identityMvc.perform(post("/api/plantas").contentType(MediaType.APPLICATION_JSON)
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.2");
+                            return request;
+                        })
+                        .header("Idempotency-Key", "anonima").content("{\"codigo\":\"71\",\"descricao\":\"Nova\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("Deve escolher entre transmissão e paginação sem ambiguidade quando vêm stream e limit")
+    void shouldRouteStreamAndLimitUnambiguously() throws Exception {
+        MvcResult streamed = mockMvc.perform(get("/api/plantas").param("stream", "true").param("limit", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        streamed.getAsyncResult(5000);
+        assertThat(objectMapper.readTree(streamed.getResponse().getContentAsString()).size(), is(50));
+
+        mockMvc.perform(get("/api/plantas").param("stream", "false").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor").value("2"));
+    }
+
+    @Test
+    @DisplayName("Deve exportar em NDJSON as plantas modificadas desde o instante informado")
+    void shouldExportModifiedPlantsAsNdjson() throws Exception {
+        MvcResult all = mockMvc.perform(get("/api/plantas/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        all.getAsyncResult(5000);
+        String[] lines = all.getResponse().getContentAsString().split("\n");
+        assertThat(lines.length, is(50));
+        assertThat(lines[0], startsWith("{\"codigo\":\"1\",\"descricao\":\"Planta 1\",\"criadoPor\":"));
+        assertThat(lines[0], containsString("\"versao\":1"));
+
+        Thread.sleep(5);
+        LocalDateTime since = LocalDateTime.now();
+        plantService.updatePlant("7", new Plant("7", "Alterada"));
+
+        MvcResult modified = mockMvc.perform(get("/api/plantas/export")
+                        .param("modifiedSince", since.toString())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        modified.getAsyncResult(5000);
+        MockHttpServletResponse response = modified.getResponse();
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING), is("gzip"));
+
+        String body;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            body = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(body, startsWith("{\"codigo\":\"7\",\"descricao\":\"Alterada\""));
+        assertThat(body, containsString("\"versao\":2}\n"));
+        assertThat(body.split("\n").length, is(1));
+    }
+
+    @Test
+    @DisplayName("Deve comprimir a exportação só quando Accept-Encoding aceita gzip com qualidade maior que zero")
+    void shouldParseAcceptEncodingQualities() throws Exception {
+        assertThat(PlantController.acceptsGzip("gzip, deflate"), is(true));
+        assertThat(PlantController.acceptsGzip("deflate, GZIP;q=0.5"), is(true));
+        assertThat(PlantController.acceptsGzip("x-gzip"), is(true));
+        assertThat(PlantController.acceptsGzip("br, *;q=0.1"), is(true));
+        assertThat(PlantController.acceptsGzip("gzip;q=0"), is(false));
+        assertThat(PlantController.acceptsGzip("gzip;q=0.000, *"), is(false));
+        assertThat(PlantController.acceptsGzip("x-gzip-foo, br"), is(false));
+        assertThat(PlantController.acceptsGzip("gzip;q=abc"), is(false));
+        assertThat(PlantController.acceptsGzip(null), is(false));
+
+        MvcResult export = mockMvc.perform(get("/api/plantas/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        export.getAsyncResult(5000);
+        assertThat(export.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING), is(nullValue()));
+        assertThat(export.getResponse().getContentAsString().split("\n").length, is(50));
+    }
+
+    @Test
+    @DisplayName("Deve negociar o formato Smile na listagem, na criação em lote e na exportação")
+    void shouldNegotiateSmileEncoding() throws Exception {
+        byte[] json = mockMvc.perform(get("/api/plantas"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        MockHttpServletResponse smile = mockMvc.perform(get("/api/plantas").accept(PlantController.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertThat(smile.getContentType(), is(PlantController.APPLICATION_SMILE_VALUE));
+        List<PlantDTO> plants = smileMapper.readValue(smile.getContentAsByteArray(), new TypeReference<List<PlantDTO>>() {
+        });
+        assertThat(plants, hasSize(50));
+        assertThat(plants.get(49).getDescricao(), is("Planta 50"));
+        assertThat(smile.getContentAsByteArray().length, is(lessThan(json.length)));
+
+        byte[] batch = smileMapper.writeValueAsBytes(List.of(new PlantDTO("51", "Nova"), new PlantDTO("1", "Repetida")));
+        mockMvc.perform(post("/api/plantas/batch").contentType(PlantController.APPLICATION_SMILE).content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors", hasSize(1)));
+
+        MvcResult export = mockMvc.perform(get("/api/plantas/export").accept(PlantController.APPLICATION_SMILE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        export.getAsyncResult(5000);
+        assertThat(export.getResponse().getContentType(), is(PlantController.APPLICATION_SMILE_VALUE));
+        try (MappingIterator<PlantExportDTO> exported = smileMapper.readerFor(PlantExportDTO.class)
+                .readValues(export.getResponse().getContentAsByteArray())) {
+            List<PlantExportDTO> all = exported.readAll();
+            assertThat(all, hasSize(51));
+            assertThat(all.get(50).getCodigo(), is("51"));
+            assertThat(all.get(50).getCriadoPor(), is("usuario_sistema"));
+            assertThat(all.get(50).getDataCriacao(), is(notNullValue()));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve dar ETags diferentes a JSON e Smile, variar por Accept e respeitar q=0")
+    void shouldVaryEtagByEncoding() throws Exception {
+        mockMvc.perform(get("/api/plantas/7"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-1\""))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)));
+        String smileEtag = mockMvc.perform(get("/api/plantas/7").accept(PlantController.APPLICATION_SMILE))
+                .andExpect(content().contentType(PlantController.APPLICATION_SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-1-smile\""))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/plantas/7").header(HttpHeaders.IF_NONE_MATCH, smileEtag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/plantas").accept(PlantController.APPLICATION_SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-smile\"")));
+        mockMvc.perform(put("/api/plantas/7")
+                        .header(HttpHeaders.IF_MATCH, smileEtag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"codigo\":\"7\",\"descricao\":\"Alterada\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7-2\""));
+
+        mockMvc.perform(get("/api/plantas/7").header(HttpHeaders.ACCEPT, "application/x-jackson-smile;q=0, */*"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/plantas/7").header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(content().contentType(PlantController.APPLICATION_SMILE));
+        mockMvc.perform(get("/api/plantas/7").header(HttpHeaders.ACCEPT, "application/json, application/x-jackson-smile;q=0.9"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+        MvcResult export = mockMvc.perform(get("/api/plantas/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(export.getResponse().getHeaders(HttpHeaders.VARY),
+                hasItems(containsString(HttpHeaders.ACCEPT), containsString(HttpHeaders.ACCEPT_ENCODING)));
+    }
+}
@@ -0,0 +1,96 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Testes das Chaves de Idempotência")
+class PlantIdempotencyStoreTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final PlantIdempotencyStore store = new PlantIdempotencyStore(100, Duration.ofMinutes(10), nanos::get);
+
+    @Test
+    @DisplayName("Deve executar uma única vez as requisições simultâneas com a mesma chave")
+    void shouldCoalesceConcurrentDuplicates() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(executor.submit(() -> store.execute("POST /api/plantas", "k", "corpo", () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return ResponseEntity.ok("criada");
+                })));
+            }
+            started.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+            release.countDown();
+
+            int replayed = 0;
+            for (Future<ResponseEntity<String>> response : responses) {
+                ResponseEntity<String> entity = response.get(5, TimeUnit.SECONDS);
+                assertThat(entity.getBody(), is("criada"));
+                if (entity.getHeaders().containsKey(PlantIdempotencyStore.REPLAYED)) {
+                    replayed++;
+                }
+            }
+            assertThat(executions.get(), is(1));
+            assertThat(replayed, is(7));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve liberar a chave quando a operação falha e esquecê-la após o ttl")
+    void shouldReleaseKeyOnFailureAndExpireAfterTtl() {
+        AtomicInteger executions = new AtomicInteger();
+        assertThrows(VersionConflictException.class, () -> store.execute("PUT /api/plantas/1", "k", "corpo", () -> {
+            executions.incrementAndGet();
+            throw new VersionConflictException("A planta foi alterada por outra operação");
+        }));
+
+        store.execute("PUT /api/plantas/1", "k", "corpo", () -> ResponseEntity.ok(executions.incrementAndGet()));
+        ResponseEntity<Integer> replay = store.execute("PUT /api/plantas/1", "k", "corpo",
+                () -> ResponseEntity.ok(executions.incrementAndGet()));
+        assertThat(replay.getBody(), is(2));
+
+        // A mesma chave em outra operação é independente
+        store.execute("PUT /api/plantas/2", "k", "corpo", () -> ResponseEntity.ok(executions.incrementAndGet()));
+        assertThat(executions.get(), is(3));
+
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+        ResponseEntity<Integer> afterTtl = store.execute("PUT /api/plantas/1", "k", "corpo",
+                () -> ResponseEntity.ok(executions.incrementAndGet()));
+        assertThat(afterTtl.getBody(), is(4));
+        assertThat(afterTtl.getHeaders().containsKey(PlantIdempotencyStore.REPLAYED), is(false));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
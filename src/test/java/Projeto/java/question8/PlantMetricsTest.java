@@ -0,0 +1,60 @@
+package Projeto.java.question8;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Testes das Métricas de Plantas")
+class PlantMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private PlantService plantService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        plantService = new PlantService(new MeteredPlantRepository(new InMemoryPlantRepository(), registry),
+                new SimpleUserService());
+    }
+
+    @Test
+    @DisplayName("Deve medir operações, tamanho e resultados das consultas do repositório")
+    void shouldRecordRepositoryOperations() {
+        plantService.createPlant(new Plant("1", "Rosa"));
+        plantService.createPlant(new Plant("2", "Rosado"));
+        plantService.createPlant(new Plant("3", "Ipê"));
+
+        assertThat(plantService.findPlantsByDescription("ros"), hasSize(2));
+        plantService.findPlantByCode("1");
+        plantService.findPlantByCode("9");
+
+        assertThat(registry.get(MeteredPlantRepository.OPERATIONS).tag("operation", "insertIfAbsent").timer().count(), is(3L));
+        assertThat(registry.get(MeteredPlantRepository.OPERATIONS).tag("operation", "findByCode").timer().count(), is(2L));
+        assertThat(registry.get(MeteredPlantRepository.SIZE).gauge().value(), is(3.0));
+        assertThat(registry.get(MeteredPlantRepository.RESULTS).tag("operation", "findByDescriptionContaining")
+                .summary().totalAmount(), is(2.0));
+    }
+
+    @Test
+    @DisplayName("Deve contar exceções de plantas por tipo sem tratá-las")
+    void shouldCountPlantExceptionsByType() {
+        PlantExceptionMetrics metrics = new PlantExceptionMetrics(registry);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(metrics.resolveException(request, response, null, new ValidationException("a")), is(nullValue()));
+        metrics.resolveException(request, response, null, new ValidationException("b"));
+        metrics.resolveException(request, response, null, new DuplicateCodeException("c"));
+        metrics.resolveException(request, response, null, new IllegalStateException("d"));
+
+        assertThat(registry.get(PlantExceptionMetrics.EXCEPTIONS).tag("type", "ValidationException").counter().count(), is(2.0));
+        assertThat(registry.get(PlantExceptionMetrics.EXCEPTIONS).tag("type", "DuplicateCodeException").counter().count(), is(1.0));
+        assertThat(registry.find(PlantExceptionMetrics.EXCEPTIONS).counters(), hasSize(2));
+    }
+}
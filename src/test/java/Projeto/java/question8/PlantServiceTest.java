@@ -0,0 +1,101 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do Serviço de Plantas")
+class PlantServiceTest {
+
+    @Mock
+    private UserService userService;
+
+    private InMemoryPlantRepository plantRepository;
+    private PlantService plantService;
+
+    @BeforeEach
+    void setUp() {
+        plantRepository = new InMemoryPlantRepository();
+        plantService = new PlantService(plantRepository, userService);
+    }
+
+    @Test
+    @DisplayName("Deve criar lote reportando erros por item")
+    void shouldCreateBatchReportingErrorsPerItem() {
+        when(userService.getCurrentUsername()).thenReturn("maria");
+        plantRepository.save(new Plant("1", "Existente"));
+
+        PlantBatchResult result = plantService.createPlants(List.of(
+                new Plant("1", "Duplicada"),
+                new Plant("2", "Nova"),
+                new Plant("abc", null),
+                new Plant("2", "Repetida"),
+                new Plant("3", "Descrição longa"),
+                new Plant("4", null)));
+
+        assertThat(result.getSucceeded().stream().map(Plant::getCodigo).collect(Collectors.toList()),
+                contains("2", "4"));
+        assertThat(result.getErrors().stream().map(PlantBatchResult.ItemError::getIndex).collect(Collectors.toList()),
+                contains(0, 2, 3, 4));
+        assertThat(result.getErrors().get(2).getMessage(), is("Código repetido no lote"));
+
+        Plant created = plantRepository.findByCode("2").orElseThrow();
+        assertThat(created.getDescricao(), is("Nova"));
+        assertThat(created.getCriadoPor(), is("maria"));
+        assertThat(created.getDataCriacao(), is(notNullValue()));
+        assertThat(plantRepository.findByCode("1").orElseThrow().getDescricao(), is("Existente"));
+        verify(userService, times(1)).getCurrentUsername();
+    }
+
+    @Test
+    @DisplayName("Deve excluir lote verificando a permissão uma única vez")
+    void shouldDeleteBatchCheckingPermissionOnce() {
+        when(userService.isCurrentUserAdmin()).thenReturn(true);
+        when(userService.getCurrentUsername()).thenReturn("maria");
+        for (int i = 1; i <= 5; i++) {
+            plantRepository.save(new Plant(String.valueOf(i), null));
+        }
+
+        PlantBatchResult result = plantService.deletePlants(List.of("2", "9", "abc", "4", "2"));
+
+        assertThat(result.getSucceeded().stream().map(Plant::getCodigo).collect(Collectors.toList()),
+                contains("2", "4"));
+        assertThat(result.getErrors().stream().map(PlantBatchResult.ItemError::getMessage).collect(Collectors.toList()),
+                contains("Planta não encontrada", "O código da planta deve conter apenas caracteres numéricos",
+                        "Código repetido no lote"));
+        assertThat(result.getErrors().get(2).getIndex(), is(4));
+        assertThat(plantRepository.count(), is(3L));
+        verify(userService, times(1)).isCurrentUserAdmin();
+        verify(userService, times(1)).getCurrentUsername();
+
+        result = plantService.deletePlantsByCodeRange("3", "10");
+        assertThat(result.getSucceeded().stream().map(Plant::getCodigo).collect(Collectors.toList()),
+                contains("3", "5"));
+        assertThat(result.getErrors(), is(empty()));
+        assertThat(plantRepository.findAll().stream().map(Plant::getCodigo).collect(Collectors.toList()),
+                contains(is("1")));
+    }
+
+    @Test
+    @DisplayName("Deve recusar exclusão em lote de quem não é administrador")
+    void shouldRejectBatchDeleteFromNonAdmin() {
+        when(userService.isCurrentUserAdmin()).thenReturn(false);
+        plantRepository.save(new Plant("1", null));
+
+        assertThrows(UnauthorizedOperationException.class, () -> plantService.deletePlants(List.of("1")));
+        assertThrows(UnauthorizedOperationException.class, () -> plantService.deletePlantsByCodeRange("1", "9"));
+        assertThat(plantRepository.count(), is(1L));
+    }
+}
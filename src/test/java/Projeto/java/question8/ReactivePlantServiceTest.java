@@ -0,0 +1,112 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@DisplayName("Testes do Serviço Reativo de Plantas")
+class ReactivePlantServiceTest {
+
+    private InMemoryPlantRepository plantRepository;
+    private ReactivePlantService plantService;
+
+    @BeforeEach
+    void setUp() {
+        plantRepository = new InMemoryPlantRepository();
+        plantService = new ReactivePlantService(
+                new BlockingPlantRepositoryAdapter(plantRepository, Schedulers.boundedElastic()),
+                new SimpleUserService());
+    }
+
+    @Test
+    @DisplayName("Deve criar, atualizar e rejeitar conflitos com sinais de erro")
+    void shouldCreateUpdateAndSignalErrors() {
+        StepVerifier.create(plantService.createPlant(new Plant("1", "Rosa")))
+                .assertNext(plant -> assertThat(plant.getVersao(), is(1L)))
+                .verifyComplete();
+        StepVerifier.create(plantService.createPlant(new Plant("1", "Outra")))
+                .verifyError(DuplicateCodeException.class);
+        StepVerifier.create(plantService.createPlant(new Plant("abc", "Inválida")))
+                .verifyError(ValidationException.class);
+
+        StepVerifier.create(plantService.updatePlant("1", new Plant("1", "Nova"), null))
+                .assertNext(plant -> assertThat(plant.getVersao(), is(2L)))
+                .verifyComplete();
+        StepVerifier.create(plantService.updatePlant("1", new Plant("1", "Velha"), 1L))
+                .verifyError(VersionConflictException.class);
+        StepVerifier.create(plantService.updatePlant("9", new Plant("9", "Nada"), null))
+                .verifyError(ResourceNotFoundException.class);
+
+        assertThat(plantRepository.findByCode("1").orElseThrow().getDescricao(), is("Nova"));
+    }
+
+    @Test
+    @DisplayName("Deve publicar a exclusão só quando remove a planta")
+    void shouldPublishOnlyEffectiveDeletes() {
+        PlantChangeLog changeLog = new PlantChangeLog(16);
+        ReactivePlantService service = new ReactivePlantService(
+                new BlockingPlantRepositoryAdapter(plantRepository, Schedulers.boundedElastic()),
+                new SimpleUserService(), changeLog, null);
+        plantRepository.save(new Plant("1", "Rosa"));
+
+        StepVerifier.create(service.deletePlant("1")).verifyComplete();
+        StepVerifier.create(service.deletePlant("1")).verifyError(ResourceNotFoundException.class);
+
+        assertThat(changeLog.read(1, 100), hasSize(1));
+        assertThat(changeLog.read(1, 100).get(0).getType(), is(PlantChangeEvent.Type.DELETED));
+        assertThat(plantRepository.findByCode("1").isPresent(), is(false));
+    }
+
+    @Test
+    @DisplayName("Deve entregar a listagem conforme a demanda do assinante")
+    void shouldHonourBackpressureWhenListing() {
+        for (int i = 1; i <= 100; i++) {
+            plantRepository.save(new Plant(String.valueOf(i), "p" + i));
+        }
+
+        StepVerifier.create(plantService.findAllPlants(), 2)
+                .assertNext(plant -> assertThat(plant.getCodigo(), is("1")))
+                .assertNext(plant -> assertThat(plant.getCodigo(), is("2")))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenRequest(3)
+                .expectNextCount(3)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Deve enviar a busca do controlador reativo em NDJSON")
+    void shouldStreamSearchAsNdjson() throws Exception {
+        plantRepository.save(new Plant("1", "Rosa"));
+        plantRepository.save(new Plant("2", "Rosado"));
+        plantRepository.save(new Plant("3", "Ipê"));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ReactivePlantController(plantService)).build();
+
+        MvcResult result = mockMvc.perform(get("/api/reactive/plantas/search").param("description", "ros"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+        String body = result.getResponse().getContentAsString();
+
+        assertThat(body.trim().split("\n"), arrayContaining(
+                "{\"codigo\":\"1\",\"descricao\":\"Rosa\"}",
+                "{\"codigo\":\"2\",\"descricao\":\"Rosado\"}"));
+
+        MvcResult missing = mockMvc.perform(get("/api/reactive/plantas/9"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(missing)).andExpect(status().isNotFound());
+    }
+}
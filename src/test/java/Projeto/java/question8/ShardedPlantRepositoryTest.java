@@ -0,0 +1,166 @@
+package Projeto.java.question8;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayName("Testes do Repositório de Plantas Particionado")
+class ShardedPlantRepositoryTest {
+
+    private List<InMemoryPlantRepository> shards;
+    private ShardedPlantRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        shards = List.of(new InMemoryPlantRepository(), new InMemoryPlantRepository(),
+                new InMemoryPlantRepository(), new InMemoryPlantRepository());
+        repository = new ShardedPlantRepository(shards, Runnable::run, 16);
+    }
+
+    @Test
+    @DisplayName("Deve distribuir os códigos entre os shards e mover poucos ao acrescentar um shard")
+    void shouldSpreadCodesAndMoveFewWhenAddingShard() {
+        List<String> codes = IntStream.rangeClosed(1, 10000).mapToObj(String::valueOf).collect(Collectors.toList());
+        int[] perShard = new int[4];
+        codes.forEach(code -> perShard[repository.shardIndex(code)]++);
+        for (int count : perShard) {
+            assertThat(count, is(both(greaterThan(1800)).and(lessThan(3200))));
+        }
+
+        List<InMemoryPlantRepository> fiveShards = new ArrayList<>(shards);
+        fiveShards.add(new InMemoryPlantRepository());
+        ShardedPlantRepository grown = new ShardedPlantRepository(fiveShards, Runnable::run, 16);
+        long moved = codes.stream().filter(code -> repository.shardIndex(code) != grown.shardIndex(code)).count();
+        long movedToNewShard = codes.stream().filter(code -> grown.shardIndex(code) == 4).count();
+        assertThat(moved, is(movedToNewShard));
+        assertThat(moved, is(both(greaterThan(1000L)).and(lessThan(3000L))));
+    }
+
+    @Test
+    @DisplayName("Deve gravar cada planta só no shard dono e reunir as consultas na ordem dos códigos")
+    void shouldRouteWritesAndMergeQueries() {
+        for (String code : List.of("100", "9", "010", "10", "2", "0", "35", "7")) {
+            assertThat(repository.insertIfAbsent(new Plant(code, "Planta" + code)), is(true));
+        }
+        assertThat(repository.insertIfAbsent(new Plant("9", "Outra")), is(false));
+
+        for (String code : List.of("100", "9", "010")) {
+            int owners = 0;
+            for (InMemoryPlantRepository shard : shards) {
+                owners += shard.existsByCode(code) ? 1 : 0;
+            }
+            assertThat(owners, is(1));
+            assertThat(repository.shardFor(code).existsByCode(code), is(true));
+        }
+
+        assertThat(codes(repository.findAll()), contains("0", "2", "7", "9", "010", "10", "35", "100"));
+        assertThat(codes(repository.findAllAfter("7", 3)), contains("9", "010", "10"));
+        assertThat(codes(repository.findByCodeRange("2", "10", 10)), contains("2", "7", "9", "010", "10"));
+        assertThat(codes(repository.findByDescriptionContaining("planta1")), contains("10", "100"));
+        try (Stream<Plant> plants = repository.streamAll()) {
+            assertThat(codes(plants.collect(Collectors.toList())), contains("0", "2", "7", "9", "010", "10", "35", "100"));
+        }
+        assertThat(repository.count(), is(8L));
+
+        long before = repository.modificationCount();
+        repository.delete(new Plant("35", null));
+        assertThat(repository.findByCode("35"), is(Optional.empty()));
+        assertThat(repository.modificationCount(), is(greaterThan(before)));
+    }
+
+    @Test
+    @DisplayName("Deve emitir ids únicos a partir de blocos reservados por shard, também em paralelo")
+    void shouldAllocateUniqueIdsFromBlocks() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ShardedPlantRepository parallel = new ShardedPlantRepository(shards, executor, 16);
+            List<Plant> plants = IntStream.rangeClosed(1, 2000)
+                    .mapToObj(i -> new Plant(String.valueOf(i), "p"))
+                    .collect(Collectors.toList());
+            plants.add(new Plant("1", "Repetida"));
+
+            List<Plant> inserted = parallel.insertAllIfAbsent(plants);
+
+            assertThat(inserted, hasSize(2000));
+            assertThat(inserted.get(0).getCodigo(), is("1"));
+            Set<Long> ids = inserted.stream().map(Plant::getId).collect(Collectors.toSet());
+            assertThat(ids, hasSize(2000));
+        } finally {
+            executor.shutdown();
+        }
+
+        // Um id restaurado nunca é emitido de novo
+        Plant restored = new Plant("5000", "r");
+        restored.setId(100000L);
+        repository.save(restored);
+        Plant next = new Plant("5001", "n");
+        repository.save(next);
+        assertThat(next.getId(), is(not(100000L)));
+        assertThat(repository.findAll().stream().map(Plant::getId).distinct().count(), is(repository.count()));
+    }
+
+    @Test
+    @DisplayName("Deve excluir em lote nos shards donos mantendo a ordem pedida")
+    void shouldDeleteAllAcrossShardsInRequestOrder() {
+        for (int i = 1; i <= 100; i++) {
+            repository.save(new Plant(String.valueOf(i), "p" + i));
+        }
+        List<String> codes = IntStream.iterate(100, i -> i - 3).limit(30).mapToObj(String::valueOf)
+                .collect(Collectors.toList());
+        codes.add(1, "500");
+
+        List<Plant> removed = repository.deleteAll(codes);
+
+        codes.remove("500");
+        assertThat(codes(removed), is(codes));
+        assertThat(repository.count(), is(70L));
+        assertThat(shards.stream().mapToLong(InMemoryPlantRepository::count).sum(), is(70L));
+        assertThat(codes.stream().noneMatch(repository::existsByCode), is(true));
+    }
+
+    @Test
+    @DisplayName("Deve sugerir códigos por prefixo combinando os shards")
+    void shouldSuggestCodesByPrefixAcrossShards() {
+        InMemoryPlantRepository single = new InMemoryPlantRepository();
+        for (int i = 1; i <= 5000; i++) {
+            repository.save(new Plant(String.valueOf(i), null));
+            single.save(new Plant(String.valueOf(i), null));
+        }
+
+        for (String prefix : List.of("1", "42", "4999", "6")) {
+            assertThat(codes(repository.findByCodePrefix(prefix, 8)), is(codes(single.findByCodePrefix(prefix, 8))));
+        }
+        assertThat(codes(repository.findByCodePrefix("42", 5)), contains("42", "420", "421", "422", "423"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar descrições semelhantes ordenando os resultados de todos os shards")
+    void shouldFindSimilarDescriptionsAcrossShards() {
+        InMemoryPlantRepository single = new InMemoryPlantRepository();
+        String[] descriptions = {"rosa", "rosas", "prosa", "roza", "lírio", "rosa"};
+        for (int i = 1; i <= 600; i++) {
+            repository.save(new Plant(String.valueOf(i), descriptions[i % descriptions.length]));
+            single.save(new Plant(String.valueOf(i), descriptions[i % descriptions.length]));
+        }
+
+        for (int maxDistance = 0; maxDistance <= 2; maxDistance++) {
+            assertThat(codes(repository.findByDescriptionSimilar("Rosa", maxDistance)),
+                    is(codes(single.findByDescriptionSimilar("Rosa", maxDistance))));
+        }
+        assertThat(repository.findByDescriptionSimilar("rosa", 1), hasSize(500));
+    }
+
+    private static List<String> codes(List<Plant> plants) {
+        return plants.stream().map(Plant::getCodigo).collect(Collectors.toList());
+    }
+}